@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.BeliefState;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import burningroom.BurningRoom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tabular.BeliefUpdateEngine;
+import tabular.DenseTabularPOMDP;
+import tabular.TabularBeliefs;
+import tabular.TabularModelCompiler;
+
+/**
+ * Belief update after asking whether the robot is valuable, from the 0.5/0.5 belief with the room on fire.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class BeliefBenchmarks {
+
+	protected TabularBeliefState belief;
+	protected GroundedAction ask;
+	protected burlap.oomdp.core.states.State answer;
+
+	protected DenseTabularPOMDP model;
+	protected BeliefUpdateEngine engine;
+	protected double[] beliefVector;
+	protected double[] updated;
+	protected int askId;
+	protected int answerId;
+
+	@Setup
+	public void setup() {
+		PODomain domain = (PODomain)new BurningRoom().generateDomain();
+		RewardFunction rf = new BurningRoom.BurningRoomRF();
+
+		belief = new TabularBeliefState(domain);
+		belief.setBelief(BurningRoom.getMDPState(domain, true, true), 0.5);
+		belief.setBelief(BurningRoom.getMDPState(domain, false, true), 0.5);
+		ask = domain.getAction(BurningRoom.ACTIONASK).getAssociatedGroundedAction();
+		answer = BurningRoom.getAnswerObservation(domain, true);
+
+		model = TabularModelCompiler.compile(domain, rf, new BurningRoom.BurningRoomTF());
+		engine = new BeliefUpdateEngine(domain, model);
+		beliefVector = belief.getBeliefVector();
+		updated = new double[model.numStates()];
+		askId = model.actionIndex(BurningRoom.ACTIONASK);
+		answerId = model.observationIndex(answer);
+	}
+
+	@Benchmark
+	public BeliefState tabularBeliefStateUpdate() {
+		return belief.getUpdatedBeliefState(answer, ask);
+	}
+
+	@Benchmark
+	public double compiledBeliefUpdate() {
+		return TabularBeliefs.update(model, beliefVector, askId, answerId, updated);
+	}
+
+	@Benchmark
+	public double engineBeliefUpdate() {
+		return engine.update(beliefVector, askId, answerId, updated);
+	}
+
+}
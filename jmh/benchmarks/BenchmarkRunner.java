@@ -0,0 +1,33 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark in this package with the GC profiler, so each result also reports its
+ * allocation rate (gc.alloc.rate.norm is bytes per operation). Results are written as JSON to the
+ * file given as the first argument (default jmh-result.json) so runs can be compared against a
+ * saved baseline. An optional second argument restricts the run to benchmarks matching that regex.
+ * <p>
+ * The benchmarks live in their own source root, <code>jmh</code>, so the dilemmas build without JMH. They must
+ * be compiled with jmh-generator-annprocess as an annotation processor: it generates the benchmark stubs and
+ * the list the runner reads, and without them the runner finds no benchmarks.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String resultFile = args.length > 0 ? args[0] : "jmh-result.json";
+		String include = args.length > 1 ? args[1] : BenchmarkRunner.class.getPackage().getName() + ".*";
+
+		new Runner(new OptionsBuilder()
+				.include(include)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(resultFile)
+				.build()).run();
+	}
+
+}
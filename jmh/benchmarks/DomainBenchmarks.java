@@ -0,0 +1,42 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import burlap.oomdp.core.Domain;
+import burningroom.BurningRoom;
+import cakedeath.CakeDeath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Domain construction, including reachable state enumeration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class DomainBenchmarks {
+
+	protected final BurningRoom burningRoom = new BurningRoom();
+	protected final CakeDeath cakeDeath = new CakeDeath();
+
+	@Benchmark
+	public Domain burningRoomGenerateDomain() {
+		return burningRoom.generateDomain();
+	}
+
+	@Benchmark
+	public Domain cakeDeathGenerateDomain() {
+		return cakeDeath.generateDomain();
+	}
+
+}
@@ -0,0 +1,108 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.core.TransitionProbability;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.pomdp.ObservationFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burningroom.BurningRoom;
+import burningroom.PackedBurningRoom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BurningRoom transition, observation and state id queries, on the OO-MDP model (with and without a
+ * transition cache or perfect hashing) and on the packed model, with the room on fire and not on fire.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmarks {
+
+	@Param({"true", "false"})
+	public boolean onFire;
+
+	protected PODomain domain;
+	protected burlap.oomdp.core.states.State state;
+	protected GroundedAction shortGrab;
+	protected GroundedAction cachedShortGrab;
+	protected GroundedAction ask;
+	protected ObservationFunction of;
+	protected StateEnumerator perfectEnumerator;
+
+	protected int packedState;
+	protected final int[] successors = new int[PackedBurningRoom.MAXSUCCESSORS];
+	protected final double[] probs = new double[PackedBurningRoom.MAXSUCCESSORS];
+
+	@Setup
+	public void setup() {
+		domain = (PODomain)new BurningRoom().generateDomain();
+		state = BurningRoom.getMDPState(domain, true, onFire);
+		shortGrab = domain.getAction(BurningRoom.ACTIONSHORTGRAB).getAssociatedGroundedAction();
+		ask = domain.getAction(BurningRoom.ACTIONASK).getAssociatedGroundedAction();
+		of = domain.getObservationFunction();
+		packedState = PackedBurningRoom.pack(state);
+
+		BurningRoom cached = new BurningRoom();
+		cached.setTransitionCacheSize(64);
+		cachedShortGrab = cached.generateDomain().getAction(BurningRoom.ACTIONSHORTGRAB).getAssociatedGroundedAction();
+
+		BurningRoom perfect = new BurningRoom();
+		perfect.setPerfectHashing(true);
+		perfectEnumerator = ((PODomain)perfect.generateDomain()).getStateEnumerator();
+	}
+
+	@Benchmark
+	public List<TransitionProbability> shortGrabTransitions() {
+		return shortGrab.getTransitions(state);
+	}
+
+	@Benchmark
+	public List<TransitionProbability> cachedShortGrabTransitions() {
+		return cachedShortGrab.getTransitions(state);
+	}
+
+	@Benchmark
+	public int packedShortGrabTransitions() {
+		return PackedBurningRoom.getTransitions(packedState, PackedBurningRoom.SHORTGRAB, successors, probs);
+	}
+
+	@Benchmark
+	public int stateId() {
+		return domain.getStateEnumerator().getEnumeratedID(state);
+	}
+
+	@Benchmark
+	public int perfectHashStateId() {
+		return perfectEnumerator.getEnumeratedID(state);
+	}
+
+	@Benchmark
+	public List<ObservationFunction.ObservationProbability> askObservationProbabilities() {
+		return of.getObservationProbabilities(state, ask);
+	}
+
+	@Benchmark
+	public void packedAskObservationProbabilities(Blackhole bh) {
+		for(int o = 0; o < PackedBurningRoom.NUMOBSERVATIONS; o++) {
+			bh.consume(PackedBurningRoom.getObservationProbability(o, packedState, PackedBurningRoom.ASK));
+		}
+	}
+
+}
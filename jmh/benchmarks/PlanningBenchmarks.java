@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.HashableTabularBeliefStateFactory;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import burningroom.BurningRoom;
+import cakedeath.CakeDeath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A cold {@link BeliefSparseSampling} decision from the initial 0.5/0.5 belief of each dilemma, at horizons 1-4.
+ * The solver is reset before every query so each measurement plans from scratch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class PlanningBenchmarks {
+
+	@Param({"burningroom", "cakedeath"})
+	public String dilemma;
+
+	@Param({"1", "2", "3", "4"})
+	public int horizon;
+
+	protected BeliefSparseSampling bss;
+	protected TabularBeliefState belief;
+
+	@Setup
+	public void setup() {
+		PODomain domain;
+		if(dilemma.equals("burningroom")) {
+			domain = (PODomain)new BurningRoom().generateDomain();
+			belief = new TabularBeliefState(domain);
+			belief.setBelief(BurningRoom.getMDPState(domain, true, true), 0.5);
+			belief.setBelief(BurningRoom.getMDPState(domain, false, true), 0.5);
+			bss = new BeliefSparseSampling(domain, new BurningRoom.BurningRoomRF(), 1., new HashableTabularBeliefStateFactory(), horizon, -1);
+		}
+		else {
+			domain = (PODomain)new CakeDeath().generateDomain();
+			belief = new TabularBeliefState(domain);
+			belief.setBelief(CakeDeath.getMDPState(domain, "cake", false), 0.5);
+			belief.setBelief(CakeDeath.getMDPState(domain, "death", false), 0.5);
+			bss = new BeliefSparseSampling(domain, new CakeDeath.CakeDeathRF(), 1., new HashableTabularBeliefStateFactory(), horizon, -1);
+		}
+		bss.toggleDebugPrinting(false);
+		bss.getSparseSamplingPlanner().toggleDebugPrinting(false);
+	}
+
+	@Benchmark
+	public List<QValue> getQs() {
+		bss.resetSolver();
+		return bss.getQs(belief);
+	}
+
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.environment.EnvironmentOutcome;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
+import burningroom.BurningRoom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One simulated BurningRoom step through a {@link SimulatedPOEnvironment}, with copied and with pooled states.
+ * Run with the GC profiler to compare the bytes allocated per step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class RolloutBenchmarks {
+
+	@Param({"false", "true"})
+	public boolean pooled;
+
+	protected SimulatedPOEnvironment env;
+	protected burlap.oomdp.core.states.State initialState;
+	protected GroundedAction ask;
+
+	@Setup
+	public void setup() {
+		BurningRoom br = new BurningRoom();
+		br.setPooledStates(pooled);
+		PODomain domain = (PODomain)br.generateDomain();
+		RewardFunction rf = new BurningRoom.BurningRoomRF();
+		TerminalFunction tf = new BurningRoom.BurningRoomTF();
+		initialState = BurningRoom.getMDPState(domain, true, true);
+		env = new SimulatedPOEnvironment(domain, rf, tf, initialState);
+
+		// Asking rarely ends the episode, so almost every step is a full transition.
+		List<GroundedAction> actions = Action.getAllApplicableGroundedActionsFromActionList(domain.getActions(), initialState);
+		for(GroundedAction ga : actions) {
+			if(ga.actionName().equals(BurningRoom.ACTIONASK)) {
+				ask = ga;
+			}
+		}
+	}
+
+	@Benchmark
+	public EnvironmentOutcome askStep() {
+		if(env.isInTerminalState()) {
+			env.resetEnvironment();
+		}
+		return env.executeAction(ask);
+	}
+
+}
@@ -0,0 +1,106 @@
+package analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cartesian grid over named real-valued parameters. Points are numbered in row-major order with
+ * the last axis varying fastest, so consecutive points along the last axis form a line whose
+ * neighbours differ in one parameter only.
+ */
+public class ParameterGrid {
+
+	protected final List<String> names = new ArrayList<String>();
+	protected final List<double[]> values = new ArrayList<double[]>();
+
+	public ParameterGrid addAxis(String name, double... axisValues) {
+		if(axisValues.length == 0) {
+			throw new IllegalArgumentException("Axis " + name + " has no values.");
+		}
+		names.add(name);
+		values.add(axisValues.clone());
+		return this;
+	}
+
+	/**
+	 * Adds an axis of count evenly spaced values from first to last inclusive.
+	 */
+	public ParameterGrid addAxis(String name, double first, double last, int count) {
+		if(count < 1) {
+			throw new IllegalArgumentException("Axis " + name + " needs at least one value.");
+		}
+		double[] axisValues = new double[count];
+		for(int i = 0; i < count; i++) {
+			axisValues[i] = count == 1 ? first : first + (last - first) * i / (count - 1);
+		}
+		return addAxis(name, axisValues);
+	}
+
+	/**
+	 * Parses an axis of the form <code>name=first:last:count</code> or <code>name=v1,v2,...</code>.
+	 */
+	public ParameterGrid addAxis(String spec) {
+		int eq = spec.indexOf('=');
+		if(eq < 1) {
+			throw new IllegalArgumentException("Expected name=first:last:count or name=v1,v2,... but got " + spec);
+		}
+		String name = spec.substring(0, eq);
+		String rest = spec.substring(eq + 1);
+		if(rest.contains(":")) {
+			String[] parts = rest.split(":");
+			if(parts.length != 3) {
+				throw new IllegalArgumentException("Expected name=first:last:count but got " + spec);
+			}
+			return addAxis(name, Double.parseDouble(parts[0]), Double.parseDouble(parts[1]), Integer.parseInt(parts[2]));
+		}
+		String[] parts = rest.split(",");
+		double[] axisValues = new double[parts.length];
+		for(int i = 0; i < parts.length; i++) {
+			axisValues[i] = Double.parseDouble(parts[i]);
+		}
+		return addAxis(name, axisValues);
+	}
+
+	public int numAxes() {
+		return names.size();
+	}
+
+	public String getName(int axis) {
+		return names.get(axis);
+	}
+
+	public double[] getValues(int axis) {
+		return values.get(axis);
+	}
+
+	public long size() {
+		long size = 1;
+		for(double[] axisValues : values) {
+			size *= axisValues.length;
+		}
+		return size;
+	}
+
+	/**
+	 * Number of points on each line along the last axis.
+	 */
+	public int lineLength() {
+		return values.isEmpty() ? 1 : values.get(values.size() - 1).length;
+	}
+
+	public long numLines() {
+		return size() / lineLength();
+	}
+
+	/**
+	 * Writes the parameter values of the point with the given index into out, in axis order.
+	 */
+	public void point(long index, double[] out) {
+		for(int axis = values.size() - 1; axis >= 0; axis--) {
+			double[] axisValues = values.get(axis);
+			out[axis] = axisValues[(int)(index % axisValues.length)];
+			index /= axisValues.length;
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+package analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import policy.PolicyCompiler;
+import policy.ThresholdPolicy;
+import solvers.AlphaVectorQFunction;
+import solvers.PointBasedValueIteration;
+import tabular.TabularPOMDP;
+
+/**
+ * Maps where asking is worth it in a two-hypothesis dilemma, over a {@link ParameterGrid} of risk parameters
+ * and the belief line between states s0 and s1, into a {@link ValueOfInformationMap}.
+ * <p>
+ * Each grid point is solved once with {@link PointBasedValueIteration} from belief points spread along the
+ * line, optionally warm-started from the previous point of its line as in {@link ParameterSweep}. The alpha vectors then
+ * give every belief's Q-values as dot products, so the fine belief grid costs no planner calls, and the ask
+ * intervals come from the exact line crossings of {@link PolicyCompiler#compileThresholds(AlphaVectorQFunction, int, int)}.
+ * Lines of the grid along its last axis are solved in parallel.
+ */
+public class ValueOfInformationAnalysis {
+
+	protected final ParameterGrid grid;
+	protected final ParameterSweep.ModelFactory factory;
+	protected final int s0;
+	protected final int s1;
+	protected final String[] askActionNames;
+	protected final double gamma;
+	protected final int horizon;
+
+	protected int beliefResolution = 101;
+	protected int beliefPoints = 11;
+	protected int expansionDepth = 10;
+	protected double maxDelta = 1e-9;
+	protected boolean warmStart = false;
+
+	/**
+	 * @param askActionNames the actions whose value of information is mapped; every other action counts as acting.
+	 * @param horizon the PBVI horizon; solves stop earlier once converged.
+	 */
+	public ValueOfInformationAnalysis(ParameterGrid grid, ParameterSweep.ModelFactory factory, int s0, int s1,
+									  String[] askActionNames, double gamma, int horizon) {
+		this.grid = grid;
+		this.factory = factory;
+		this.s0 = s0;
+		this.s1 = s1;
+		this.askActionNames = askActionNames.clone();
+		this.gamma = gamma;
+		this.horizon = horizon;
+	}
+
+	/**
+	 * Number of evenly spaced beliefs, including both ends, the value of information is tabulated at.
+	 */
+	public void setBeliefResolution(int beliefResolution) {
+		if(beliefResolution < 2) {
+			throw new IllegalArgumentException("Belief resolution must be at least 2.");
+		}
+		this.beliefResolution = beliefResolution;
+	}
+
+	/**
+	 * Number of beliefs along the line the solver's belief points are expanded from.
+	 */
+	public void setBeliefPoints(int beliefPoints) {
+		if(beliefPoints < 2) {
+			throw new IllegalArgumentException("At least 2 belief points are needed.");
+		}
+		this.beliefPoints = beliefPoints;
+	}
+
+	/**
+	 * Starts each point of a line from the previous point's value vectors; off by default for the reasons given
+	 * at {@link ParameterSweep#setWarmStart(boolean)}.
+	 */
+	public void setWarmStart(boolean warmStart) {
+		this.warmStart = warmStart;
+	}
+
+	public void setExpansionDepth(int expansionDepth) {
+		this.expansionDepth = expansionDepth;
+	}
+
+	public void setMaxDelta(double maxDelta) {
+		this.maxDelta = maxDelta;
+	}
+
+	/**
+	 * Runs the analysis on a fork-join pool with one worker per available processor.
+	 */
+	public ValueOfInformationMap run() {
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			return run(pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs the analysis on the given executor, which is not shut down.
+	 */
+	public ValueOfInformationMap run(ExecutorService executor) {
+		if(grid.size() * beliefResolution > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The grid and belief resolution are too large for one map.");
+		}
+		final int numPoints = (int)grid.size();
+		final int lineLength = grid.lineLength();
+		final float[][] values = new float[askActionNames.length][numPoints * beliefResolution];
+		final ThresholdPolicy[] boundaries = new ThresholdPolicy[numPoints];
+		final int[][] askIds = new int[numPoints][];
+
+		List<Future<?>> lines = new ArrayList<Future<?>>();
+		for(int line = 0; line < numPoints / lineLength; line++) {
+			final int start = line * lineLength;
+			lines.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					solveLine(start, lineLength, values, boundaries, askIds);
+					return null;
+				}
+			}));
+		}
+
+		try {
+			for(Future<?> line : lines) {
+				line.get();
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for the analysis.", e);
+		}
+		catch(ExecutionException e) {
+			throw new RuntimeException("A grid point failed to solve.", e.getCause());
+		}
+
+		return buildMap(values, boundaries, askIds);
+	}
+
+	protected void solveLine(int start, int length, float[][] values, ThresholdPolicy[] boundaries, int[][] askIds) {
+		double[] point = new double[grid.numAxes()];
+		double[][] previous = null;
+		for(int i = start; i < start + length; i++) {
+			grid.point(i, point);
+			TabularPOMDP model = factory.generateModel(point);
+			askIds[i] = askActions(model);
+
+			PointBasedValueIteration pbvi = new PointBasedValueIteration(model, gamma, horizon);
+			pbvi.setMaxDelta(maxDelta);
+			double[] b = new double[model.numStates()];
+			for(int k = 0; k < beliefPoints; k++) {
+				double p = (double)k / (beliefPoints - 1);
+				b[s0] = 1. - p;
+				b[s1] = p;
+				pbvi.addInitialBelief(b, expansionDepth);
+			}
+			AlphaVectorQFunction qf = warmStart && previous != null ? pbvi.solve(previous) : pbvi.solve();
+			previous = qf.getValueVectors();
+
+			tabulate(model, qf, askIds[i], i, values);
+			boundaries[i] = PolicyCompiler.compileThresholds(qf, s0, s1);
+		}
+	}
+
+	protected int[] askActions(TabularPOMDP model) {
+		int[] ids = new int[askActionNames.length];
+		for(int k = 0; k < ids.length; k++) {
+			ids[k] = model.actionIndex(askActionNames[k]);
+			if(ids[k] == -1) {
+				throw new IllegalArgumentException("The model has no action " + askActionNames[k] + ".");
+			}
+		}
+		return ids;
+	}
+
+	protected void tabulate(TabularPOMDP model, AlphaVectorQFunction qf, int[] askIds, int point, float[][] values) {
+		int nA = model.numActions();
+		boolean[] isAsk = new boolean[nA];
+		for(int id : askIds) {
+			isAsk[id] = true;
+		}
+
+		double[] b = new double[model.numStates()];
+		double[] qs = new double[nA];
+		for(int j = 0; j < beliefResolution; j++) {
+			double p = (double)j / (beliefResolution - 1);
+			b[s0] = 1. - p;
+			b[s1] = p;
+			qf.qs(b, qs);
+
+			double bestAct = Double.NEGATIVE_INFINITY;
+			for(int a = 0; a < nA; a++) {
+				if(!isAsk[a]) {
+					bestAct = Math.max(bestAct, qs[a]);
+				}
+			}
+			for(int k = 0; k < askIds.length; k++) {
+				values[k][point * beliefResolution + j] = (float)(qs[askIds[k]] - bestAct);
+			}
+		}
+	}
+
+	protected ValueOfInformationMap buildMap(float[][] values, ThresholdPolicy[] boundaries, int[][] askIds) {
+		int numPoints = boundaries.length;
+		int[] offsets = new int[numPoints + 1];
+		List<Double> lows = new ArrayList<Double>();
+		List<Double> highs = new ArrayList<Double>();
+		List<Integer> asks = new ArrayList<Integer>();
+
+		for(int i = 0; i < numPoints; i++) {
+			ThresholdPolicy boundary = boundaries[i];
+			double[] thresholds = boundary.getThresholds();
+			for(int interval = 0; interval <= thresholds.length; interval++) {
+				int ask = indexOf(askIds[i], boundary.getIntervalAction(interval));
+				if(ask != -1) {
+					lows.add(interval == 0 ? 0. : thresholds[interval - 1]);
+					// The last interval ends at, and includes, p = 1.
+					highs.add(interval == thresholds.length ? 1. : thresholds[interval]);
+					asks.add(ask);
+				}
+			}
+			offsets[i + 1] = asks.size();
+		}
+
+		double[] lowArray = new double[lows.size()];
+		double[] highArray = new double[highs.size()];
+		int[] askArray = new int[asks.size()];
+		for(int k = 0; k < askArray.length; k++) {
+			lowArray[k] = lows.get(k);
+			highArray[k] = highs.get(k);
+			askArray[k] = asks.get(k);
+		}
+		return new ValueOfInformationMap(grid, askActionNames, beliefResolution, values, offsets, lowArray, highArray, askArray);
+	}
+
+	protected static int indexOf(int[] ids, int id) {
+		for(int k = 0; k < ids.length; k++) {
+			if(ids[k] == id) {
+				return k;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,190 @@
+package analysis;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Result of a {@link ValueOfInformationAnalysis}: for every point of a {@link ParameterGrid}, the value of
+ * information of each ask action on an evenly spaced grid over p = b(s1) / (b(s0) + b(s1)), and the exact
+ * intervals of p in which an ask action is the optimal one.
+ * <p>
+ * The value of information of an ask action at a belief is its Q-value minus the best Q-value of the actions
+ * that are not ask actions, so asking is worth its cost wherever it is positive. The values are kept as floats
+ * in one flat array per ask action and the intervals as flat offset-indexed arrays, so a map over a fine grid
+ * stays compact and every query is an index computation, an interpolation or a binary search.
+ */
+public class ValueOfInformationMap {
+
+	protected final ParameterGrid grid;
+	protected final String[] askActionNames;
+	protected final int beliefResolution;
+
+	// [ask action][point * beliefResolution + j], j indexing p = j / (beliefResolution - 1).
+	protected final float[][] values;
+
+	// Ask intervals of point i are [lows[k], highs[k]) for k in [intervalOffsets[i], intervalOffsets[i + 1]),
+	// except that an interval with highs[k] = 1 also includes p = 1.
+	protected final int[] intervalOffsets;
+	protected final double[] lows;
+	protected final double[] highs;
+	protected final int[] intervalAskActions;
+
+	public ValueOfInformationMap(ParameterGrid grid, String[] askActionNames, int beliefResolution, float[][] values,
+								 int[] intervalOffsets, double[] lows, double[] highs, int[] intervalAskActions) {
+		this.grid = grid;
+		this.askActionNames = askActionNames.clone();
+		this.beliefResolution = beliefResolution;
+		this.values = values;
+		this.intervalOffsets = intervalOffsets;
+		this.lows = lows;
+		this.highs = highs;
+		this.intervalAskActions = intervalAskActions;
+	}
+
+	public ParameterGrid getGrid() {
+		return grid;
+	}
+
+	public int numPoints() {
+		return intervalOffsets.length - 1;
+	}
+
+	public int numAskActions() {
+		return askActionNames.length;
+	}
+
+	public String getAskActionName(int ask) {
+		return askActionNames[ask];
+	}
+
+	public int getBeliefResolution() {
+		return beliefResolution;
+	}
+
+	/**
+	 * Index of the grid point nearest to the given parameter values, axis by axis.
+	 */
+	public int pointIndex(double[] parameters) {
+		long index = 0;
+		for(int axis = 0; axis < grid.numAxes(); axis++) {
+			double[] axisValues = grid.getValues(axis);
+			int nearest = 0;
+			for(int i = 1; i < axisValues.length; i++) {
+				if(Math.abs(axisValues[i] - parameters[axis]) < Math.abs(axisValues[nearest] - parameters[axis])) {
+					nearest = i;
+				}
+			}
+			index = index * axisValues.length + nearest;
+		}
+		return (int)index;
+	}
+
+	/**
+	 * Value of information of the ask action at point with belief p, interpolated linearly between belief grid
+	 * values.
+	 */
+	public double valueOfInformation(int point, int ask, double p) {
+		double x = Math.max(0., Math.min(1., p)) * (beliefResolution - 1);
+		int j = Math.min((int)x, beliefResolution - 2);
+		double t = x - j;
+		float[] v = values[ask];
+		int base = point * beliefResolution;
+		return (1. - t) * v[base + j] + t * v[base + j + 1];
+	}
+
+	/**
+	 * Value of information at the j-th belief grid value, p = j / (beliefResolution - 1).
+	 */
+	public float getValue(int point, int ask, int j) {
+		return values[ask][point * beliefResolution + j];
+	}
+
+	/**
+	 * The ask action that is optimal at point with belief p, or -1 if acting is optimal.
+	 */
+	public int optimalAsk(int point, double p) {
+		int lo = intervalOffsets[point];
+		int hi = intervalOffsets[point + 1];
+		if(p >= 1.) {
+			// Only the last interval can reach p = 1, and it is closed there.
+			return hi > lo && highs[hi - 1] >= 1. ? intervalAskActions[hi - 1] : -1;
+		}
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(highs[mid] <= p) {
+				lo = mid + 1;
+			}
+			else {
+				hi = mid;
+			}
+		}
+		if(lo < intervalOffsets[point + 1] && lows[lo] <= p) {
+			return intervalAskActions[lo];
+		}
+		return -1;
+	}
+
+	public boolean isAskOptimal(int point, double p) {
+		return optimalAsk(point, p) != -1;
+	}
+
+	public int numAskIntervals(int point) {
+		return intervalOffsets[point + 1] - intervalOffsets[point];
+	}
+
+	public double getIntervalLow(int point, int interval) {
+		return lows[intervalOffsets[point] + interval];
+	}
+
+	/**
+	 * Upper end of the interval, exclusive unless it is 1.
+	 */
+	public double getIntervalHigh(int point, int interval) {
+		return highs[intervalOffsets[point] + interval];
+	}
+
+	public int getIntervalAsk(int point, int interval) {
+		return intervalAskActions[intervalOffsets[point] + interval];
+	}
+
+	/**
+	 * Length of the belief interval over which asking is optimal at point.
+	 */
+	public double askWidth(int point) {
+		double width = 0.;
+		for(int k = intervalOffsets[point]; k < intervalOffsets[point + 1]; k++) {
+			width += highs[k] - lows[k];
+		}
+		return width;
+	}
+
+	/**
+	 * Writes one CSV row per ask interval: the parameter values, the ask action and the interval's bounds.
+	 * Points where acting is always optimal get a row with an empty action.
+	 */
+	public void writeBoundaryCSV(Writer out) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for(int axis = 0; axis < grid.numAxes(); axis++) {
+			sb.append(grid.getName(axis)).append(',');
+		}
+		sb.append("askAction,low,high\n");
+		out.write(sb.toString());
+
+		double[] point = new double[grid.numAxes()];
+		for(int i = 0; i < numPoints(); i++) {
+			grid.point(i, point);
+			sb.setLength(0);
+			for(double v : point) {
+				sb.append(v).append(',');
+			}
+			String prefix = sb.toString();
+			if(numAskIntervals(i) == 0) {
+				out.write(prefix + ",,\n");
+			}
+			for(int k = 0; k < numAskIntervals(i); k++) {
+				out.write(prefix + askActionNames[getIntervalAsk(i, k)] + "," + getIntervalLow(i, k) + "," + getIntervalHigh(i, k) + "\n");
+			}
+		}
+	}
+
+}
@@ -1,9 +1,11 @@
 package burningroom;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 
 import burlap.behavior.policy.GreedyQPolicy;
 import burlap.behavior.singleagent.EpisodeAnalysis;
@@ -22,6 +24,7 @@ import burlap.oomdp.core.objects.MutableObjectInstance;
 import burlap.oomdp.core.objects.ObjectInstance;
 import burlap.oomdp.core.states.MutableState;
 import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
 import burlap.oomdp.singleagent.FullActionModel;
 import burlap.oomdp.singleagent.GroundedAction;
 import burlap.oomdp.singleagent.RewardFunction;
@@ -36,6 +39,16 @@ import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
 import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.HashableTabularBeliefStateFactory;
 import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
 import burlap.oomdp.statehashing.SimpleHashableStateFactory;
+import evaluation.OutcomeSketch;
+import metrics.Instrumentation;
+import metrics.InstrumentedObservationFunction;
+import metrics.MetricsRegistry;
+import sampling.CachedTransitionsAction;
+import sampling.PooledAction;
+import sampling.RandomStreams;
+import sampling.StatePool;
+import tabular.EnumerationSnapshot;
+import tabular.PerfectHashableStateFactory;
 
 /**
  * @author David Abel.
@@ -57,17 +70,98 @@ public class BurningRoom implements DomainGenerator {
 	public static final String ACTIONLONGGRAB = "longGrab";
 	public static final String ACTIONSHORTGRAB = "shortGrab";
 
-//	private static double probOfDestroyingObjectAsk = 0.005;
-//	private static double probOfDestroyingObjectShortGrab = .05;
-//	private static double probOfDestroyingObjectLongGrab = .35;
-//	private static double probOfRobotDyingInFire = .5;
-	
-	private static double probOfDestroyingObjectAsk = 0.005;
-	private static double probOfDestroyingObjectShortGrab = .0;
-	private static double probOfDestroyingObjectLongGrab = .05;
-	private static double probOfRobotDyingInFire = .7;
-	
-	private static Random random = new Random();
+	// Risk probabilities and reward weights.
+	protected BurningRoomParameters params;
+
+	// Registry the generated domains report to, or null.
+	protected MetricsRegistry metrics;
+
+	// Enumeration to restore instead of searching for reachable states, or null.
+	protected EnumerationSnapshot snapshot;
+
+	// Whether generated domains step between pooled, shared states.
+	protected boolean pooledStates;
+
+	// Most transition distributions each action of generated domains caches, or 0 for no cache.
+	protected int transitionCacheSize;
+
+	// Whether generated domains hash their enumerated states by id.
+	protected boolean perfectHashing;
+
+	public BurningRoom() {
+		this(BurningRoomParameters.DEFAULT);
+	}
+
+	public BurningRoom(BurningRoomParameters params) {
+		this.params = params;
+	}
+
+	public BurningRoomParameters getParameters() {
+		return params;
+	}
+
+	/**
+	 * Domains generated after this call time their actions and observation function in the given registry;
+	 * null turns instrumentation off again.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Domains generated after this call take their state enumeration from the snapshot, which must have been
+	 * written by {@link #writeEnumerationSnapshot} with the same parameters; null enumerates states again.
+	 */
+	public void setEnumerationSnapshot(EnumerationSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * With pooledStates, domains generated after this call have {@link PooledAction}s that step between the shared
+	 * states of a {@link StatePool} instead of copying and modifying states, so sampled steps, e.g. the rollouts
+	 * of a {@link SimulatedPOEnvironment}, allocate no states. Transition enumeration and seeded trajectories
+	 * are the same in both modes; states the domain returns must then not be modified.
+	 */
+	public void setPooledStates(boolean pooledStates) {
+		this.pooledStates = pooledStates;
+	}
+
+	/**
+	 * With a positive size, domains generated after this call wrap each action in a {@link CachedTransitionsAction}
+	 * that keeps up to that many transition distributions, so planners that enumerate the same transitions
+	 * repeatedly reuse the successor states of each distribution instead of rebuilding them; 0 turns the cache
+	 * off again.
+	 */
+	public void setTransitionCacheSize(int transitionCacheSize) {
+		this.transitionCacheSize = transitionCacheSize;
+	}
+
+	/**
+	 * With perfectHashing, the state enumerators of domains generated after this call hash states with a
+	 * {@link PerfectHashableStateFactory}, which looks enumerated states up by id instead of comparing their
+	 * objects and attributes. Ids are the same in both modes.
+	 */
+	public void setPerfectHashing(boolean perfectHashing) {
+		this.perfectHashing = perfectHashing;
+	}
+
+	/**
+	 * Identifies the domain definition in enumeration snapshots. Reachability depends on the risk
+	 * probabilities, so the parameters are part of it.
+	 */
+	public String getDefinition() {
+		return "BurningRoom(" + params + ")";
+	}
+
+	/**
+	 * Writes the enumerated states of a freshly generated domain, and with includeModel its compiled tables,
+	 * to a snapshot file that {@link EnumerationSnapshot#load(File)} can map back in.
+	 */
+	public void writeEnumerationSnapshot(File file, boolean includeModel) throws IOException {
+		PODomain domain = (PODomain)generateDomain();
+		EnumerationSnapshot.write(file, domain, PackedBurningRoom.CODEC, getDefinition(),
+				includeModel ? PackedBurningRoom.compile(params, domain) : null);
+	}
 
 	@Override
 	public Domain generateDomain() {
@@ -95,12 +189,36 @@ public class BurningRoom implements DomainGenerator {
 		classObAnser.addAttribute(attIsRobotValuableAnswer);
 
 		// Actions.
-		new LongGrab(ACTIONLONGGRAB, domain);
-		new ShortGrab(ACTIONSHORTGRAB, domain);
-		new AskAction(ACTIONASK, domain);
+		Domain instrumentedDomain = Instrumentation.actionDomain(domain, metrics);
+		Domain actionDomain = transitionCacheSize > 0 ? new PODomain() : instrumentedDomain;
+		if(pooledStates) {
+			StatePool pool = new StatePool(domain, PackedBurningRoom.CODEC, PackedBurningRoom.NUMSTATES);
+			new PooledAction(ACTIONLONGGRAB, actionDomain, pool, PackedBurningRoom.actionModel(params, PackedBurningRoom.LONGGRAB));
+			new PooledAction(ACTIONSHORTGRAB, actionDomain, pool, PackedBurningRoom.actionModel(params, PackedBurningRoom.SHORTGRAB));
+			new PooledAction(ACTIONASK, actionDomain, pool, PackedBurningRoom.actionModel(params, PackedBurningRoom.ASK));
+		}
+		else {
+			new LongGrab(ACTIONLONGGRAB, actionDomain, params);
+			new ShortGrab(ACTIONSHORTGRAB, actionDomain, params);
+			new AskAction(ACTIONASK, actionDomain, params);
+		}
+		if(transitionCacheSize > 0) {
+			CachedTransitionsAction.cacheActions(actionDomain, instrumentedDomain, new SimpleHashableStateFactory(), transitionCacheSize);
+		}
+		Instrumentation.instrumentActions(instrumentedDomain, domain, metrics);
 
 		// Observation Function.
 		new BurningRoomOF(domain);
+		if(metrics != null) {
+			new InstrumentedObservationFunction(domain, metrics);
+		}
+
+		// Restore the enumerator from a snapshot instead of searching for reachable states.
+		if(snapshot != null) {
+			snapshot.validate(domain, PackedBurningRoom.CODEC, getDefinition());
+			domain.setStateEnumerator(rehash(domain, snapshot.getStateEnumerator(domain, PackedBurningRoom.CODEC, new SimpleHashableStateFactory())));
+			return domain;
+		}
 
 		// Set the enumerator (used by planners).
 		StateEnumerator senum = new StateEnumerator(domain, new SimpleHashableStateFactory());
@@ -114,11 +232,33 @@ public class BurningRoom implements DomainGenerator {
 		// Enumerate room on fire cases (second boolean).
 		senum.findReachableStatesAndEnumerate(this.getMDPState(domain, true, true));
 		senum.findReachableStatesAndEnumerate(this.getMDPState(domain, false, true));
-		domain.setStateEnumerator(senum);
+		domain.setStateEnumerator(rehash(domain, senum));
 
 		return domain;
 	}
 
+	/**
+	 * senum itself, or with perfect hashing an enumerator of the same states under the same ids that hashes them
+	 * by id.
+	 */
+	protected StateEnumerator rehash(PODomain domain, StateEnumerator senum) {
+		if(!perfectHashing) {
+			return senum;
+		}
+		return PerfectHashableStateFactory.fromEnumerator(domain, senum, PackedBurningRoom.CODEC, new SimpleHashableStateFactory()).newStateEnumerator(domain);
+	}
+
+	/**
+	 * Outcome events for risk reports: the robot destroyed, the object destroyed, and the robot destroyed while
+	 * valuable, which is what earns {@link BurningRoomRF} its extra penalty.
+	 */
+	public static List<OutcomeSketch.Event> outcomeEvents() {
+		return Arrays.asList(
+				OutcomeSketch.flags("robotDestroyed", CLASSSTATE, ATTROBOTDESTROYED),
+				OutcomeSketch.flags("objectDestroyed", CLASSSTATE, ATTOBJECTDESTROYED),
+				OutcomeSketch.flags("valuableRobotDestroyed", CLASSSTATE, ATTROBOTDESTROYED, ATTISROBOTVALUABLE));
+	}
+
 	public static State getMDPState(Domain domain, boolean isRoboValuable, boolean isOnFire){
 		State s = new MutableState();
 		ObjectInstance o = new MutableObjectInstance(domain.getObjectClass(CLASSSTATE), "state");
@@ -131,8 +271,6 @@ public class BurningRoom implements DomainGenerator {
 		
 		s.addObject(o);
 		
-		System.out.println("unset: " + s.getCompleteStateDescriptionWithUnsetAttributesAsNull());
-		
 		return s;
 	}
 
@@ -148,8 +286,15 @@ public class BurningRoom implements DomainGenerator {
 	// --- ACTIONS ---
 	public static class ShortGrab extends SimpleAction implements FullActionModel {
 
+		protected BurningRoomParameters params;
+
 		public ShortGrab(String name, Domain domain) {
+			this(name, domain, BurningRoomParameters.DEFAULT);
+		}
+
+		public ShortGrab(String name, Domain domain, BurningRoomParameters params) {
 			super(name, domain);
+			this.params = params;
 		}
 
 		@Override
@@ -160,7 +305,7 @@ public class BurningRoom implements DomainGenerator {
 			
 			if(isRoomOnFire) {
 				// Some chance of robot dying.
-				if(random.nextDouble() < probOfRobotDyingInFire) {
+				if(RandomStreams.nextDouble() < params.probOfRobotDyingInFire) {
 					o.setValue(ATTROBOTDESTROYED, true);
 				}
 				else {
@@ -169,7 +314,7 @@ public class BurningRoom implements DomainGenerator {
 			}
 			
 			// Destroy the object with some low probability.
-			if(random.nextDouble() < probOfDestroyingObjectShortGrab) {
+			if(RandomStreams.nextDouble() < params.probOfDestroyingObjectShortGrab) {
 				o.setValue(ATTOBJECTDESTROYED, true);
 			}
 			else {
@@ -203,8 +348,8 @@ public class BurningRoom implements DomainGenerator {
 			// List of transition probabilities to return.
 			List<TransitionProbability> ltp = new ArrayList<TransitionProbability>();
 			
-			double probOfRoboSafeObjDest = probOfDestroyingObjectShortGrab;
-			double probOfRobotSafeObjSafe = (1 - probOfDestroyingObjectShortGrab);
+			double probOfRoboSafeObjDest = params.probOfDestroyingObjectShortGrab;
+			double probOfRobotSafeObjSafe = (1 - params.probOfDestroyingObjectShortGrab);
 			
 			// If the room is on fire, need to consider probability that the robot dies.
 			if(isRoomOnFire) {
@@ -222,15 +367,15 @@ public class BurningRoom implements DomainGenerator {
 				roboDestObjSafe.setValue(ATTOBJECTDESTROYED, false);
 				roboDestObjSafe.setValue(ATTOBJECTRETRIEVED, true);
 
-				TransitionProbability roboDestObjDestTP = new TransitionProbability(roboDestObjDestState, probOfDestroyingObjectShortGrab*probOfRobotDyingInFire);
-				TransitionProbability roboDestObjSafeTP = new TransitionProbability(roboDestObjSafeState, (1 - probOfDestroyingObjectShortGrab)*probOfRobotDyingInFire);
+				TransitionProbability roboDestObjDestTP = new TransitionProbability(roboDestObjDestState, params.probOfDestroyingObjectShortGrab*params.probOfRobotDyingInFire);
+				TransitionProbability roboDestObjSafeTP = new TransitionProbability(roboDestObjSafeState, (1 - params.probOfDestroyingObjectShortGrab)*params.probOfRobotDyingInFire);
 				
 				ltp.add(roboDestObjDestTP);
 				ltp.add(roboDestObjSafeTP);
 				
 				// Adjust probabilities of transitioning to robot Safe if the room is on fire.
-				probOfRoboSafeObjDest = probOfDestroyingObjectShortGrab*(1 - probOfRobotDyingInFire);
-				probOfRobotSafeObjSafe = (1 - probOfDestroyingObjectShortGrab)*(1 - probOfRobotDyingInFire);
+				probOfRoboSafeObjDest = params.probOfDestroyingObjectShortGrab*(1 - params.probOfRobotDyingInFire);
+				probOfRobotSafeObjSafe = (1 - params.probOfDestroyingObjectShortGrab)*(1 - params.probOfRobotDyingInFire);
 			}
 			
 			// Create TPs and add to list.
@@ -246,8 +391,15 @@ public class BurningRoom implements DomainGenerator {
 
 	public static class AskAction extends SimpleAction implements FullActionModel {
 	
+		protected BurningRoomParameters params;
+
 		public AskAction(String name, Domain domain) {
+			this(name, domain, BurningRoomParameters.DEFAULT);
+		}
+
+		public AskAction(String name, Domain domain, BurningRoomParameters params) {
 			super(name, domain);
+			this.params = params;
 		}
 
 		@Override
@@ -258,8 +410,8 @@ public class BurningRoom implements DomainGenerator {
 			o.setValue(ATTOBJECTDESTROYED, true);
 			
 			List<TransitionProbability> ltp = new ArrayList<TransitionProbability>();
-			TransitionProbability safeTP = new TransitionProbability(s, 1-probOfDestroyingObjectAsk);
-			TransitionProbability destTP = new TransitionProbability(destState, probOfDestroyingObjectAsk);
+			TransitionProbability safeTP = new TransitionProbability(s, 1-params.probOfDestroyingObjectAsk);
+			TransitionProbability destTP = new TransitionProbability(destState, params.probOfDestroyingObjectAsk);
 			
 			ltp.add(safeTP);
 			ltp.add(destTP);
@@ -274,7 +426,7 @@ public class BurningRoom implements DomainGenerator {
 			ObjectInstance o = s.getFirstObjectOfClass(CLASSSTATE);
 			
 			// Destroy the object with some low probability.
-			if(random.nextDouble() < probOfDestroyingObjectAsk) {
+			if(RandomStreams.nextDouble() < params.probOfDestroyingObjectAsk) {
 				o.setValue(ATTOBJECTDESTROYED, true);
 			}
 			
@@ -285,8 +437,15 @@ public class BurningRoom implements DomainGenerator {
 	
 	public static class LongGrab extends SimpleAction implements FullActionModel {
 
+		protected BurningRoomParameters params;
+
 		public LongGrab(String name, Domain domain) {
+			this(name, domain, BurningRoomParameters.DEFAULT);
+		}
+
+		public LongGrab(String name, Domain domain, BurningRoomParameters params) {
 			super(name, domain);
+			this.params = params;
 		}
 
 		@Override
@@ -295,7 +454,7 @@ public class BurningRoom implements DomainGenerator {
 			ObjectInstance o = s.getFirstObjectOfClass(CLASSSTATE);
 			
 			// Destroy the object with some high probability.
-			if(random.nextDouble() < probOfDestroyingObjectLongGrab) {
+			if(RandomStreams.nextDouble() < params.probOfDestroyingObjectLongGrab) {
 				o.setValue(ATTOBJECTDESTROYED, true);
 			}
 			else {
@@ -313,14 +472,14 @@ public class BurningRoom implements DomainGenerator {
 			ObjectInstance destroy = destroyState.getFirstObjectOfClass(CLASSSTATE);
 			destroy.setValue(ATTOBJECTDESTROYED, true);
 			destroy.setValue(ATTOBJECTRETRIEVED, false);
-			TransitionProbability destroyTP = new TransitionProbability(destroyState, probOfDestroyingObjectLongGrab);
+			TransitionProbability destroyTP = new TransitionProbability(destroyState, params.probOfDestroyingObjectLongGrab);
 			
 			// Make safe state.
 			State safeState = s.copy();
 			ObjectInstance safe = safeState.getFirstObjectOfClass(CLASSSTATE);
 			safe.setValue(ATTOBJECTDESTROYED, false);
 			safe.setValue(ATTOBJECTRETRIEVED, true);
-			TransitionProbability safeTP = new TransitionProbability(safeState, 1 - probOfDestroyingObjectLongGrab);
+			TransitionProbability safeTP = new TransitionProbability(safeState, 1 - params.probOfDestroyingObjectLongGrab);
 			
 			// Create TPs and add to list.
 			List<TransitionProbability> ltp = new ArrayList<TransitionProbability>();
@@ -334,8 +493,71 @@ public class BurningRoom implements DomainGenerator {
 	// --- OBSERVATION FUNCTION ---
 	public static class BurningRoomOF extends ObservationFunction{
 
+		// Interned observations, indexed by PackedBurningRoom observation id. They are shared, so must not be modified.
+		protected final State[] observations;
+		protected final List<State> allObservations;
+		protected final List<List<ObservationProbability>> certainObservations;
+
+		// Domain actions, indexed by PackedBurningRoom action id.
+		protected final Action[] actions;
+
 		public BurningRoomOF(PODomain domain) {
 			super(domain);
+
+			this.observations = new State[PackedBurningRoom.NUMOBSERVATIONS];
+			this.observations[PackedBurningRoom.OBSNULL] = new MutableState();
+			this.observations[PackedBurningRoom.OBSVALUABLE] = BurningRoom.getAnswerObservation(domain, true);
+			this.observations[PackedBurningRoom.OBSNOTVALUABLE] = BurningRoom.getAnswerObservation(domain, false);
+			this.allObservations = Collections.unmodifiableList(Arrays.asList(this.observations));
+
+			// The observation function is deterministic, so every distribution puts Pr = 1 on one observation.
+			List<List<ObservationProbability>> certain = new ArrayList<List<ObservationProbability>>(this.observations.length);
+			for(State observation : this.observations) {
+				certain.add(Collections.singletonList(new ObservationProbability(observation, 1.)));
+			}
+			this.certainObservations = certain;
+
+			this.actions = new Action[PackedBurningRoom.NUMACTIONS];
+			this.actions[PackedBurningRoom.LONGGRAB] = domain.getAction(ACTIONLONGGRAB);
+			this.actions[PackedBurningRoom.SHORTGRAB] = domain.getAction(ACTIONSHORTGRAB);
+			this.actions[PackedBurningRoom.ASK] = domain.getAction(ACTIONASK);
+		}
+
+		public State getObservation(int observationId) {
+			return observations[observationId];
+		}
+
+		public int observationId(State observation) {
+			for(int i = 0; i < observations.length; i++) {
+				if(observations[i] == observation) {
+					return i;
+				}
+			}
+			// Not interned; compare by value.
+			return PackedBurningRoom.observationId(observation);
+		}
+
+		public int actionId(GroundedAction action) {
+			for(int i = 0; i < actions.length; i++) {
+				if(actions[i] == action.action) {
+					return i;
+				}
+			}
+			return PackedBurningRoom.actionId(action.actionName());
+		}
+
+		/**
+		 * Id-based fast path: Pr(observation | packed state, action).
+		 */
+		public double getObservationProbability(int observation, int state, int action) {
+			return PackedBurningRoom.getObservationProbability(observation, state, action);
+		}
+
+		/**
+		 * Id-based fast path: the id of the observation a packed state produces after action.
+		 */
+		public int getObservation(int state, int action) {
+			return PackedBurningRoom.getObservation(state, action);
 		}
 
 		@Override
@@ -345,59 +567,38 @@ public class BurningRoom implements DomainGenerator {
 
 		@Override
 		public List<State> getAllPossibleObservations() {
-			List<State> obs = Arrays.asList(new MutableState(), BurningRoom.getAnswerObservation(this.domain, true), BurningRoom.getAnswerObservation(this.domain, false));
-			return obs;
+			return allObservations;
 		}
 
 		@Override
 		public double getObservationProbability(State observation, State state, GroundedAction action) {
-			
-			// If the agent asked a question.
-			if(action.actionName().equals(ACTIONASK)) {
-				
-				if(observation.numTotalObjects() == 0){
-					return 0.;
-				}
-				
-				// Check if this observation agrees with the state.
-				boolean answerOb = observation.getFirstObjectOfClass(CLASSOBSANSWER).getBooleanValForAttribute(ATTROBOTVALUABLEANSWER);
-				boolean trueUtil = state.getFirstObjectOfClass(CLASSSTATE).getBooleanValForAttribute(ATTISROBOTVALUABLE);
-				if(answerOb == trueUtil){
-					return 1.;
-				}
-				return 0.;
-			}
-			// If we're taking another action and we get a real observation, it has Pr = 0.
-			if(observation.numTotalObjects() > 0){
-				return 0.;
-			}
-			// Null observation has Pr = 1 for all actions != ACTIONASK.
-			return 1.;
-			
+			return this.getObservationProbability(this.observationId(observation), PackedBurningRoom.pack(state), this.actionId(action));
 		}
 
 		@Override
 		public List<ObservationProbability> getObservationProbabilities(State state, GroundedAction action) {
-
-			if(action.actionName().equals(ACTIONLONGGRAB) || action.actionName().equals(ACTIONSHORTGRAB)
-					|| state.getFirstObjectOfClass(CLASSSTATE).getBooleanValForAttribute(ATTROBOTDESTROYED)
-					|| state.getFirstObjectOfClass(CLASSSTATE).getBooleanValForAttribute(ATTOBJECTRETRIEVED)){
-				return Arrays.asList(new ObservationProbability(new MutableState(), 1.));
-			}
-
-			// Otherwise they asked a question.
-			boolean obsVal = state.getFirstObjectOfClass(CLASSSTATE).getBooleanValForAttribute(ATTISROBOTVALUABLE);
-			return Arrays.asList(new ObservationProbability(BurningRoom.getAnswerObservation(domain, obsVal), 1.));
+			return certainObservations.get(this.getObservation(PackedBurningRoom.pack(state), this.actionId(action)));
 		}
 
 		@Override
 		public State sampleObservation(State state, GroundedAction action) {
-			return this.sampleObservationByEnumeration(state, action);
+			// Deterministic, so no draw is needed.
+			return observations[this.getObservation(PackedBurningRoom.pack(state), this.actionId(action))];
 		}
 	}
 
 	public static class BurningRoomRF implements RewardFunction{
 
+		protected BurningRoomParameters params;
+
+		public BurningRoomRF() {
+			this(BurningRoomParameters.DEFAULT);
+		}
+
+		public BurningRoomRF(BurningRoomParameters params) {
+			this.params = params;
+		}
+
 		@Override
 		public double reward(State s, GroundedAction a, State sprime) {
 			
@@ -421,21 +622,21 @@ public class BurningRoom implements DomainGenerator {
 			// Compute reward.
 			double total = 0.;
 			if (objDestroyed) {
-				total -= 10.;
+				total += params.objectDestroyedReward;
 			}
 			
 			if (roboDestroyed) {
-				total -= 5.;
+				total += params.robotDestroyedReward;
 				if (roboIsValuable) {
-					total -= 25.;
+					total += params.valuableRobotDestroyedReward;
 				}
 			}
 			
 			if (objSafe && a.actionName().equals(ACTIONSHORTGRAB)) {
-				total += 10;
+				total += params.shortGrabRetrievedReward;
 			} 
 			else if (objSafe && a.actionName().equals(ACTIONLONGGRAB)) {
-				total += 6;
+				total += params.longGrabRetrievedReward;
 			}
 			
 			return total;
@@ -0,0 +1,205 @@
+package burningroom;
+
+import java.util.List;
+
+import burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.HashableTabularBeliefStateFactory;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import factored.FactoredForwardSearch;
+import factored.FactoredPOMDP;
+import solvers.AlphaVectorQFunction;
+import solvers.IterativeDeepeningBeliefPlanner;
+import solvers.PointBasedValueIteration;
+import solvers.QMDP;
+import solvers.QMDPQFunction;
+import tabular.DenseTabularPOMDP;
+import tabular.TabularModelCompiler;
+import tabular.TabularPOMDP;
+
+/**
+ * Cross-checks the burning room solvers and model forms against each other and exits with status 1 if any check
+ * fails:
+ * <ul>
+ *     <li>{@link PackedBurningRoom#compile} against {@link TabularModelCompiler} on the OO-MDP domain, for several
+ *     parameter settings;</li>
+ *     <li>{@link PointBasedValueIteration} against {@link BeliefSparseSampling} at horizon 2;</li>
+ *     <li>{@link FactoredBurningRoom} with one object against {@link BeliefSparseSampling} at horizon 2;</li>
+ *     <li>{@link QMDP} upper bounds against the PBVI Q-values over beliefs about the robot's value;</li>
+ *     <li>{@link IterativeDeepeningBeliefPlanner} with and without QMDP pruning against
+ *     {@link BeliefSparseSampling} at horizon 3.</li>
+ * </ul>
+ */
+public class BurningRoomChecks {
+
+	protected static final double TOLERANCE = 1e-9;
+
+	protected static int failures = 0;
+
+	public static void main(String[] args) {
+
+		BurningRoomParameters[] settings = new BurningRoomParameters[]{
+				BurningRoomParameters.DEFAULT,
+				BurningRoomParameters.ENUMERATION,
+				BurningRoomParameters.DEFAULT.with(BurningRoomParameters.PROBROBOTDYING, 1.).with(BurningRoomParameters.PROBDESTROYLONGGRAB, .2)
+		};
+		PODomain base = (PODomain)new BurningRoom(BurningRoomParameters.ENUMERATION).generateDomain();
+		for(BurningRoomParameters params : settings) {
+			PODomain domain = (PODomain)new BurningRoom(params).generateDomain();
+			TabularPOMDP oo = TabularModelCompiler.compile(domain, new BurningRoom.BurningRoomRF(params), new BurningRoom.BurningRoomTF());
+			checkPacked(params, oo, PackedBurningRoom.compile(params, base));
+		}
+
+		BurningRoom br = new BurningRoom();
+		PODomain domain = (PODomain)br.generateDomain();
+		RewardFunction rf = new BurningRoom.BurningRoomRF();
+		TerminalFunction tf = new BurningRoom.BurningRoomTF();
+		TabularPOMDP model = TabularModelCompiler.compile(domain, rf, tf);
+		State notValuable = BurningRoom.getMDPState(domain, false, true);
+		State valuable = BurningRoom.getMDPState(domain, true, true);
+		int notValuableId = model.getStateEnumerator().getEnumeratedID(notValuable);
+		int valuableId = model.getStateEnumerator().getEnumeratedID(valuable);
+
+		TabularBeliefState bs = new TabularBeliefState(domain);
+		bs.setBelief(notValuable, 0.5);
+		bs.setBelief(valuable, 0.5);
+		double[] b = bs.getBeliefVector();
+
+		double[] exact2 = sparseSamplingQs(domain, rf, model, bs, 2);
+
+		PointBasedValueIteration pbvi = new PointBasedValueIteration(model, 1., 2);
+		pbvi.addInitialBelief(b);
+		AlphaVectorQFunction alphaQs = pbvi.solve();
+		double[] pbviQs = new double[model.numActions()];
+		alphaQs.qs(b, pbviQs);
+		checkQs("PBVI vs sparse sampling, horizon 2", model, exact2, pbviQs);
+
+		FactoredBurningRoom fbr = new FactoredBurningRoom(1, BurningRoomParameters.DEFAULT);
+		FactoredPOMDP factored = fbr.generateModel();
+		double[] factoredQs = new FactoredForwardSearch(factored, 1., 2).qs(
+				fbr.getInitialBelief(factored.getStateSpace(), new boolean[]{true}, new double[]{.5, .5}));
+		double[] mapped = new double[model.numActions()];
+		mapped[model.actionIndex(BurningRoom.ACTIONSHORTGRAB)] = factoredQs[fbr.shortGrabAction(0)];
+		mapped[model.actionIndex(BurningRoom.ACTIONLONGGRAB)] = factoredQs[fbr.longGrabAction(0)];
+		mapped[model.actionIndex(BurningRoom.ACTIONASK)] = factoredQs[fbr.askAction()];
+		checkQs("factored forward search vs sparse sampling, horizon 2", model, exact2, mapped);
+
+		// PBVI's vectors are lower bounds on the optimal value at every belief, so QMDP must lie above them.
+		QMDPQFunction qmdp = new QMDP(model, 1., 100).solve();
+		boolean bounded = true;
+		for(int i = 0; i <= 10; i++) {
+			double[] line = new double[model.numStates()];
+			line[valuableId] = i / 10.;
+			line[notValuableId] = 1. - i / 10.;
+			for(int a = 0; a < model.numActions(); a++) {
+				if(alphaQs.q(line, a) > qmdp.upperBound(line, a, 2) + TOLERANCE) {
+					bounded = false;
+					System.out.println("  Pr(valuable) = " + i / 10. + ", " + model.getAction(a).actionName() + ": PBVI "
+							+ alphaQs.q(line, a) + " > QMDP " + qmdp.upperBound(line, a, 2));
+				}
+			}
+		}
+		check("QMDP bounds the PBVI Q-values", bounded);
+
+		double[] exact3 = sparseSamplingQs(domain, rf, model, bs, 3);
+		IterativeDeepeningBeliefPlanner plain = new IterativeDeepeningBeliefPlanner(model, 1., 3);
+		plain.setTimeBudget(10000000000L);
+		IterativeDeepeningBeliefPlanner.Result plainResult = plain.plan(b);
+		check("iterative deepening reaches horizon 3", plainResult.depth == 3);
+		checkQs("iterative deepening vs sparse sampling, horizon 3", model, exact3, plainResult.qs);
+
+		IterativeDeepeningBeliefPlanner pruned = new IterativeDeepeningBeliefPlanner(model, 1., 3);
+		pruned.setTimeBudget(10000000000L);
+		pruned.setUpperBounds(qmdp);
+		IterativeDeepeningBeliefPlanner.Result prunedResult = pruned.plan(b);
+		checkQs("pruned vs unpruned iterative deepening, horizon 3", model, plainResult.qs, prunedResult.qs);
+		System.out.println("  pruned action backups: " + pruned.getPrunedActions());
+
+		System.out.println(failures == 0 ? "all checks passed" : failures + " check(s) failed");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Compares the packed model with the OO-MDP one state by state, through the packed form of each state.
+	 */
+	protected static void checkPacked(BurningRoomParameters params, TabularPOMDP oo, DenseTabularPOMDP packed) {
+		int[] packedId = new int[PackedBurningRoom.NUMSTATES];
+		for(int s = 0; s < packed.numStates(); s++) {
+			packedId[PackedBurningRoom.pack(packed.getStateEnumerator().getStateForEnumerationId(s))] = s;
+		}
+		int[] mapped = new int[oo.numStates()];
+		for(int s = 0; s < oo.numStates(); s++) {
+			mapped[s] = packedId[PackedBurningRoom.pack(oo.getStateEnumerator().getStateForEnumerationId(s))];
+		}
+		// The two models come from different domains, so observations are matched by their packed ids.
+		int[] packedObservation = new int[PackedBurningRoom.NUMOBSERVATIONS];
+		for(int o = 0; o < packed.numObservations(); o++) {
+			packedObservation[PackedBurningRoom.observationId(packed.getObservation(o))] = o;
+		}
+
+		boolean same = oo.numActions() == packed.numActions() && oo.numObservations() == packed.numObservations();
+		for(int s = 0; same && s < oo.numStates(); s++) {
+			same = oo.isTerminal(s) == packed.isTerminal(mapped[s]);
+			for(int a = 0; same && a < oo.numActions(); a++) {
+				int pa = packed.actionIndex(oo.getAction(a).actionName());
+				double mass = 0.;
+				for(int sp = 0; same && sp < oo.numStates(); sp++) {
+					double p = oo.transitionProbability(s, a, sp);
+					mass += p;
+					same = Math.abs(p - packed.transitionProbability(mapped[s], pa, mapped[sp])) <= TOLERANCE
+							&& (p == 0. || Math.abs(oo.reward(s, a, sp) - packed.reward(mapped[s], pa, mapped[sp])) <= TOLERANCE);
+				}
+				// Every packed successor must be one of the OO-MDP ones.
+				same = same && Math.abs(mass - sum(packed, mapped[s], pa)) <= TOLERANCE;
+				for(int o = 0; same && o < oo.numObservations(); o++) {
+					int po = packedObservation[PackedBurningRoom.observationId(oo.getObservation(o))];
+					same = Math.abs(oo.observationProbability(s, a, o) - packed.observationProbability(mapped[s], pa, po)) <= TOLERANCE;
+				}
+			}
+		}
+		check("packed vs OO-MDP model, " + params, same);
+	}
+
+	protected static double sum(TabularPOMDP model, int s, int a) {
+		double mass = 0.;
+		for(int sp : model.successors(s, a)) {
+			mass += model.transitionProbability(s, a, sp);
+		}
+		return mass;
+	}
+
+	protected static double[] sparseSamplingQs(PODomain domain, RewardFunction rf, TabularPOMDP model, TabularBeliefState bs, int horizon) {
+		BeliefSparseSampling bss = new BeliefSparseSampling(domain, rf, 1., new HashableTabularBeliefStateFactory(), horizon, -1);
+		bss.toggleDebugPrinting(false);
+		bss.getSparseSamplingPlanner().toggleDebugPrinting(false);
+		List<QValue> qs = bss.getQs(bs);
+		double[] byId = new double[model.numActions()];
+		for(QValue q : qs) {
+			byId[model.actionIndex(q.a.actionName())] = q.q;
+		}
+		return byId;
+	}
+
+	protected static void checkQs(String name, TabularPOMDP model, double[] expected, double[] actual) {
+		boolean same = true;
+		for(int a = 0; a < expected.length; a++) {
+			if(Math.abs(expected[a] - actual[a]) > TOLERANCE) {
+				same = false;
+				System.out.println("  " + model.getAction(a).actionName() + ": expected " + expected[a] + ", got " + actual[a]);
+			}
+		}
+		check(name, same);
+	}
+
+	protected static void check(String name, boolean passed) {
+		System.out.println((passed ? "ok: " : "FAILED: ") + name);
+		if(!passed) {
+			failures++;
+		}
+	}
+
+}
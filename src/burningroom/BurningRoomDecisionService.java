@@ -0,0 +1,106 @@
+package burningroom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.environment.EnvironmentOutcome;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import metrics.MetricsRegistry;
+import service.DecisionService;
+import solvers.AlphaVectorQFunction;
+import solvers.PointBasedValueIteration;
+import tabular.TabularModelCompiler;
+import tabular.TabularPOMDP;
+
+/**
+ * Drives many burning room robots through one {@link DecisionService}: each session starts unsure whether its
+ * robot is valuable, in a room that is on fire, and acts in its own environment until the episode ends, with
+ * the service planning every step on the PBVI alpha vectors.
+ * <p>
+ * Usage: <code>BurningRoomDecisionService [sessions] [callers]</code>, by default 10000 sessions driven from 256
+ * caller threads.
+ */
+public class BurningRoomDecisionService {
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+
+		int numSessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int numCallers = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+
+		BurningRoom br = new BurningRoom();
+		br.setTransitionCacheSize(1024);
+		br.setPerfectHashing(true);
+		final PODomain domain = (PODomain)br.generateDomain();
+		final RewardFunction rf = new BurningRoom.BurningRoomRF();
+		final TerminalFunction tf = new BurningRoom.BurningRoomTF();
+
+		final TabularBeliefState prior = new TabularBeliefState(domain);
+		prior.setBelief(BurningRoom.getMDPState(domain, false, true), 0.5);
+		prior.setBelief(BurningRoom.getMDPState(domain, true, true), 0.5);
+
+		TabularPOMDP model = TabularModelCompiler.compile(domain, rf, tf);
+		PointBasedValueIteration pbvi = new PointBasedValueIteration(model, 1., 2);
+		pbvi.addInitialBelief(prior.getBeliefVector());
+		AlphaVectorQFunction planner = pbvi.solve();
+
+		MetricsRegistry metrics = new MetricsRegistry();
+		final DecisionService service = new DecisionService(planner, 4 * numCallers);
+		service.setAdmissionTimeout(1, TimeUnit.SECONDS);
+		service.setMetrics(metrics);
+
+		ExecutorService callers = Executors.newFixedThreadPool(numCallers);
+		List<Future<Double>> returns = new ArrayList<Future<Double>>(numSessions);
+		long start = System.nanoTime();
+		for(int i = 0; i < numSessions; i++) {
+			final String sessionId = "robot-" + i;
+			final State initialState = BurningRoom.getMDPState(domain, i % 2 == 0, true);
+			returns.add(callers.submit(new Callable<Double>() {
+				@Override
+				public Double call() throws InterruptedException, ExecutionException {
+					SimulatedPOEnvironment env = new SimulatedPOEnvironment(domain, rf, tf, initialState);
+					DecisionService.Decision decision = service.openSession(sessionId, (TabularBeliefState)prior.copy()).get();
+					double total = 0.;
+					try {
+						while(!env.isInTerminalState()) {
+							EnvironmentOutcome eo = env.executeAction(decision.action);
+							total += eo.r;
+							if(eo.terminated) {
+								break;
+							}
+							decision = service.step(sessionId, decision.action, eo.op).get();
+						}
+					}
+					finally {
+						service.closeSession(sessionId);
+					}
+					return total;
+				}
+			}));
+		}
+
+		double sum = 0.;
+		for(Future<Double> r : returns) {
+			sum += r.get();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		callers.shutdown();
+		service.close();
+
+		System.out.println(numSessions + " sessions in " + seconds + "s, mean return " + sum / numSessions);
+		System.out.println("planner calls: " + service.getPlannerCalls() + ", batched: " + service.getBatchedQueries()
+				+ ", rejected: " + service.getRejectedRequests());
+		System.out.println(metrics.snapshot());
+	}
+
+}
@@ -0,0 +1,95 @@
+package burningroom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.environment.EnvironmentOutcome;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.HashableTabularBeliefStateFactory;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import solvers.DomainGenerativeModel;
+import solvers.POMCP;
+
+/**
+ * POMCP on the burning room OO-MDP itself, through {@link DomainGenerativeModel}: only the action and observation
+ * samplers of the domain are called. Its root Q-values for the usual belief are printed next to those of
+ * {@link BeliefSparseSampling} at the same horizon, which enumerates the same model exactly, and then the agent
+ * acts on POMCP in the environment until the episode ends.
+ * <p>
+ * Usage: <code>BurningRoomPOMCP [simulations]</code>, by default 200000 per decision.
+ */
+public class BurningRoomPOMCP {
+
+	public static void main(String[] args) {
+
+		long simulations = args.length > 0 ? Long.parseLong(args[0]) : 200000;
+		int horizon = 2;
+		double gamma = 1.;
+
+		BurningRoom br = new BurningRoom();
+		PODomain domain = (PODomain)br.generateDomain();
+		RewardFunction rf = new BurningRoom.BurningRoomRF();
+		TerminalFunction tf = new BurningRoom.BurningRoomTF();
+
+		// Room on fire, robot's life doesn't matter, and the robot is unsure which.
+		State initialMDPState = BurningRoom.getMDPState(domain, false, true);
+		TabularBeliefState bs = new TabularBeliefState(domain);
+		bs.setBelief(BurningRoom.getMDPState(domain, false, true), 0.5);
+		bs.setBelief(BurningRoom.getMDPState(domain, true, true), 0.5);
+
+		BeliefSparseSampling bss = new BeliefSparseSampling(domain, rf, gamma, new HashableTabularBeliefStateFactory(), horizon, -1);
+		bss.toggleDebugPrinting(false);
+		bss.getSparseSamplingPlanner().toggleDebugPrinting(false);
+
+		DomainGenerativeModel model = new DomainGenerativeModel(domain, rf, tf, initialMDPState);
+		// The exploration constant is on the scale of the returns, which lie in [-25, 10].
+		POMCP<State> pomcp = new POMCP<State>(model, gamma, horizon, 10.);
+		pomcp.setIterationBudget(simulations);
+		List<State> particles = new ArrayList<State>();
+		for(int i = 0; i < 1000; i++) {
+			particles.add(bs.sampleStateFromBelief());
+		}
+		pomcp.setBelief(particles);
+		int best = pomcp.selectAction();
+
+		// The mean return of an action approaches its exact Q-value, from below, only as UCB1 keeps visiting it, so
+		// the error is taken over actions with at least 1% of the simulations; the others are printed for reference.
+		double[] rootQs = pomcp.getRootQs();
+		int[] visits = pomcp.getRootVisits();
+		double maxError = 0.;
+		QValue exactBest = null;
+		System.out.println("action: sparse sampling, POMCP (visits)");
+		for(QValue q : bss.getQs(bs)) {
+			int a = model.actionIndex(q.a.actionName());
+			if(visits[a] >= simulations / 100) {
+				maxError = Math.max(maxError, Math.abs(q.q - rootQs[a]));
+			}
+			if(exactBest == null || q.q > exactBest.q) {
+				exactBest = q;
+			}
+			System.out.println(q.a.actionName() + ": " + q.q + ", " + rootQs[a] + " (" + visits[a] + ")");
+		}
+		System.out.println("max |error| of visited actions: " + maxError + ", best: " + exactBest.a.actionName() + ", POMCP best: " + model.getActionName(best));
+
+		// Act on POMCP until the episode ends, reusing the subtree of each observation.
+		SimulatedPOEnvironment penv = new SimulatedPOEnvironment(domain, rf, tf, initialMDPState);
+		while(!penv.isInTerminalState()) {
+			GroundedAction ga = model.getAction(best);
+			EnvironmentOutcome eo = penv.executeAction(ga);
+			System.out.println(ga.actionName() + ", reward " + eo.r);
+			if(eo.terminated) {
+				break;
+			}
+			pomcp.update(best, model.observationKey(eo.op));
+			best = pomcp.selectAction();
+		}
+	}
+
+}
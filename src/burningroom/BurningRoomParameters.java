@@ -0,0 +1,163 @@
+package burningroom;
+
+/**
+ * Immutable risk probabilities and reward weights of the {@link BurningRoom} dilemma. Use
+ * {@link #DEFAULT} for the values the dilemma is usually run with, and the <code>with</code>
+ * methods to derive variations, e.g. for parameter sweeps.
+ */
+public final class BurningRoomParameters {
+
+	// Names accepted by with(String, double).
+	public static final String PROBDESTROYASK = "probOfDestroyingObjectAsk";
+	public static final String PROBDESTROYSHORTGRAB = "probOfDestroyingObjectShortGrab";
+	public static final String PROBDESTROYLONGGRAB = "probOfDestroyingObjectLongGrab";
+	public static final String PROBROBOTDYING = "probOfRobotDyingInFire";
+	public static final String OBJECTDESTROYEDREWARD = "objectDestroyedReward";
+	public static final String ROBOTDESTROYEDREWARD = "robotDestroyedReward";
+	public static final String VALUABLEROBOTDESTROYEDREWARD = "valuableRobotDestroyedReward";
+	public static final String SHORTGRABRETRIEVEDREWARD = "shortGrabRetrievedReward";
+	public static final String LONGGRABRETRIEVEDREWARD = "longGrabRetrievedReward";
+
+	// An earlier setting was ask .005, short grab .05, long grab .35 and dying in fire .5.
+	public static final BurningRoomParameters DEFAULT = new BurningRoomParameters(0.005, .0, .05, .7, -10., -5., -25., 10., 6.);
+
+	// Every risk strictly between 0 and 1, so a domain enumerated with these reaches every state that any setting
+	// can reach, as the base domain of PackedBurningRoom.compile needs.
+	public static final BurningRoomParameters ENUMERATION = DEFAULT.with(PROBDESTROYASK, .5).with(PROBDESTROYSHORTGRAB, .5)
+			.with(PROBDESTROYLONGGRAB, .5).with(PROBROBOTDYING, .5);
+
+	public final double probOfDestroyingObjectAsk;
+	public final double probOfDestroyingObjectShortGrab;
+	public final double probOfDestroyingObjectLongGrab;
+	public final double probOfRobotDyingInFire;
+
+	// Reward for the object being destroyed.
+	public final double objectDestroyedReward;
+	// Reward for the robot being destroyed.
+	public final double robotDestroyedReward;
+	// Additional reward for the robot being destroyed when its life is valuable.
+	public final double valuableRobotDestroyedReward;
+	// Reward for retrieving the object with each grab.
+	public final double shortGrabRetrievedReward;
+	public final double longGrabRetrievedReward;
+
+	public BurningRoomParameters(double probOfDestroyingObjectAsk, double probOfDestroyingObjectShortGrab,
+								 double probOfDestroyingObjectLongGrab, double probOfRobotDyingInFire,
+								 double objectDestroyedReward, double robotDestroyedReward, double valuableRobotDestroyedReward,
+								 double shortGrabRetrievedReward, double longGrabRetrievedReward) {
+
+		checkProbability(PROBDESTROYASK, probOfDestroyingObjectAsk);
+		checkProbability(PROBDESTROYSHORTGRAB, probOfDestroyingObjectShortGrab);
+		checkProbability(PROBDESTROYLONGGRAB, probOfDestroyingObjectLongGrab);
+		checkProbability(PROBROBOTDYING, probOfRobotDyingInFire);
+
+		this.probOfDestroyingObjectAsk = probOfDestroyingObjectAsk;
+		this.probOfDestroyingObjectShortGrab = probOfDestroyingObjectShortGrab;
+		this.probOfDestroyingObjectLongGrab = probOfDestroyingObjectLongGrab;
+		this.probOfRobotDyingInFire = probOfRobotDyingInFire;
+		this.objectDestroyedReward = objectDestroyedReward;
+		this.robotDestroyedReward = robotDestroyedReward;
+		this.valuableRobotDestroyedReward = valuableRobotDestroyedReward;
+		this.shortGrabRetrievedReward = shortGrabRetrievedReward;
+		this.longGrabRetrievedReward = longGrabRetrievedReward;
+	}
+
+	private static void checkProbability(String name, double p) {
+		if(p < 0. || p > 1.) {
+			throw new IllegalArgumentException(name + " must be in [0, 1] but was " + p + ".");
+		}
+	}
+
+	/**
+	 * Returns a copy with the named parameter (one of the name constants of this class) set to value.
+	 */
+	public BurningRoomParameters with(String name, double value) {
+		double ask = probOfDestroyingObjectAsk;
+		double shortGrab = probOfDestroyingObjectShortGrab;
+		double longGrab = probOfDestroyingObjectLongGrab;
+		double dying = probOfRobotDyingInFire;
+		double objDest = objectDestroyedReward;
+		double robotDest = robotDestroyedReward;
+		double valuableDest = valuableRobotDestroyedReward;
+		double shortRetrieved = shortGrabRetrievedReward;
+		double longRetrieved = longGrabRetrievedReward;
+
+		if(name.equals(PROBDESTROYASK)) {
+			ask = value;
+		}
+		else if(name.equals(PROBDESTROYSHORTGRAB)) {
+			shortGrab = value;
+		}
+		else if(name.equals(PROBDESTROYLONGGRAB)) {
+			longGrab = value;
+		}
+		else if(name.equals(PROBROBOTDYING)) {
+			dying = value;
+		}
+		else if(name.equals(OBJECTDESTROYEDREWARD)) {
+			objDest = value;
+		}
+		else if(name.equals(ROBOTDESTROYEDREWARD)) {
+			robotDest = value;
+		}
+		else if(name.equals(VALUABLEROBOTDESTROYEDREWARD)) {
+			valuableDest = value;
+		}
+		else if(name.equals(SHORTGRABRETRIEVEDREWARD)) {
+			shortRetrieved = value;
+		}
+		else if(name.equals(LONGGRABRETRIEVEDREWARD)) {
+			longRetrieved = value;
+		}
+		else {
+			throw new IllegalArgumentException("Unknown BurningRoom parameter: " + name);
+		}
+
+		return new BurningRoomParameters(ask, shortGrab, longGrab, dying, objDest, robotDest, valuableDest, shortRetrieved, longRetrieved);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(!(o instanceof BurningRoomParameters)) {
+			return false;
+		}
+		BurningRoomParameters that = (BurningRoomParameters)o;
+		return Double.compare(probOfDestroyingObjectAsk, that.probOfDestroyingObjectAsk) == 0
+				&& Double.compare(probOfDestroyingObjectShortGrab, that.probOfDestroyingObjectShortGrab) == 0
+				&& Double.compare(probOfDestroyingObjectLongGrab, that.probOfDestroyingObjectLongGrab) == 0
+				&& Double.compare(probOfRobotDyingInFire, that.probOfRobotDyingInFire) == 0
+				&& Double.compare(objectDestroyedReward, that.objectDestroyedReward) == 0
+				&& Double.compare(robotDestroyedReward, that.robotDestroyedReward) == 0
+				&& Double.compare(valuableRobotDestroyedReward, that.valuableRobotDestroyedReward) == 0
+				&& Double.compare(shortGrabRetrievedReward, that.shortGrabRetrievedReward) == 0
+				&& Double.compare(longGrabRetrievedReward, that.longGrabRetrievedReward) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		long h = 17;
+		h = 31 * h + Double.doubleToLongBits(probOfDestroyingObjectAsk);
+		h = 31 * h + Double.doubleToLongBits(probOfDestroyingObjectShortGrab);
+		h = 31 * h + Double.doubleToLongBits(probOfDestroyingObjectLongGrab);
+		h = 31 * h + Double.doubleToLongBits(probOfRobotDyingInFire);
+		h = 31 * h + Double.doubleToLongBits(objectDestroyedReward);
+		h = 31 * h + Double.doubleToLongBits(robotDestroyedReward);
+		h = 31 * h + Double.doubleToLongBits(valuableRobotDestroyedReward);
+		h = 31 * h + Double.doubleToLongBits(shortGrabRetrievedReward);
+		h = 31 * h + Double.doubleToLongBits(longGrabRetrievedReward);
+		return (int)(h ^ (h >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return PROBDESTROYASK + "=" + probOfDestroyingObjectAsk + ", " + PROBDESTROYSHORTGRAB + "=" + probOfDestroyingObjectShortGrab
+				+ ", " + PROBDESTROYLONGGRAB + "=" + probOfDestroyingObjectLongGrab + ", " + PROBROBOTDYING + "=" + probOfRobotDyingInFire
+				+ ", " + OBJECTDESTROYEDREWARD + "=" + objectDestroyedReward + ", " + ROBOTDESTROYEDREWARD + "=" + robotDestroyedReward
+				+ ", " + VALUABLEROBOTDESTROYEDREWARD + "=" + valuableRobotDestroyedReward
+				+ ", " + SHORTGRABRETRIEVEDREWARD + "=" + shortGrabRetrievedReward + ", " + LONGGRABRETRIEVEDREWARD + "=" + longGrabRetrievedReward;
+	}
+
+}
@@ -0,0 +1,61 @@
+package burningroom;
+
+import burlap.behavior.policy.Policy;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import evaluation.BatchEpisodeRunner;
+import evaluation.OutcomeSketch;
+import evaluation.WeightedStateGenerator;
+import policy.CompiledBeliefPolicy;
+import policy.PolicyCompiler;
+import solvers.PointBasedValueIteration;
+import tabular.TabularModelCompiler;
+import tabular.TabularPOMDP;
+
+/**
+ * Return distribution and risk of the point-based value iteration policy in the burning room: runs episodes from
+ * the room on fire, with the robot valuable or not in equal measure and unsure which, and prints the return
+ * quantiles, the lower-tail mean and the probability of each of {@link BurningRoom#outcomeEvents()}, overall
+ * and per initial state.
+ * <p>
+ * Usage: <code>BurningRoomRisk [episodes]</code>, by default 100000.
+ */
+public class BurningRoomRisk {
+
+	public static void main(String[] args) {
+
+		int episodes = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+		BurningRoom br = new BurningRoom();
+		br.setPerfectHashing(true);
+		PODomain domain = (PODomain)br.generateDomain();
+		RewardFunction rf = new BurningRoom.BurningRoomRF();
+		TerminalFunction tf = new BurningRoom.BurningRoomTF();
+
+		TabularBeliefState bs = new TabularBeliefState(domain);
+		bs.setBelief(BurningRoom.getMDPState(domain, false, true), 0.5);
+		bs.setBelief(BurningRoom.getMDPState(domain, true, true), 0.5);
+
+		TabularPOMDP model = TabularModelCompiler.compile(domain, rf, tf);
+		PointBasedValueIteration pbvi = new PointBasedValueIteration(model, 1., 2);
+		pbvi.addInitialBelief(bs.getBeliefVector());
+		final CompiledBeliefPolicy compiled = new CompiledBeliefPolicy(PolicyCompiler.compile(pbvi.solve()), domain);
+
+		WeightedStateGenerator initialStates = new WeightedStateGenerator()
+				.addState(BurningRoom.getMDPState(domain, false, true), 1.)
+				.addState(BurningRoom.getMDPState(domain, true, true), 1.);
+		BatchEpisodeRunner runner = new BatchEpisodeRunner(domain, rf, tf, new BatchEpisodeRunner.PolicyFactory() {
+			@Override
+			public Policy generatePolicy() {
+				return compiled;
+			}
+		}, initialStates, bs);
+		runner.setOutcomeSketch(new OutcomeSketch(domain.getStateEnumerator().numStatesEnumerated(), BurningRoom.outcomeEvents()));
+		BatchEpisodeRunner.Result batch = runner.run(episodes);
+		System.out.println(batch);
+		System.out.println(batch.outcomes);
+	}
+
+}
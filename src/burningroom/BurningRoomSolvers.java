@@ -0,0 +1,113 @@
+package burningroom;
+
+import burlap.behavior.policy.GreedyQPolicy;
+import burlap.behavior.singleagent.EpisodeAnalysis;
+import burlap.behavior.singleagent.pomdp.BeliefPolicyAgent;
+import burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.HashableTabularBeliefStateFactory;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import metrics.InstrumentedQFunction;
+import metrics.InstrumentedRewardFunction;
+import metrics.MetricsRegistry;
+import policy.PolicyCompiler;
+import policy.ThresholdPolicy;
+import solvers.AlphaVectorQFunction;
+import solvers.CachedBeliefQFunction;
+import solvers.IterativeDeepeningBeliefPlanner;
+import solvers.PointBasedValueIteration;
+import solvers.QMDP;
+import solvers.QMDPQFunction;
+import tabular.TabularModelCompiler;
+import tabular.TabularPOMDP;
+
+/**
+ * Runs the burning room example of {@link BurningRoom#main} with every planner of the solvers package: an agent
+ * acts on cached, instrumented sparse sampling, and the Q-values of point-based value iteration, QMDP and
+ * iterative deepening are printed for the same belief, followed by the belief thresholds of the PBVI policy and
+ * the timings of every domain and planner call.
+ */
+public class BurningRoomSolvers {
+
+	public static void main(String[] args) {
+
+		// Time the domain, reward function and planner calls.
+		MetricsRegistry metrics = new MetricsRegistry();
+
+		BurningRoom br = new BurningRoom();
+		br.setMetrics(metrics);
+		// Belief updates enumerate the same few transitions over and over.
+		br.setTransitionCacheSize(1024);
+		// They also look up the id of every successor, which hashes it.
+		br.setPerfectHashing(true);
+		PODomain domain = (PODomain)br.generateDomain();
+		RewardFunction rf = new InstrumentedRewardFunction(new BurningRoom.BurningRoomRF(), metrics);
+		TerminalFunction tf = new BurningRoom.BurningRoomTF();
+
+		// Room on fire, robot's life doesn't matter, and the robot is unsure which.
+		boolean isRoboValuable = false;
+		boolean isRoomOnFire = true;
+		State initialMDPState = BurningRoom.getMDPState(domain, isRoboValuable, isRoomOnFire);
+		SimulatedPOEnvironment penv = new SimulatedPOEnvironment(domain, rf, tf, initialMDPState);
+
+		TabularBeliefState bs = new TabularBeliefState(domain);
+		bs.setBelief(BurningRoom.getMDPState(domain, isRoboValuable, isRoomOnFire), 0.5);
+		bs.setBelief(BurningRoom.getMDPState(domain, !isRoboValuable, isRoomOnFire), 0.5);
+
+		// Sparse sampling, behind a belief cache.
+		double gamma = 1.0;
+		BeliefSparseSampling bss = new BeliefSparseSampling(domain, rf, gamma, new HashableTabularBeliefStateFactory(), 2, -1);
+		bss.toggleDebugPrinting(false);
+		bss.getSparseSamplingPlanner().toggleDebugPrinting(false);
+		CachedBeliefQFunction cachedQs = new CachedBeliefQFunction(new InstrumentedQFunction(bss, "beliefSparseSampling", metrics), 1e-9, 1024);
+
+		BeliefPolicyAgent agent = new BeliefPolicyAgent(domain, penv, new GreedyQPolicy(cachedQs));
+		agent.setBeliefState(bs);
+		EpisodeAnalysis ea = agent.actUntilTerminal();
+		System.out.println(ea.getActionSequenceString("\n"));
+		System.out.println("Q cache hits: " + cachedQs.getHits() + ", misses: " + cachedQs.getMisses());
+
+		System.out.println("sparse sampling:");
+		for(QValue q : bss.getQs(bs)) {
+			System.out.println(q.q + ": " + q.a.toString());
+		}
+
+		// Point-based value iteration on the compiled model, same horizon as sparse sampling.
+		TabularPOMDP model = TabularModelCompiler.compile(domain, rf, tf);
+		PointBasedValueIteration pbvi = new PointBasedValueIteration(model, gamma, 2);
+		pbvi.addInitialBelief(bs.getBeliefVector());
+		AlphaVectorQFunction alphaQs = pbvi.solve();
+		System.out.println("point-based value iteration:");
+		for(QValue q : alphaQs.getQs(bs)) {
+			System.out.println(q.q + ": " + q.a.toString());
+		}
+
+		// QMDP: the fully observable MDP's Q-values under the belief, an upper bound on the values above.
+		QMDPQFunction qmdp = new QMDP(model, gamma, 100).solve();
+		System.out.println("QMDP:");
+		for(QValue q : qmdp.getQs(bs)) {
+			System.out.println(q.q + ": " + q.a.toString());
+		}
+
+		// Deepen the same search for as long as a 20 ms decision budget allows, pruning with the QMDP bounds.
+		IterativeDeepeningBeliefPlanner deepening = new IterativeDeepeningBeliefPlanner(model, gamma, 100);
+		deepening.setTimeBudget(20000000L);
+		deepening.setUpperBounds(qmdp);
+		IterativeDeepeningBeliefPlanner.Result deepest = deepening.plan(bs.getBeliefVector());
+		System.out.println("iterative deepening: " + deepest + ", " + model.getAction(deepest.bestAction).actionName());
+
+		// Belief thresholds over whether the robot is valuable, in the burning room.
+		int notValuableId = model.getStateEnumerator().getEnumeratedID(BurningRoom.getMDPState(domain, false, isRoomOnFire));
+		int valuableId = model.getStateEnumerator().getEnumeratedID(BurningRoom.getMDPState(domain, true, isRoomOnFire));
+		ThresholdPolicy thresholds = PolicyCompiler.compileThresholds(alphaQs, notValuableId, valuableId);
+		System.out.println(thresholds);
+
+		System.out.println(metrics.snapshot());
+	}
+
+}
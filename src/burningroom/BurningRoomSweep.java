@@ -0,0 +1,73 @@
+package burningroom;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import analysis.ParameterGrid;
+import analysis.ParameterSweep;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import tabular.TabularPOMDP;
+
+/**
+ * Sweeps {@link BurningRoomParameters} over a grid in one JVM and writes a CSV row per point with the
+ * optimal first action and Q-values from the 0.5/0.5 belief about the robot's value, with the room on fire.
+ * <p>
+ * Usage: <code>BurningRoomSweep [out.csv] [name=first:last:count | name=v1,v2,...]...</code>, where the names
+ * are the parameter name constants of {@link BurningRoomParameters}. Without axes a grid over the probability
+ * of the robot dying and the penalty for destroying a valuable robot is used; without a file rows go to stdout.
+ */
+public class BurningRoomSweep {
+
+	public static void main(String[] args) throws IOException {
+
+		final PODomain baseDomain = (PODomain)new BurningRoom(BurningRoomParameters.ENUMERATION).generateDomain();
+
+		final ParameterGrid grid = new ParameterGrid();
+		for(int i = 1; i < args.length; i++) {
+			grid.addAxis(args[i]);
+		}
+		if(grid.numAxes() == 0) {
+			grid.addAxis(BurningRoomParameters.PROBROBOTDYING, 0., 1., 21);
+			grid.addAxis(BurningRoomParameters.VALUABLEROBOTDESTROYEDREWARD, -50., 0., 21);
+		}
+
+		ParameterSweep.ModelFactory factory = new ParameterSweep.ModelFactory() {
+			@Override
+			public TabularPOMDP generateModel(double[] point) {
+				BurningRoomParameters params = BurningRoomParameters.DEFAULT;
+				for(int axis = 0; axis < point.length; axis++) {
+					params = params.with(grid.getName(axis), point[axis]);
+				}
+				return PackedBurningRoom.compile(params, baseDomain);
+			}
+		};
+
+		// Robot believes its life matters and doesn't matter with 0.5 probability; the room is on fire.
+		TabularBeliefState bs = new TabularBeliefState(baseDomain);
+		bs.setBelief(BurningRoom.getMDPState(baseDomain, true, true), 0.5);
+		bs.setBelief(BurningRoom.getMDPState(baseDomain, false, true), 0.5);
+
+		ParameterSweep sweep = new ParameterSweep(grid, factory, bs.getBeliefVector(), 1., 200);
+
+		// Only a file opened here is closed; System.out stays open.
+		Writer out = args.length > 0 ? new BufferedWriter(new FileWriter(args[0])) : new OutputStreamWriter(System.out);
+		try {
+			long start = System.nanoTime();
+			long rows = sweep.run(out);
+			System.err.println(rows + " grid points in " + (System.nanoTime() - start) / 1e9 + "s");
+		}
+		finally {
+			if(args.length > 0) {
+				out.close();
+			}
+			else {
+				out.flush();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package burningroom;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import analysis.ParameterGrid;
+import analysis.ParameterSweep;
+import analysis.ValueOfInformationAnalysis;
+import analysis.ValueOfInformationMap;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import tabular.TabularPOMDP;
+
+/**
+ * Maps the value of asking whether the robot is valuable, with the room on fire, over the belief that it is
+ * and a grid of {@link BurningRoomParameters}, and prints for each grid point the belief interval in which
+ * asking is optimal.
+ * <p>
+ * Usage: <code>BurningRoomValueOfInformation [boundary.csv] [name=first:last:count | name=v1,v2,...]...</code>,
+ * with the same axes and defaults as {@link BurningRoomSweep}.
+ */
+public class BurningRoomValueOfInformation {
+
+	public static void main(String[] args) throws IOException {
+
+		final PODomain baseDomain = (PODomain)new BurningRoom(BurningRoomParameters.ENUMERATION).generateDomain();
+
+		final ParameterGrid grid = new ParameterGrid();
+		for(int i = 1; i < args.length; i++) {
+			grid.addAxis(args[i]);
+		}
+		if(grid.numAxes() == 0) {
+			grid.addAxis(BurningRoomParameters.PROBROBOTDYING, 0., 1., 21);
+			grid.addAxis(BurningRoomParameters.VALUABLEROBOTDESTROYEDREWARD, -50., 0., 21);
+		}
+
+		ParameterSweep.ModelFactory factory = new ParameterSweep.ModelFactory() {
+			@Override
+			public TabularPOMDP generateModel(double[] point) {
+				BurningRoomParameters params = BurningRoomParameters.DEFAULT;
+				for(int axis = 0; axis < point.length; axis++) {
+					params = params.with(grid.getName(axis), point[axis]);
+				}
+				return PackedBurningRoom.compile(params, baseDomain);
+			}
+		};
+
+		int notValuable = baseDomain.getStateEnumerator().getEnumeratedID(BurningRoom.getMDPState(baseDomain, false, true));
+		int valuable = baseDomain.getStateEnumerator().getEnumeratedID(BurningRoom.getMDPState(baseDomain, true, true));
+		ValueOfInformationAnalysis analysis = new ValueOfInformationAnalysis(grid, factory, notValuable, valuable,
+				new String[]{BurningRoom.ACTIONASK}, 1., 200);
+		analysis.setBeliefResolution(1001);
+
+		long start = System.nanoTime();
+		ValueOfInformationMap map = analysis.run();
+		System.err.println(map.numPoints() + " grid points in " + (System.nanoTime() - start) / 1e9 + "s");
+
+		double[] point = new double[grid.numAxes()];
+		for(int i = 0; i < map.numPoints(); i++) {
+			grid.point(i, point);
+			StringBuilder sb = new StringBuilder();
+			for(int axis = 0; axis < point.length; axis++) {
+				sb.append(grid.getName(axis)).append('=').append(point[axis]).append(' ');
+			}
+			if(map.numAskIntervals(i) == 0) {
+				sb.append("never ask");
+			}
+			for(int k = 0; k < map.numAskIntervals(i); k++) {
+				sb.append("ask for p(valuable) in [").append(map.getIntervalLow(i, k)).append(", ").append(map.getIntervalHigh(i, k)).append(map.getIntervalHigh(i, k) >= 1. ? "] " : ") ");
+			}
+			System.out.println(sb.toString().trim());
+		}
+
+		if(args.length > 0) {
+			Writer out = new BufferedWriter(new FileWriter(args[0]));
+			try {
+				map.writeBoundaryCSV(out);
+			}
+			finally {
+				out.close();
+			}
+		}
+	}
+
+}
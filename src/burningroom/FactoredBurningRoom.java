@@ -0,0 +1,432 @@
+package burningroom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import factored.FactoredAction;
+import factored.FactoredForwardSearch;
+import factored.FactoredPOMDP;
+import factored.FactoredStateSpace;
+import factored.LongDoubleMap;
+import factored.SparseFactoredBelief;
+import factored.VariableEffect;
+import sampling.RandomStreams;
+import solvers.FactoredGenerativeModel;
+import solvers.POMCP;
+
+/**
+ * Factored generalisation of {@link BurningRoom} to K objects spread over several rooms and any number of
+ * hypotheses about how valuable the robot is. Each object has a status (present, retrieved or destroyed) and
+ * each room a fire flag; the robot has a destroyed flag, and the true hypothesis is a hidden variable. With one
+ * object, one room and the hypothesis weights {0, 1} the model has the same dynamics and rewards as
+ * {@link BurningRoom}.
+ * <p>
+ * Actions are a short and a long grab per object and one question. A short grab in a burning room risks the
+ * robot; every grab risks the object; asking risks every present object, independently. These are separate
+ * {@link VariableEffect}s, so an action's joint outcomes are never written out. Each step the robot sees the
+ * room, object and robot variables, and after asking it also hears the true hypothesis (correct with the
+ * answer accuracy, otherwise one of the other hypotheses uniformly), so beliefs only spread over hypotheses.
+ * The episode ends when the robot is destroyed or no object is left.
+ */
+public class FactoredBurningRoom {
+
+	// Object status values.
+	public static final int PRESENT = 0;
+	public static final int RETRIEVED = 1;
+	public static final int DESTROYED = 2;
+
+	public static final String VARROBOTDESTROYED = "robotDestroyed";
+	public static final String VARHYPOTHESIS = "robotValueHypothesis";
+	public static final String VARONFIRE = "roomOnFire";
+	public static final String VAROBJECT = "object";
+
+	// Observations after asking have this bit set and the answer in the hypothesis field.
+	protected static final long ANSWERFLAG = 1L << 62;
+
+	protected final int numObjects;
+	protected final int[] objectRooms;
+	protected final int numRooms;
+	protected final double[] hypothesisWeights;
+	protected final BurningRoomParameters params;
+	protected double answerAccuracy = 1.;
+
+	/**
+	 * @param objectRooms the room of each object; rooms are numbered from 0.
+	 * @param hypothesisWeights for each hypothesis, the multiple of
+	 *                          {@link BurningRoomParameters#valuableRobotDestroyedReward} added when the robot is destroyed.
+	 */
+	public FactoredBurningRoom(int[] objectRooms, double[] hypothesisWeights, BurningRoomParameters params) {
+		if(objectRooms.length == 0) {
+			throw new IllegalArgumentException("There must be at least one object.");
+		}
+		if(hypothesisWeights.length < 2) {
+			throw new IllegalArgumentException("There must be at least two hypotheses.");
+		}
+		int rooms = 0;
+		for(int room : objectRooms) {
+			if(room < 0) {
+				throw new IllegalArgumentException("Room numbers must not be negative.");
+			}
+			rooms = Math.max(rooms, room + 1);
+		}
+		this.numObjects = objectRooms.length;
+		this.objectRooms = objectRooms.clone();
+		this.numRooms = rooms;
+		this.hypothesisWeights = hypothesisWeights.clone();
+		this.params = params;
+	}
+
+	/**
+	 * K objects in one room, with the two hypotheses of {@link BurningRoom}: not valuable and valuable.
+	 */
+	public FactoredBurningRoom(int numObjects, BurningRoomParameters params) {
+		this(new int[numObjects], new double[]{0., 1.}, params);
+	}
+
+	/**
+	 * Probability that an answer names the true hypothesis; 1 by default.
+	 */
+	public void setAnswerAccuracy(double answerAccuracy) {
+		if(answerAccuracy < 0. || answerAccuracy > 1.) {
+			throw new IllegalArgumentException("The answer accuracy must be in [0, 1].");
+		}
+		this.answerAccuracy = answerAccuracy;
+	}
+
+	public int numObjects() {
+		return numObjects;
+	}
+
+	public int numRooms() {
+		return numRooms;
+	}
+
+	public int numHypotheses() {
+		return hypothesisWeights.length;
+	}
+
+	// Variable layout: robot, hypothesis, one fire flag per room, one status per object.
+	public int robotVariable() {
+		return 0;
+	}
+
+	public int hypothesisVariable() {
+		return 1;
+	}
+
+	public int fireVariable(int room) {
+		return 2 + room;
+	}
+
+	public int objectVariable(int object) {
+		return 2 + numRooms + object;
+	}
+
+	// Action layout: short and long grab per object, then ask.
+	public int shortGrabAction(int object) {
+		return 2 * object;
+	}
+
+	public int longGrabAction(int object) {
+		return 2 * object + 1;
+	}
+
+	public int askAction() {
+		return 2 * numObjects;
+	}
+
+	public FactoredStateSpace generateStateSpace() {
+		int n = 2 + numRooms + numObjects;
+		String[] names = new String[n];
+		int[] sizes = new int[n];
+		names[robotVariable()] = VARROBOTDESTROYED;
+		sizes[robotVariable()] = 2;
+		names[hypothesisVariable()] = VARHYPOTHESIS;
+		sizes[hypothesisVariable()] = hypothesisWeights.length;
+		for(int r = 0; r < numRooms; r++) {
+			names[fireVariable(r)] = VARONFIRE + r;
+			sizes[fireVariable(r)] = 2;
+		}
+		for(int k = 0; k < numObjects; k++) {
+			names[objectVariable(k)] = VAROBJECT + k;
+			sizes[objectVariable(k)] = 3;
+		}
+		return new FactoredStateSpace(names, sizes);
+	}
+
+	public FactoredPOMDP generateModel() {
+
+		final FactoredStateSpace space = generateStateSpace();
+
+		List<FactoredAction> actions = new ArrayList<FactoredAction>(2 * numObjects + 1);
+		for(int k = 0; k < numObjects; k++) {
+			VariableEffect object = new ObjectEffect(space, objectVariable(k), params.probOfDestroyingObjectShortGrab, true);
+			VariableEffect robot = new FireEffect(space, robotVariable(), fireVariable(objectRooms[k]), params.probOfRobotDyingInFire);
+			actions.add(new FactoredAction(BurningRoom.ACTIONSHORTGRAB + k, space, object, robot));
+			actions.add(new FactoredAction(BurningRoom.ACTIONLONGGRAB + k, space,
+					new ObjectEffect(space, objectVariable(k), params.probOfDestroyingObjectLongGrab, true)));
+		}
+		VariableEffect[] askEffects = new VariableEffect[numObjects];
+		for(int k = 0; k < numObjects; k++) {
+			askEffects[k] = new ObjectEffect(space, objectVariable(k), params.probOfDestroyingObjectAsk, false);
+		}
+		actions.add(new FactoredAction(BurningRoom.ACTIONASK, space, askEffects));
+
+		return new FactoredPOMDP(space, actions, new RF(space), new TF(space), new Observations(space));
+	}
+
+	/**
+	 * State with the robot intact, every object present and the given rooms on fire.
+	 */
+	public long getInitialState(FactoredStateSpace space, boolean[] roomsOnFire, int hypothesis) {
+		long s = space.set(0L, hypothesisVariable(), hypothesis);
+		for(int r = 0; r < numRooms; r++) {
+			s = space.set(s, fireVariable(r), roomsOnFire[r] ? 1 : 0);
+		}
+		return s;
+	}
+
+	/**
+	 * Belief over the hypotheses of the initial state with the given rooms on fire.
+	 */
+	public SparseFactoredBelief getInitialBelief(FactoredStateSpace space, boolean[] roomsOnFire, double[] hypothesisPrior) {
+		LongDoubleMap mass = new LongDoubleMap(hypothesisPrior.length);
+		for(int h = 0; h < hypothesisPrior.length; h++) {
+			mass.add(getInitialState(space, roomsOnFire, h), hypothesisPrior[h]);
+		}
+		return SparseFactoredBelief.fromMass(mass);
+	}
+
+	// --- EFFECTS ---
+
+	/**
+	 * A present object is destroyed with some probability and otherwise retrieved (grabs) or left (ask).
+	 */
+	protected static class ObjectEffect implements VariableEffect {
+
+		protected final FactoredStateSpace space;
+		protected final int variable;
+		protected final double pDestroy;
+		protected final boolean retrieves;
+
+		public ObjectEffect(FactoredStateSpace space, int variable, double pDestroy, boolean retrieves) {
+			this.space = space;
+			this.variable = variable;
+			this.pDestroy = pDestroy;
+			this.retrieves = retrieves;
+		}
+
+		@Override
+		public int getVariable() {
+			return variable;
+		}
+
+		@Override
+		public int getDistribution(long s, int[] values, double[] probs) {
+			int status = space.get(s, variable);
+			if(status != PRESENT) {
+				values[0] = status;
+				probs[0] = 1.;
+				return 1;
+			}
+			values[0] = DESTROYED;
+			probs[0] = pDestroy;
+			values[1] = retrieves ? RETRIEVED : PRESENT;
+			probs[1] = 1 - pDestroy;
+			return 2;
+		}
+
+		@Override
+		public int maxOutcomes() {
+			return 2;
+		}
+	}
+
+	/**
+	 * The robot is destroyed with some probability if the room it enters is on fire.
+	 */
+	protected static class FireEffect implements VariableEffect {
+
+		protected final FactoredStateSpace space;
+		protected final int robot;
+		protected final int fire;
+		protected final double pDie;
+
+		public FireEffect(FactoredStateSpace space, int robot, int fire, double pDie) {
+			this.space = space;
+			this.robot = robot;
+			this.fire = fire;
+			this.pDie = pDie;
+		}
+
+		@Override
+		public int getVariable() {
+			return robot;
+		}
+
+		@Override
+		public int getDistribution(long s, int[] values, double[] probs) {
+			if(space.get(s, fire) == 0 || space.get(s, robot) == 1) {
+				values[0] = space.get(s, robot);
+				probs[0] = 1.;
+				return 1;
+			}
+			values[0] = 1;
+			probs[0] = pDie;
+			values[1] = 0;
+			probs[1] = 1 - pDie;
+			return 2;
+		}
+
+		@Override
+		public int maxOutcomes() {
+			return 2;
+		}
+	}
+
+	// --- REWARD, TERMINATION AND OBSERVATIONS ---
+
+	protected class RF implements FactoredPOMDP.RewardFunction {
+
+		protected final FactoredStateSpace space;
+
+		public RF(FactoredStateSpace space) {
+			this.space = space;
+		}
+
+		@Override
+		public double reward(long s, int action, long sprime) {
+			double total = 0.;
+			boolean shortGrab = action < askAction() && action % 2 == 0;
+			for(int k = 0; k < numObjects; k++) {
+				int before = space.get(s, objectVariable(k));
+				int after = space.get(sprime, objectVariable(k));
+				if(before == PRESENT && after == DESTROYED) {
+					total += params.objectDestroyedReward;
+				}
+				else if(before == PRESENT && after == RETRIEVED) {
+					total += shortGrab ? params.shortGrabRetrievedReward : params.longGrabRetrievedReward;
+				}
+			}
+			if(space.get(s, robotVariable()) == 0 && space.get(sprime, robotVariable()) == 1) {
+				total += params.robotDestroyedReward;
+				total += hypothesisWeights[space.get(sprime, hypothesisVariable())] * params.valuableRobotDestroyedReward;
+			}
+			return total;
+		}
+	}
+
+	protected class TF implements FactoredPOMDP.TerminalFunction {
+
+		protected final FactoredStateSpace space;
+
+		public TF(FactoredStateSpace space) {
+			this.space = space;
+		}
+
+		@Override
+		public boolean isTerminal(long s) {
+			if(space.get(s, robotVariable()) == 1) {
+				return true;
+			}
+			for(int k = 0; k < numObjects; k++) {
+				if(space.get(s, objectVariable(k)) == PRESENT) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	protected class Observations implements FactoredPOMDP.ObservationModel {
+
+		protected final FactoredStateSpace space;
+		protected final long hypothesisMask;
+
+		public Observations(FactoredStateSpace space) {
+			this.space = space;
+			this.hypothesisMask = space.getMask(hypothesisVariable());
+		}
+
+		@Override
+		public int getDistribution(long sprime, int action, long[] observations, double[] probs) {
+			long visible = sprime & ~hypothesisMask;
+			if(action != askAction()) {
+				observations[0] = visible;
+				probs[0] = 1.;
+				return 1;
+			}
+			int truth = space.get(sprime, hypothesisVariable());
+			int n = 0;
+			for(int h = 0; h < hypothesisWeights.length; h++) {
+				double p = h == truth ? answerAccuracy : (1 - answerAccuracy) / (hypothesisWeights.length - 1);
+				if(p > 0.) {
+					observations[n] = space.set(visible, hypothesisVariable(), h) | ANSWERFLAG;
+					probs[n++] = p;
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public double getProbability(long observation, long sprime, int action) {
+			long visible = sprime & ~hypothesisMask;
+			if(action != askAction()) {
+				return observation == visible ? 1. : 0.;
+			}
+			if((observation & ANSWERFLAG) == 0 || ((observation & ~ANSWERFLAG) & ~hypothesisMask) != visible) {
+				return 0.;
+			}
+			int answer = space.get(observation & ~ANSWERFLAG, hypothesisVariable());
+			if(answer >= hypothesisWeights.length) {
+				return 0.;
+			}
+			return answer == space.get(sprime, hypothesisVariable()) ? answerAccuracy : (1 - answerAccuracy) / (hypothesisWeights.length - 1);
+		}
+
+		@Override
+		public int maxObservations() {
+			return hypothesisWeights.length;
+		}
+	}
+
+	public static void main(String[] args) {
+
+		// Ten objects in three rooms, two of them on fire: about 2^21.4 joint assignments in 26 bits.
+		int[] rooms = new int[]{0, 0, 0, 0, 1, 1, 1, 2, 2, 2};
+		FactoredBurningRoom fbr = new FactoredBurningRoom(rooms, new double[]{0., 0.5, 1.}, BurningRoomParameters.DEFAULT);
+		fbr.setAnswerAccuracy(0.9);
+		FactoredPOMDP model = fbr.generateModel();
+		FactoredStateSpace space = model.getStateSpace();
+		System.out.println("log2 |S| = " + space.log2NumStates() + ", " + model.numActions() + " actions");
+
+		boolean[] onFire = new boolean[]{true, false, true};
+		SparseFactoredBelief b = fbr.getInitialBelief(space, onFire, new double[]{1 / 3., 1 / 3., 1 / 3.});
+
+		FactoredForwardSearch search = new FactoredForwardSearch(model, 1., 2);
+		double[] qs = search.qs(b);
+		for(int a = 0; a < qs.length; a++) {
+			System.out.println(qs[a] + ": " + model.getAction(a).getName());
+		}
+		System.out.println("nodes: " + search.getNodesExpanded() + ", best: " + model.getAction(search.bestAction(b)).getName());
+
+		// POMCP looks one step further within a fixed time budget, using only the samplers.
+		List<Long> particles = new ArrayList<Long>();
+		for(int i = 0; i < 1000; i++) {
+			double u = RandomStreams.nextDouble();
+			int j = 0;
+			double sum = b.getProbability(0);
+			while(sum <= u && j < b.supportSize() - 1) {
+				sum += b.getProbability(++j);
+			}
+			particles.add(b.getState(j));
+		}
+		POMCP<Long> pomcp = new POMCP<Long>(new FactoredGenerativeModel(model), 1., 3, 40.);
+		pomcp.setIterationBudget(-1);
+		pomcp.setTimeBudget(200000000L);
+		pomcp.setBelief(particles);
+		int a = pomcp.selectAction();
+		System.out.println("POMCP (" + pomcp.getLastSimulations() + " simulations), best: " + model.getAction(a).getName());
+	}
+
+}
@@ -0,0 +1,439 @@
+package burningroom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.objects.MutableObjectInstance;
+import burlap.oomdp.core.objects.ObjectInstance;
+import burlap.oomdp.core.states.MutableState;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.statehashing.SimpleHashableStateFactory;
+import sampling.PackedActionModel;
+import sampling.RandomStreams;
+import tabular.DenseTabularPOMDP;
+import tabular.StateCodec;
+import tabular.TabularModelCompiler;
+
+/**
+ * Compact form of the {@link BurningRoom} domain. The five boolean attributes of the
+ * {@link BurningRoom#CLASSSTATE} object are packed into the low bits of an int, and the
+ * transition, reward, terminal and observation functions below mirror
+ * {@link BurningRoom.ShortGrab}, {@link BurningRoom.LongGrab}, {@link BurningRoom.AskAction},
+ * {@link BurningRoom.BurningRoomRF}, {@link BurningRoom.BurningRoomTF} and {@link BurningRoom.BurningRoomOF}
+ * while working directly on packed states, so none of them allocate.
+ * <p>
+ * Actions and observations are identified by the index they have in the OO-MDP domain:
+ * actions in the order {@link BurningRoom#generateDomain()} creates them and observations
+ * in the order {@link BurningRoom.BurningRoomOF#getAllPossibleObservations()} lists them.
+ */
+public final class PackedBurningRoom {
+
+	// State bits.
+	public static final int ONFIRE = 1;
+	public static final int ROBOTDESTROYED = 1 << 1;
+	public static final int OBJECTDESTROYED = 1 << 2;
+	public static final int OBJECTRETRIEVED = 1 << 3;
+	public static final int ROBOTVALUABLE = 1 << 4;
+
+	public static final int NUMSTATES = 1 << 5;
+
+	// Action ids.
+	public static final int LONGGRAB = 0;
+	public static final int SHORTGRAB = 1;
+	public static final int ASK = 2;
+
+	public static final int NUMACTIONS = 3;
+
+	// Observation ids.
+	public static final int OBSNULL = 0;
+	public static final int OBSVALUABLE = 1;
+	public static final int OBSNOTVALUABLE = 2;
+
+	public static final int NUMOBSERVATIONS = 3;
+
+	// Most successors any action can produce.
+	public static final int MAXSUCCESSORS = 4;
+
+	private PackedBurningRoom() {
+		// Static helpers only.
+	}
+
+	/**
+	 * Packed ints as the {@link StateCodec} of BurningRoom states, e.g. for enumeration snapshots.
+	 */
+	public static final StateCodec CODEC = new StateCodec() {
+
+		@Override
+		public String getName() {
+			return "PackedBurningRoom/1";
+		}
+
+		@Override
+		public int encode(State s) {
+			return pack(s);
+		}
+
+		@Override
+		public State decode(Domain domain, int code) {
+			return unpack(domain, code);
+		}
+	};
+
+	// --- CONVERSION ---
+	public static int pack(State s) {
+		ObjectInstance o = s.getFirstObjectOfClass(BurningRoom.CLASSSTATE);
+		int packed = 0;
+		if(o.getBooleanValForAttribute(BurningRoom.ATTONFIRE)) {
+			packed |= ONFIRE;
+		}
+		if(o.getBooleanValForAttribute(BurningRoom.ATTROBOTDESTROYED)) {
+			packed |= ROBOTDESTROYED;
+		}
+		if(o.getBooleanValForAttribute(BurningRoom.ATTOBJECTDESTROYED)) {
+			packed |= OBJECTDESTROYED;
+		}
+		if(o.getBooleanValForAttribute(BurningRoom.ATTOBJECTRETRIEVED)) {
+			packed |= OBJECTRETRIEVED;
+		}
+		if(o.getBooleanValForAttribute(BurningRoom.ATTISROBOTVALUABLE)) {
+			packed |= ROBOTVALUABLE;
+		}
+		return packed;
+	}
+
+	public static State unpack(Domain domain, int packed) {
+		State s = new MutableState();
+		ObjectInstance o = new MutableObjectInstance(domain.getObjectClass(BurningRoom.CLASSSTATE), "state");
+
+		o.setValue(BurningRoom.ATTISROBOTVALUABLE, is(packed, ROBOTVALUABLE));
+		o.setValue(BurningRoom.ATTONFIRE, is(packed, ONFIRE));
+		o.setValue(BurningRoom.ATTROBOTDESTROYED, is(packed, ROBOTDESTROYED));
+		o.setValue(BurningRoom.ATTOBJECTDESTROYED, is(packed, OBJECTDESTROYED));
+		o.setValue(BurningRoom.ATTOBJECTRETRIEVED, is(packed, OBJECTRETRIEVED));
+
+		s.addObject(o);
+		return s;
+	}
+
+	/**
+	 * Packed equivalent of {@link BurningRoom#getMDPState(Domain, boolean, boolean)}.
+	 */
+	public static int getMDPState(boolean isRoboValuable, boolean isOnFire) {
+		int packed = 0;
+		if(isRoboValuable) {
+			packed |= ROBOTVALUABLE;
+		}
+		if(isOnFire) {
+			packed |= ONFIRE;
+		}
+		return packed;
+	}
+
+	public static boolean is(int packed, int bit) {
+		return (packed & bit) != 0;
+	}
+
+	public static int actionId(String actionName) {
+		if(actionName.equals(BurningRoom.ACTIONLONGGRAB)) {
+			return LONGGRAB;
+		}
+		if(actionName.equals(BurningRoom.ACTIONSHORTGRAB)) {
+			return SHORTGRAB;
+		}
+		if(actionName.equals(BurningRoom.ACTIONASK)) {
+			return ASK;
+		}
+		throw new IllegalArgumentException("Unknown BurningRoom action: " + actionName);
+	}
+
+	public static int observationId(State observation) {
+		if(observation.numTotalObjects() == 0) {
+			return OBSNULL;
+		}
+		boolean answer = observation.getFirstObjectOfClass(BurningRoom.CLASSOBSANSWER).getBooleanValForAttribute(BurningRoom.ATTROBOTVALUABLEANSWER);
+		return answer ? OBSVALUABLE : OBSNOTVALUABLE;
+	}
+
+	// --- TRANSITIONS ---
+
+	/**
+	 * Writes the successors of (s, action) into the given arrays, in the same order the
+	 * corresponding {@link burlap.oomdp.singleagent.FullActionModel} lists them, and returns how many
+	 * were written. Both arrays must hold at least {@link #MAXSUCCESSORS} entries.
+	 */
+	public static int getTransitions(BurningRoomParameters params, int s, int action, int[] successors, double[] probs) {
+		switch(action) {
+			case SHORTGRAB:
+				return shortGrab(params, s, successors, probs);
+			case LONGGRAB:
+				return longGrab(params, s, successors, probs);
+			case ASK:
+				return ask(params, s, successors, probs);
+			default:
+				throw new IllegalArgumentException("Unknown BurningRoom action id: " + action);
+		}
+	}
+
+	public static int getTransitions(int s, int action, int[] successors, double[] probs) {
+		return getTransitions(BurningRoomParameters.DEFAULT, s, action, successors, probs);
+	}
+
+	private static int shortGrab(BurningRoomParameters params, int s, int[] successors, double[] probs) {
+		double pDestroy = params.probOfDestroyingObjectShortGrab;
+		int base = s & ~(ROBOTDESTROYED | OBJECTDESTROYED | OBJECTRETRIEVED);
+		int n = 0;
+
+		double pRobotSafe = 1.;
+
+		// If the room is on fire, need to consider probability that the robot dies.
+		if(is(s, ONFIRE)) {
+			double pDie = params.probOfRobotDyingInFire;
+			successors[n] = base | ROBOTDESTROYED | OBJECTDESTROYED;
+			probs[n++] = pDestroy * pDie;
+			successors[n] = base | ROBOTDESTROYED | OBJECTRETRIEVED;
+			probs[n++] = (1 - pDestroy) * pDie;
+			pRobotSafe = 1 - pDie;
+		}
+
+		successors[n] = base | OBJECTDESTROYED;
+		probs[n++] = pDestroy * pRobotSafe;
+		successors[n] = base | OBJECTRETRIEVED;
+		probs[n++] = (1 - pDestroy) * pRobotSafe;
+
+		return n;
+	}
+
+	private static int longGrab(BurningRoomParameters params, int s, int[] successors, double[] probs) {
+		double pDestroy = params.probOfDestroyingObjectLongGrab;
+		int base = s & ~(OBJECTDESTROYED | OBJECTRETRIEVED);
+
+		successors[0] = base | OBJECTDESTROYED;
+		probs[0] = pDestroy;
+		successors[1] = base | OBJECTRETRIEVED;
+		probs[1] = 1 - pDestroy;
+
+		return 2;
+	}
+
+	private static int ask(BurningRoomParameters params, int s, int[] successors, double[] probs) {
+		double pDestroy = params.probOfDestroyingObjectAsk;
+
+		successors[0] = s;
+		probs[0] = 1 - pDestroy;
+		successors[1] = s | OBJECTDESTROYED;
+		probs[1] = pDestroy;
+
+		return 2;
+	}
+
+	/**
+	 * Samples a successor of (s, action) given a uniform draw in [0, 1).
+	 */
+	public static int sampleTransition(BurningRoomParameters params, int s, int action, double uniform, int[] successors, double[] probs) {
+		int n = getTransitions(params, s, action, successors, probs);
+		double sum = 0.;
+		for(int i = 0; i < n; i++) {
+			sum += probs[i];
+			if(uniform < sum) {
+				return successors[i];
+			}
+		}
+		return successors[n - 1];
+	}
+
+	/**
+	 * Samples a successor of (s, action) from {@link RandomStreams} with the same draws, in the same order, as
+	 * {@link BurningRoom.ShortGrab}, {@link BurningRoom.LongGrab} and {@link BurningRoom.AskAction}, so a seeded
+	 * simulation follows the same trajectory on packed and on OO-MDP states.
+	 */
+	public static int sample(BurningRoomParameters params, int s, int action) {
+		switch(action) {
+			case SHORTGRAB:
+				if(is(s, ONFIRE)) {
+					s = RandomStreams.nextDouble() < params.probOfRobotDyingInFire ? s | ROBOTDESTROYED : s & ~ROBOTDESTROYED;
+				}
+				return RandomStreams.nextDouble() < params.probOfDestroyingObjectShortGrab ? s | OBJECTDESTROYED : s | OBJECTRETRIEVED;
+			case LONGGRAB:
+				return RandomStreams.nextDouble() < params.probOfDestroyingObjectLongGrab ? s | OBJECTDESTROYED : s | OBJECTRETRIEVED;
+			case ASK:
+				return RandomStreams.nextDouble() < params.probOfDestroyingObjectAsk ? s | OBJECTDESTROYED : s;
+			default:
+				throw new IllegalArgumentException("Unknown BurningRoom action id: " + action);
+		}
+	}
+
+	/**
+	 * The dynamics of one action as a {@link PackedActionModel}, for {@link sampling.PooledAction}s.
+	 */
+	public static PackedActionModel actionModel(final BurningRoomParameters params, final int action) {
+		return new PackedActionModel() {
+
+			@Override
+			public int sample(int s) {
+				return PackedBurningRoom.sample(params, s, action);
+			}
+
+			@Override
+			public int getTransitions(int s, int[] successors, double[] probs) {
+				return PackedBurningRoom.getTransitions(params, s, action, successors, probs);
+			}
+
+			@Override
+			public int maxSuccessors() {
+				return MAXSUCCESSORS;
+			}
+		};
+	}
+
+	// --- REWARD AND TERMINATION ---
+	public static double reward(int s, int action, int sprime) {
+		return reward(BurningRoomParameters.DEFAULT, s, action, sprime);
+	}
+
+	public static double reward(BurningRoomParameters params, int s, int action, int sprime) {
+
+		// Pseudo-terminal state (return 0 reward indefinitely).
+		if(isTerminal(s)) {
+			return 0;
+		}
+
+		double total = 0.;
+		if(is(sprime, OBJECTDESTROYED)) {
+			total += params.objectDestroyedReward;
+		}
+
+		if(is(sprime, ROBOTDESTROYED)) {
+			total += params.robotDestroyedReward;
+			if(is(sprime, ROBOTVALUABLE)) {
+				total += params.valuableRobotDestroyedReward;
+			}
+		}
+
+		if(is(sprime, OBJECTRETRIEVED) && action == SHORTGRAB) {
+			total += params.shortGrabRetrievedReward;
+		}
+		else if(is(sprime, OBJECTRETRIEVED) && action == LONGGRAB) {
+			total += params.longGrabRetrievedReward;
+		}
+
+		return total;
+	}
+
+	public static boolean isTerminal(int s) {
+		return (s & (OBJECTRETRIEVED | OBJECTDESTROYED)) != 0;
+	}
+
+	// --- OBSERVATIONS ---
+
+	/**
+	 * Packed equivalent of {@link BurningRoom.BurningRoomOF#getObservationProbability}.
+	 */
+	public static double getObservationProbability(int observation, int s, int action) {
+
+		// If the agent asked a question.
+		if(action == ASK) {
+			if(observation == OBSNULL) {
+				return 0.;
+			}
+			boolean answerOb = observation == OBSVALUABLE;
+			return answerOb == is(s, ROBOTVALUABLE) ? 1. : 0.;
+		}
+
+		// Null observation has Pr = 1 for all actions != ASK.
+		return observation == OBSNULL ? 1. : 0.;
+	}
+
+	/**
+	 * Packed equivalent of {@link BurningRoom.BurningRoomOF#getObservationProbabilities}; the
+	 * observation function is deterministic so this returns the single observation with Pr = 1.
+	 */
+	public static int getObservation(int s, int action) {
+		if(action != ASK || is(s, ROBOTDESTROYED) || is(s, OBJECTRETRIEVED)) {
+			return OBSNULL;
+		}
+		return is(s, ROBOTVALUABLE) ? OBSVALUABLE : OBSNOTVALUABLE;
+	}
+
+	// --- COMPILATION ---
+
+	/**
+	 * Compiles the dilemma under the given parameters into a {@link DenseTabularPOMDP} that uses the state,
+	 * action and observation ids of baseDomain, a domain generated by {@link BurningRoom}. Nothing is
+	 * re-enumerated and no OO-MDP states are created, which makes this much cheaper than generating and compiling
+	 * a new domain per parameter setting.
+	 * <p>
+	 * A risk probability of 0 or 1 prunes successors, so baseDomain must be enumerated with parameters whose
+	 * probabilities are all strictly between 0 and 1, such as {@link BurningRoomParameters#ENUMERATION}; then its
+	 * states include those reachable under any parameters. Otherwise compiling throws an IllegalStateException
+	 * when params reach a state the enumeration is missing.
+	 */
+	public static DenseTabularPOMDP compile(BurningRoomParameters params, PODomain baseDomain) {
+
+		StateEnumerator senum = baseDomain.getStateEnumerator();
+		int nS = senum.numStatesEnumerated();
+		int[] packedOf = new int[nS];
+		int[] idOf = new int[NUMSTATES];
+		Arrays.fill(idOf, -1);
+		for(int s = 0; s < nS; s++) {
+			packedOf[s] = pack(senum.getStateForEnumerationId(s));
+			idOf[packedOf[s]] = s;
+		}
+
+		List<GroundedAction> actions = Action.getAllApplicableGroundedActionsFromActionList(baseDomain.getActions(), senum.getStateForEnumerationId(0));
+		int nA = actions.size();
+		int[] actionIds = new int[nA];
+		for(int a = 0; a < nA; a++) {
+			actionIds[a] = actionId(actions.get(a).actionName());
+		}
+
+		List<State> observations = new ArrayList<State>(baseDomain.getObservationFunction().getAllPossibleObservations());
+		int nO = observations.size();
+		int[] observationIds = new int[nO];
+		for(int o = 0; o < nO; o++) {
+			observationIds[o] = observationId(observations.get(o));
+		}
+
+		double[] T = new double[nS * nA * nS];
+		double[] R = new double[nS * nA * nS];
+		double[] O = new double[nS * nA * nO];
+		boolean[] terminal = new boolean[nS];
+
+		int[] successors = new int[MAXSUCCESSORS];
+		double[] probs = new double[MAXSUCCESSORS];
+		for(int s = 0; s < nS; s++) {
+			terminal[s] = isTerminal(packedOf[s]);
+			for(int a = 0; a < nA; a++) {
+				int row = (s * nA + a) * nS;
+				int n = getTransitions(params, packedOf[s], actionIds[a], successors, probs);
+				for(int i = 0; i < n; i++) {
+					int sp = idOf[successors[i]];
+					if(sp == -1) {
+						throw new IllegalStateException("The base domain's enumeration is missing a reachable state; enumerate it with risk probabilities in (0, 1).");
+					}
+					T[row + sp] += probs[i];
+					R[row + sp] = reward(params, packedOf[s], actionIds[a], successors[i]);
+				}
+			}
+		}
+
+		for(int sp = 0; sp < nS; sp++) {
+			for(int a = 0; a < nA; a++) {
+				int row = (sp * nA + a) * nO;
+				for(int o = 0; o < nO; o++) {
+					O[row + o] = getObservationProbability(observationIds[o], packedOf[sp], actionIds[a]);
+				}
+			}
+		}
+
+		SimpleHashableStateFactory hashing = new SimpleHashableStateFactory();
+		return new DenseTabularPOMDP(nS, nA, nO, T, R, O, terminal, senum, actions, observations, hashing,
+				TabularModelCompiler.indexObservations(observations, hashing));
+	}
+
+}
@@ -16,6 +16,7 @@ import burlap.oomdp.core.objects.MutableObjectInstance;
 import burlap.oomdp.core.objects.ObjectInstance;
 import burlap.oomdp.core.states.MutableState;
 import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
 import burlap.oomdp.singleagent.GroundedAction;
 import burlap.oomdp.singleagent.RewardFunction;
 import burlap.oomdp.singleagent.common.NullAction;
@@ -28,8 +29,21 @@ import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
 import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.HashableTabularBeliefStateFactory;
 import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
 import burlap.oomdp.statehashing.SimpleHashableStateFactory;
-
+import metrics.Instrumentation;
+import metrics.InstrumentedObservationFunction;
+import metrics.MetricsRegistry;
+import sampling.CachedTransitionsAction;
+import sampling.PooledAction;
+import sampling.StatePool;
+import tabular.EnumerationSnapshot;
+import tabular.PerfectHashableStateFactory;
+import tabular.TabularModelCompiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -48,6 +62,81 @@ public class CakeDeath implements DomainGenerator {
 	public static final String ACTIONCAKE = "bakeCake";
 	public static final String ACTIONDEATH = "killPeople";
 
+	// Registry the generated domains report to, or null.
+	protected MetricsRegistry metrics;
+
+	// Enumeration to restore instead of searching for reachable states, or null.
+	protected EnumerationSnapshot snapshot;
+
+	// Whether generated domains step between pooled, shared states.
+	protected boolean pooledStates;
+
+	// Most transition distributions each action of generated domains caches, or 0 for no cache.
+	protected int transitionCacheSize;
+
+	// Whether generated domains hash their enumerated states by id.
+	protected boolean perfectHashing;
+
+	/**
+	 * Domains generated after this call time their actions and observation function in the given registry;
+	 * null turns instrumentation off again.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Domains generated after this call take their state enumeration from the snapshot, which must have been
+	 * written by {@link #writeEnumerationSnapshot}; null enumerates states again.
+	 */
+	public void setEnumerationSnapshot(EnumerationSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * With pooledStates, domains generated after this call step between the shared states of a {@link StatePool}
+	 * instead of copying states; states the domain returns must then not be modified.
+	 */
+	public void setPooledStates(boolean pooledStates) {
+		this.pooledStates = pooledStates;
+	}
+
+	/**
+	 * With a positive size, domains generated after this call wrap each action in a {@link CachedTransitionsAction}
+	 * that keeps up to that many transition distributions, so planners that enumerate the same transitions
+	 * repeatedly reuse the successor states of each distribution instead of rebuilding them; 0 turns the cache
+	 * off again.
+	 */
+	public void setTransitionCacheSize(int transitionCacheSize) {
+		this.transitionCacheSize = transitionCacheSize;
+	}
+
+	/**
+	 * With perfectHashing, the state enumerators of domains generated after this call hash states with a
+	 * {@link PerfectHashableStateFactory}, which looks enumerated states up by id instead of comparing their
+	 * objects and attributes. Ids are the same in both modes.
+	 */
+	public void setPerfectHashing(boolean perfectHashing) {
+		this.perfectHashing = perfectHashing;
+	}
+
+	/**
+	 * Identifies the domain definition in enumeration snapshots.
+	 */
+	public String getDefinition() {
+		return "CakeDeath";
+	}
+
+	/**
+	 * Writes the enumerated states of a freshly generated domain, and with includeModel its compiled tables,
+	 * to a snapshot file that {@link EnumerationSnapshot#load(File)} can map back in.
+	 */
+	public void writeEnumerationSnapshot(File file, boolean includeModel) throws IOException {
+		PODomain domain = (PODomain)generateDomain();
+		EnumerationSnapshot.write(file, domain, PackedCakeDeath.CODEC, getDefinition(),
+				includeModel ? TabularModelCompiler.compile(domain, new CakeDeathRF(), new CakeDeathTF()) : null);
+	}
+
 
 	@Override
 	public Domain generateDomain() {
@@ -69,21 +158,55 @@ public class CakeDeath implements DomainGenerator {
 		ObjectClass classObAnser = new ObjectClass(domain, CLASSOBSANSWER);
 		classObAnser.addAttribute(attMAnswer);
 
-		new FinalDecision(ACTIONCAKE, domain);
-		new FinalDecision(ACTIONDEATH, domain);
-		new NullAction(ACTIONASKMORAL, domain);
+		Domain instrumentedDomain = Instrumentation.actionDomain(domain, metrics);
+		Domain actionDomain = transitionCacheSize > 0 ? new PODomain() : instrumentedDomain;
+		if(pooledStates) {
+			StatePool pool = new StatePool(domain, PackedCakeDeath.CODEC, PackedCakeDeath.NUMSTATES);
+			new PooledAction(ACTIONCAKE, actionDomain, pool, PackedCakeDeath.actionModel(PackedCakeDeath.CAKE));
+			new PooledAction(ACTIONDEATH, actionDomain, pool, PackedCakeDeath.actionModel(PackedCakeDeath.KILL));
+			new PooledAction(ACTIONASKMORAL, actionDomain, pool, PackedCakeDeath.actionModel(PackedCakeDeath.ASKMORAL));
+		}
+		else {
+			new FinalDecision(ACTIONCAKE, actionDomain);
+			new FinalDecision(ACTIONDEATH, actionDomain);
+			new NullAction(ACTIONASKMORAL, actionDomain);
+		}
+		if(transitionCacheSize > 0) {
+			CachedTransitionsAction.cacheActions(actionDomain, instrumentedDomain, new SimpleHashableStateFactory(), transitionCacheSize);
+		}
+		Instrumentation.instrumentActions(instrumentedDomain, domain, metrics);
 
 		new CakeDeathOF(domain);
+		if(metrics != null) {
+			new InstrumentedObservationFunction(domain, metrics);
+		}
+
+		if(snapshot != null) {
+			snapshot.validate(domain, PackedCakeDeath.CODEC, getDefinition());
+			domain.setStateEnumerator(rehash(domain, snapshot.getStateEnumerator(domain, PackedCakeDeath.CODEC, new SimpleHashableStateFactory())));
+			return domain;
+		}
 
 		StateEnumerator senum = new StateEnumerator(domain, new SimpleHashableStateFactory());
 		senum.findReachableStatesAndEnumerate(this.getMDPState(domain, "cake", false));
 		senum.findReachableStatesAndEnumerate(this.getMDPState(domain, "death", false));
 
-		domain.setStateEnumerator(senum);
+		domain.setStateEnumerator(rehash(domain, senum));
 
 		return domain;
 	}
 
+	/**
+	 * senum itself, or with perfect hashing an enumerator of the same states under the same ids that hashes them
+	 * by id.
+	 */
+	protected StateEnumerator rehash(PODomain domain, StateEnumerator senum) {
+		if(!perfectHashing) {
+			return senum;
+		}
+		return PerfectHashableStateFactory.fromEnumerator(domain, senum, PackedCakeDeath.CODEC, new SimpleHashableStateFactory()).newStateEnumerator(domain);
+	}
+
 	public static State getMDPState(Domain domain, String trueUtil, boolean terminal){
 		State s = new MutableState();
 		ObjectInstance o = new MutableObjectInstance(domain.getObjectClass(CLASSSTATE), "state");
@@ -122,72 +245,97 @@ public class CakeDeath implements DomainGenerator {
 
 	public static class CakeDeathOF extends ObservationFunction{
 
+		//interned observations, indexed by PackedCakeDeath observation id; shared, so they must not be modified
+		protected final State[] observations;
+		protected final List<State> allObservations;
+		protected final List<List<ObservationProbability>> certainObservations;
+
+		//domain actions, indexed by PackedCakeDeath action id
+		protected final Action[] actions;
 
 		public CakeDeathOF(PODomain domain) {
 			super(domain);
-		}
 
-		@Override
-		public boolean canEnumerateObservations() {
-			return true;
-		}
+			this.observations = new State[PackedCakeDeath.NUMOBSERVATIONS];
+			this.observations[PackedCakeDeath.OBSNULL] = new MutableState();
+			this.observations[PackedCakeDeath.OBSCAKE] = CakeDeath.getAnswerObservation(domain, "cake");
+			this.observations[PackedCakeDeath.OBSDEATH] = CakeDeath.getAnswerObservation(domain, "death");
+			this.allObservations = Collections.unmodifiableList(Arrays.asList(this.observations));
 
-		@Override
-		public List<State> getAllPossibleObservations() {
-			List<State> obs = Arrays.asList(new MutableState(), CakeDeath.getAnswerObservation(this.domain, "cake"), CakeDeath.getAnswerObservation(this.domain, "death"));
-			return obs;
+			//the observation function is deterministic, so every distribution puts Pr = 1 on one observation
+			List<List<ObservationProbability>> certain = new ArrayList<List<ObservationProbability>>(this.observations.length);
+			for(State observation : this.observations){
+				certain.add(Collections.singletonList(new ObservationProbability(observation, 1.)));
+			}
+			this.certainObservations = certain;
+
+			this.actions = new Action[PackedCakeDeath.NUMACTIONS];
+			this.actions[PackedCakeDeath.CAKE] = domain.getAction(ACTIONCAKE);
+			this.actions[PackedCakeDeath.KILL] = domain.getAction(ACTIONDEATH);
+			this.actions[PackedCakeDeath.ASKMORAL] = domain.getAction(ACTIONASKMORAL);
 		}
 
-		@Override
-		public double getObservationProbability(State observation, State state, GroundedAction action) {
+		public State getObservation(int observationId) {
+			return observations[observationId];
+		}
 
-			//terminated?
-			if(state.getFirstObjectOfClass(CLASSSTATE).getBooleanValForAttribute(ATTTERMINAL)){
-				if(observation.numTotalObjects() == 0){
-					return 1.;
+		public int observationId(State observation) {
+			for(int i = 0; i < observations.length; i++){
+				if(observations[i] == observation){
+					return i;
 				}
-				return 0.;
 			}
+			//not interned; compare by value
+			return PackedCakeDeath.observationId(observation);
+		}
 
-
-			if(action.actionName().equals(ACTIONCAKE) || action.actionName().equals(ACTIONDEATH)){
-				if(observation.numTotalObjects() == 0){
-					return 1.;
-				}
-				else{
-					return 0.;
-				}
-			}
-			else{
-				if(observation.numTotalObjects() == 0){
-					return 0.;
-				}
-				String answerOb = observation.getFirstObjectOfClass(CLASSOBSANSWER).getStringValForAttribute(ATTMANSWER);
-				String trueUtil = state.getFirstObjectOfClass(CLASSSTATE).getStringValForAttribute(ATTUILITY);
-				if(answerOb.equals(trueUtil)){
-					return 1.;
+		public int actionId(GroundedAction action) {
+			for(int i = 0; i < actions.length; i++){
+				if(actions[i] == action.action){
+					return i;
 				}
-				return 0.;
 			}
+			return PackedCakeDeath.actionId(action.actionName());
+		}
 
+		/**
+		 * Id-based fast path: Pr(observation | packed state, action).
+		 */
+		public double getObservationProbability(int observation, int state, int action) {
+			return PackedCakeDeath.getObservationProbability(observation, state, action);
+		}
+
+		/**
+		 * Id-based fast path: the id of the observation a packed state produces after action.
+		 */
+		public int getObservation(int state, int action) {
+			return PackedCakeDeath.getObservation(state, action);
 		}
 
 		@Override
-		public List<ObservationProbability> getObservationProbabilities(State state, GroundedAction action) {
+		public boolean canEnumerateObservations() {
+			return true;
+		}
 
-			if(action.actionName().equals(ACTIONCAKE) || action.actionName().equals(ACTIONDEATH) || state.getFirstObjectOfClass(CLASSSTATE).getBooleanValForAttribute(ATTTERMINAL)){
-				return Arrays.asList(new ObservationProbability(new MutableState(), 1.));
-			}
+		@Override
+		public List<State> getAllPossibleObservations() {
+			return allObservations;
+		}
 
-			//otherwise they asked a question
-			String obsVal = state.getFirstObjectOfClass(CLASSSTATE).getStringValForAttribute(ATTUILITY);
-			return Arrays.asList(new ObservationProbability(CakeDeath.getAnswerObservation(domain, obsVal), 1.));
+		@Override
+		public double getObservationProbability(State observation, State state, GroundedAction action) {
+			return this.getObservationProbability(this.observationId(observation), PackedCakeDeath.pack(state), this.actionId(action));
+		}
 
+		@Override
+		public List<ObservationProbability> getObservationProbabilities(State state, GroundedAction action) {
+			return certainObservations.get(this.getObservation(PackedCakeDeath.pack(state), this.actionId(action)));
 		}
 
 		@Override
 		public State sampleObservation(State state, GroundedAction action) {
-			return this.sampleObservationByEnumeration(state, action);
+			//deterministic, so no draw is needed
+			return observations[this.getObservation(PackedCakeDeath.pack(state), this.actionId(action))];
 		}
 	}
 
@@ -0,0 +1,148 @@
+package cakedeath;
+
+import java.util.List;
+
+import burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.TransitionProbability;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.FullActionModel;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.ObservationFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.HashableTabularBeliefStateFactory;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import factored.FactoredForwardSearch;
+import factored.FactoredPOMDP;
+import solvers.AlphaVectorQFunction;
+import solvers.PointBasedValueIteration;
+import tabular.TabularModelCompiler;
+import tabular.TabularPOMDP;
+
+/**
+ * Cross-checks the cake or death solvers and model forms against each other and exits with status 1 if any
+ * check fails:
+ * <ul>
+ *     <li>the {@link PackedCakeDeath} functions against those of the OO-MDP domain on every enumerated state;</li>
+ *     <li>{@link PointBasedValueIteration} against {@link BeliefSparseSampling} at horizons 1 to 3;</li>
+ *     <li>{@link MultiHypothesisCakeDeath} with its default hypotheses against {@link BeliefSparseSampling} at
+ *     horizons 1 to 3.</li>
+ * </ul>
+ */
+public class CakeDeathChecks {
+
+	protected static final double TOLERANCE = 1e-9;
+
+	protected static int failures = 0;
+
+	public static void main(String[] args) {
+
+		CakeDeath cd = new CakeDeath();
+		PODomain domain = (PODomain)cd.generateDomain();
+		RewardFunction rf = new CakeDeath.CakeDeathRF();
+		TerminalFunction tf = new CakeDeath.CakeDeathTF();
+
+		checkPacked(domain, rf, tf);
+
+		TabularPOMDP model = TabularModelCompiler.compile(domain, rf, tf);
+		TabularBeliefState bs = new TabularBeliefState(domain);
+		bs.setBelief(CakeDeath.getMDPState(domain, "cake", false), 0.5);
+		bs.setBelief(CakeDeath.getMDPState(domain, "death", false), 0.5);
+		double[] b = bs.getBeliefVector();
+
+		MultiHypothesisCakeDeath mcd = new MultiHypothesisCakeDeath();
+		FactoredPOMDP factored = mcd.generateModel();
+
+		for(int horizon = 1; horizon <= 3; horizon++) {
+			double[] exact = sparseSamplingQs(domain, rf, model, bs, horizon);
+
+			PointBasedValueIteration pbvi = new PointBasedValueIteration(model, 1., horizon);
+			pbvi.addInitialBelief(b);
+			AlphaVectorQFunction alphaQs = pbvi.solve();
+			double[] pbviQs = new double[model.numActions()];
+			alphaQs.qs(b, pbviQs);
+			checkQs("PBVI vs sparse sampling, horizon " + horizon, model, exact, pbviQs);
+
+			double[] factoredQs = new FactoredForwardSearch(factored, 1., horizon).qs(mcd.getInitialBelief(factored, new double[]{.5, .5}));
+			double[] mapped = new double[model.numActions()];
+			for(int a = 0; a < model.numActions(); a++) {
+				mapped[a] = factoredQs[factored.actionIndex(model.getAction(a).actionName())];
+			}
+			checkQs("multi-hypothesis forward search vs sparse sampling, horizon " + horizon, model, exact, mapped);
+		}
+
+		System.out.println(failures == 0 ? "all checks passed" : failures + " check(s) failed");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Compares the packed functions with those of the OO-MDP domain on every enumerated state, through the packed
+	 * form of each state and its successors.
+	 */
+	protected static void checkPacked(PODomain domain, RewardFunction rf, TerminalFunction tf) {
+		ObservationFunction of = domain.getObservationFunction();
+		List<Action> actions = domain.getActions();
+		boolean same = true;
+		for(int i = 0; same && i < domain.getStateEnumerator().numStatesEnumerated(); i++) {
+			State s = domain.getStateEnumerator().getStateForEnumerationId(i);
+			int ps = PackedCakeDeath.pack(s);
+			same = tf.isTerminal(s) == PackedCakeDeath.isTerminal(ps);
+			for(int a = 0; same && a < actions.size(); a++) {
+				GroundedAction ga = actions.get(a).getAssociatedGroundedAction();
+				int pa = PackedCakeDeath.actionId(ga.actionName());
+
+				// The two forms may list successors in different orders, so distributions are compared by packed state.
+				double[] expected = new double[PackedCakeDeath.NUMSTATES];
+				for(TransitionProbability tp : ((FullActionModel)actions.get(a)).getTransitions(s, ga)) {
+					int psp = PackedCakeDeath.pack(tp.s);
+					expected[psp] += tp.p;
+					same = same && Math.abs(rf.reward(s, ga, tp.s) - PackedCakeDeath.reward(ps, pa, psp)) <= TOLERANCE;
+					for(State o : of.getAllPossibleObservations()) {
+						double p = PackedCakeDeath.getObservationProbability(PackedCakeDeath.observationId(o), psp, pa);
+						same = same && Math.abs(of.getObservationProbability(o, tp.s, ga) - p) <= TOLERANCE;
+					}
+				}
+				double[] actual = new double[PackedCakeDeath.NUMSTATES];
+				actual[PackedCakeDeath.transition(ps, pa)] = 1.;
+				for(int sp = 0; sp < expected.length; sp++) {
+					same = same && Math.abs(expected[sp] - actual[sp]) <= TOLERANCE;
+				}
+			}
+		}
+		check("packed vs OO-MDP functions", same);
+	}
+
+	protected static double[] sparseSamplingQs(PODomain domain, RewardFunction rf, TabularPOMDP model, TabularBeliefState bs, int horizon) {
+		BeliefSparseSampling bss = new BeliefSparseSampling(domain, rf, 1., new HashableTabularBeliefStateFactory(), horizon, -1);
+		bss.toggleDebugPrinting(false);
+		bss.getSparseSamplingPlanner().toggleDebugPrinting(false);
+		List<QValue> qs = bss.getQs(bs);
+		double[] byId = new double[model.numActions()];
+		for(QValue q : qs) {
+			byId[model.actionIndex(q.a.actionName())] = q.q;
+		}
+		return byId;
+	}
+
+	protected static void checkQs(String name, TabularPOMDP model, double[] expected, double[] actual) {
+		boolean same = true;
+		for(int a = 0; a < expected.length; a++) {
+			if(Math.abs(expected[a] - actual[a]) > TOLERANCE) {
+				same = false;
+				System.out.println("  " + model.getAction(a).actionName() + ": expected " + expected[a] + ", got " + actual[a]);
+			}
+		}
+		check(name, same);
+	}
+
+	protected static void check(String name, boolean passed) {
+		System.out.println((passed ? "ok: " : "FAILED: ") + name);
+		if(!passed) {
+			failures++;
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+package cakedeath;
+
+import burlap.behavior.policy.GreedyQPolicy;
+import burlap.behavior.singleagent.EpisodeAnalysis;
+import burlap.behavior.singleagent.pomdp.BeliefPolicyAgent;
+import burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.HashableTabularBeliefStateFactory;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import policy.PolicyCompiler;
+import policy.ThresholdPolicy;
+import solvers.AlphaVectorQFunction;
+import solvers.CachedBeliefQFunction;
+import solvers.PointBasedValueIteration;
+import tabular.TabularModelCompiler;
+import tabular.TabularPOMDP;
+
+/**
+ * Runs the cake or death example of {@link CakeDeath#main} on cached sparse sampling, then prints the Q-values
+ * of point-based value iteration for the same belief and the belief thresholds of its policy over the two moral
+ * hypotheses.
+ */
+public class CakeDeathSolvers {
+
+	public static void main(String[] args) {
+
+		CakeDeath cd = new CakeDeath();
+		PODomain domain = (PODomain)cd.generateDomain();
+		RewardFunction rf = new CakeDeath.CakeDeathRF();
+		TerminalFunction tf = new CakeDeath.CakeDeathTF();
+
+		State initialMDPState = CakeDeath.getMDPState(domain, "cake", false);
+		SimulatedPOEnvironment penv = new SimulatedPOEnvironment(domain, rf, tf, initialMDPState);
+
+		TabularBeliefState bs = new TabularBeliefState(domain);
+		bs.setBelief(CakeDeath.getMDPState(domain, "cake", false), 0.5);
+		bs.setBelief(CakeDeath.getMDPState(domain, "death", false), 0.5);
+
+		// Sparse sampling, behind a belief cache.
+		BeliefSparseSampling bss = new BeliefSparseSampling(domain, rf, 1, new HashableTabularBeliefStateFactory(), 2, -1);
+		bss.toggleDebugPrinting(false);
+		bss.getSparseSamplingPlanner().toggleDebugPrinting(false);
+		CachedBeliefQFunction cachedQs = new CachedBeliefQFunction(bss, 1e-9, 1024);
+		BeliefPolicyAgent agent = new BeliefPolicyAgent(domain, penv, new GreedyQPolicy(cachedQs));
+		agent.setBeliefState(bs);
+
+		EpisodeAnalysis ea = agent.actUntilTerminal();
+		System.out.println(ea.getActionSequenceString("\n"));
+		System.out.println("Q cache hits: " + cachedQs.getHits() + ", misses: " + cachedQs.getMisses());
+
+		System.out.println("sparse sampling:");
+		for(QValue q : bss.getQs(bs)) {
+			System.out.println(q.q + ": " + q.a.toString());
+		}
+
+		// Point-based value iteration on the compiled model, same horizon as sparse sampling.
+		TabularPOMDP model = TabularModelCompiler.compile(domain, rf, tf);
+		PointBasedValueIteration pbvi = new PointBasedValueIteration(model, 1, 2);
+		pbvi.addInitialBelief(bs.getBeliefVector());
+		AlphaVectorQFunction alphaQs = pbvi.solve();
+		System.out.println("point-based value iteration:");
+		for(QValue q : alphaQs.getQs(bs)) {
+			System.out.println(q.q + ": " + q.a.toString());
+		}
+
+		// Belief thresholds over the two moral hypotheses; no planner is needed to act on them.
+		int cakeId = model.getStateEnumerator().getEnumeratedID(CakeDeath.getMDPState(domain, "cake", false));
+		int deathId = model.getStateEnumerator().getEnumeratedID(CakeDeath.getMDPState(domain, "death", false));
+		ThresholdPolicy thresholds = PolicyCompiler.compileThresholds(alphaQs, cakeId, deathId);
+		System.out.println(thresholds);
+	}
+
+}
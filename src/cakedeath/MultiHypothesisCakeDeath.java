@@ -0,0 +1,262 @@
+package cakedeath;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import factored.FactoredAction;
+import factored.FactoredForwardSearch;
+import factored.FactoredPOMDP;
+import factored.FactoredStateSpace;
+import factored.LongDoubleMap;
+import factored.SparseFactoredBelief;
+import factored.VariableEffect;
+
+/**
+ * Generalisation of {@link CakeDeath} to K candidate moral utilities over M final decisions, with a noisy
+ * answer to the moral question that may be asked repeatedly. The hidden state is the true hypothesis; every
+ * decision ends the episode with the utility the true hypothesis gives it. Asking yields an answer naming a
+ * hypothesis: the true one with the answer accuracy, otherwise one of the others uniformly. Answers are
+ * independent, so repeated questions keep sharpening the belief.
+ * <p>
+ * The model is a {@link FactoredPOMDP} over the hypothesis and a terminal flag, and beliefs are
+ * {@link SparseFactoredBelief}s: an update touches only the hypotheses still in the support, and a perfectly
+ * accurate answer collapses the support to one hypothesis. With two hypotheses, the decisions bakeCake and
+ * killPeople, utilities {1, 0} and {0, 3} and accuracy 1, this is the original dilemma.
+ */
+public class MultiHypothesisCakeDeath {
+
+	public static final String VARHYPOTHESIS = "trueU";
+	public static final String VARTERMINAL = "terminal";
+
+	// Answer observations have this bit set and the named hypothesis in the low bits.
+	protected static final long ANSWERFLAG = 1L << 62;
+	protected static final long NULLOBSERVATION = 0L;
+
+	protected final String[] decisions;
+	protected final double[][] utilities;
+	protected double answerAccuracy = 1.;
+	protected double askReward = 0.;
+
+	/**
+	 * @param decisions names of the final decisions.
+	 * @param utilities utilities[h][m] is the reward for decision m when hypothesis h is true.
+	 */
+	public MultiHypothesisCakeDeath(String[] decisions, double[][] utilities) {
+		if(utilities.length < 2) {
+			throw new IllegalArgumentException("There must be at least two hypotheses.");
+		}
+		for(double[] u : utilities) {
+			if(u.length != decisions.length) {
+				throw new IllegalArgumentException("Every hypothesis needs a utility for each of the " + decisions.length + " decisions.");
+			}
+		}
+		this.decisions = decisions.clone();
+		this.utilities = new double[utilities.length][];
+		for(int h = 0; h < utilities.length; h++) {
+			this.utilities[h] = utilities[h].clone();
+		}
+	}
+
+	/**
+	 * The two hypotheses and decisions of {@link CakeDeath}.
+	 */
+	public MultiHypothesisCakeDeath() {
+		this(new String[]{CakeDeath.ACTIONCAKE, CakeDeath.ACTIONDEATH}, new double[][]{{1., 0.}, {0., 3.}});
+	}
+
+	/**
+	 * Probability that an answer names the true hypothesis; 1 by default. Applies to models generated afterwards.
+	 */
+	public void setAnswerAccuracy(double answerAccuracy) {
+		if(answerAccuracy < 0. || answerAccuracy > 1.) {
+			throw new IllegalArgumentException("The answer accuracy must be in [0, 1].");
+		}
+		this.answerAccuracy = answerAccuracy;
+	}
+
+	/**
+	 * Reward for asking, e.g. a small negative cost so questions are not free; 0 by default. Applies to models
+	 * generated afterwards.
+	 */
+	public void setAskReward(double askReward) {
+		this.askReward = askReward;
+	}
+
+	public int numHypotheses() {
+		return utilities.length;
+	}
+
+	public int numDecisions() {
+		return decisions.length;
+	}
+
+	// Action layout: the decisions in order, then ask.
+	public int askAction() {
+		return decisions.length;
+	}
+
+	public FactoredPOMDP generateModel() {
+
+		final FactoredStateSpace space = new FactoredStateSpace(new String[]{VARHYPOTHESIS, VARTERMINAL}, new int[]{utilities.length, 2});
+		final int hypothesis = 0;
+		final int terminal = 1;
+		// A generated model keeps the settings it was generated with.
+		final int ask = askAction();
+		final double askReward = this.askReward;
+		final double answerAccuracy = this.answerAccuracy;
+
+		List<FactoredAction> actions = new ArrayList<FactoredAction>(decisions.length + 1);
+		for(String decision : decisions) {
+			actions.add(new FactoredAction(decision, space, new SetTerminal(terminal)));
+		}
+		actions.add(new FactoredAction(CakeDeath.ACTIONASKMORAL, space));
+
+		FactoredPOMDP.RewardFunction rf = new FactoredPOMDP.RewardFunction() {
+			@Override
+			public double reward(long s, int action, long sprime) {
+				return action == ask ? askReward : utilities[space.get(s, hypothesis)][action];
+			}
+		};
+
+		FactoredPOMDP.TerminalFunction tf = new FactoredPOMDP.TerminalFunction() {
+			@Override
+			public boolean isTerminal(long s) {
+				return space.get(s, terminal) == 1;
+			}
+		};
+
+		FactoredPOMDP.ObservationModel observations = new FactoredPOMDP.ObservationModel() {
+
+			@Override
+			public int getDistribution(long sprime, int action, long[] observations, double[] probs) {
+				if(action != ask) {
+					observations[0] = NULLOBSERVATION;
+					probs[0] = 1.;
+					return 1;
+				}
+				int n = 0;
+				for(int h = 0; h < utilities.length; h++) {
+					double p = getProbability(ANSWERFLAG | h, sprime, action);
+					if(p > 0.) {
+						observations[n] = ANSWERFLAG | h;
+						probs[n++] = p;
+					}
+				}
+				return n;
+			}
+
+			@Override
+			public double getProbability(long observation, long sprime, int action) {
+				if(action != ask) {
+					return observation == NULLOBSERVATION ? 1. : 0.;
+				}
+				if((observation & ANSWERFLAG) == 0) {
+					return 0.;
+				}
+				long answer = observation & ~ANSWERFLAG;
+				if(answer >= utilities.length) {
+					return 0.;
+				}
+				return answer == space.get(sprime, hypothesis) ? answerAccuracy : (1 - answerAccuracy) / (utilities.length - 1);
+			}
+
+			@Override
+			public int maxObservations() {
+				return utilities.length;
+			}
+		};
+
+		return new FactoredPOMDP(space, actions, rf, tf, observations);
+	}
+
+	/**
+	 * Observation code of an answer naming hypothesis h.
+	 */
+	public static long answerObservation(int h) {
+		return ANSWERFLAG | h;
+	}
+
+	/**
+	 * Non-terminal belief with the given prior over hypotheses; hypotheses with prior 0 are left out of the support.
+	 */
+	public SparseFactoredBelief getInitialBelief(FactoredPOMDP model, double[] prior) {
+		if(prior.length != utilities.length) {
+			throw new IllegalArgumentException("Expected a prior over " + utilities.length + " hypotheses.");
+		}
+		LongDoubleMap mass = new LongDoubleMap(prior.length);
+		for(int h = 0; h < prior.length; h++) {
+			if(prior[h] > 0.) {
+				mass.add(model.getStateSpace().set(0L, 0, h), prior[h]);
+			}
+		}
+		return SparseFactoredBelief.fromMass(mass);
+	}
+
+	/**
+	 * Sets the terminal flag.
+	 */
+	protected static class SetTerminal implements VariableEffect {
+
+		protected final int variable;
+
+		public SetTerminal(int variable) {
+			this.variable = variable;
+		}
+
+		@Override
+		public int getVariable() {
+			return variable;
+		}
+
+		@Override
+		public int getDistribution(long s, int[] values, double[] probs) {
+			values[0] = 1;
+			probs[0] = 1.;
+			return 1;
+		}
+
+		@Override
+		public int maxOutcomes() {
+			return 1;
+		}
+	}
+
+	public static void main(String[] args) {
+
+		// 200 random moral utilities over three decisions, answers right 80% of the time, asking costs 0.05.
+		int numHypotheses = 200;
+		SplittableRandom rand = new SplittableRandom(0);
+		double[][] utilities = new double[numHypotheses][3];
+		for(double[] u : utilities) {
+			for(int m = 0; m < u.length; m++) {
+				u[m] = rand.nextDouble() * 3.;
+			}
+		}
+		MultiHypothesisCakeDeath mcd = new MultiHypothesisCakeDeath(new String[]{CakeDeath.ACTIONCAKE, CakeDeath.ACTIONDEATH, "doNothing"}, utilities);
+		mcd.setAnswerAccuracy(0.8);
+		mcd.setAskReward(-0.05);
+		FactoredPOMDP model = mcd.generateModel();
+
+		double[] prior = new double[numHypotheses];
+		for(int h = 0; h < numHypotheses; h++) {
+			prior[h] = 1. / numHypotheses;
+		}
+		SparseFactoredBelief b = mcd.getInitialBelief(model, prior);
+
+		FactoredForwardSearch search = new FactoredForwardSearch(model, 1., 2);
+		double[] qs = search.qs(b);
+		for(int a = 0; a < qs.length; a++) {
+			System.out.println(qs[a] + ": " + model.getAction(a).getName());
+		}
+		System.out.println("nodes: " + search.getNodesExpanded());
+
+		// Repeated questions with the true hypothesis 0; the posterior concentrates on it and the support shrinks.
+		for(int i = 0; i < 5; i++) {
+			int answer = rand.nextDouble() < 0.8 ? 0 : 1 + rand.nextInt(numHypotheses - 1);
+			b = model.update(b, mcd.askAction(), answerObservation(answer)).pruned(1e-6);
+			System.out.println("answer " + answer + ": Pr(h0) = " + b.marginal(model.getStateSpace(), 0, 0) + ", support " + b.supportSize());
+		}
+	}
+
+}
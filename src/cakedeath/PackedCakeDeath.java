@@ -0,0 +1,193 @@
+package cakedeath;
+
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.states.State;
+import sampling.PackedActionModel;
+import tabular.StateCodec;
+
+/**
+ * Compact form of the {@link CakeDeath} domain. The true utility and the terminal flag
+ * are packed into the low bits of an int, and the transition, reward, terminal and
+ * observation functions below mirror {@link CakeDeath.FinalDecision}, {@link CakeDeath.CakeDeathRF},
+ * {@link CakeDeath.CakeDeathTF} and {@link CakeDeath.CakeDeathOF} without allocating.
+ * <p>
+ * Actions and observations are identified by the index they have in the OO-MDP domain:
+ * actions in the order {@link CakeDeath#generateDomain()} creates them and observations
+ * in the order {@link CakeDeath.CakeDeathOF#getAllPossibleObservations()} lists them.
+ */
+public final class PackedCakeDeath {
+
+	// State bits.
+	public static final int DEATH = 1;
+	public static final int TERMINAL = 1 << 1;
+
+	public static final int NUMSTATES = 1 << 2;
+
+	// Action ids.
+	public static final int CAKE = 0;
+	public static final int KILL = 1;
+	public static final int ASKMORAL = 2;
+
+	public static final int NUMACTIONS = 3;
+
+	// Observation ids.
+	public static final int OBSNULL = 0;
+	public static final int OBSCAKE = 1;
+	public static final int OBSDEATH = 2;
+
+	public static final int NUMOBSERVATIONS = 3;
+
+	private PackedCakeDeath() {
+		// Static helpers only.
+	}
+
+	/**
+	 * Packed ints as the {@link StateCodec} of CakeDeath states, e.g. for enumeration snapshots.
+	 */
+	public static final StateCodec CODEC = new StateCodec() {
+
+		@Override
+		public String getName() {
+			return "PackedCakeDeath/1";
+		}
+
+		@Override
+		public int encode(State s) {
+			return pack(s);
+		}
+
+		@Override
+		public State decode(Domain domain, int code) {
+			return unpack(domain, code);
+		}
+	};
+
+	public static int pack(State s) {
+		int packed = 0;
+		if(s.getFirstObjectOfClass(CakeDeath.CLASSSTATE).getStringValForAttribute(CakeDeath.ATTUILITY).equals("death")){
+			packed |= DEATH;
+		}
+		if(s.getFirstObjectOfClass(CakeDeath.CLASSSTATE).getBooleanValForAttribute(CakeDeath.ATTTERMINAL)){
+			packed |= TERMINAL;
+		}
+		return packed;
+	}
+
+	public static State unpack(Domain domain, int packed) {
+		return CakeDeath.getMDPState(domain, utility(packed), isTerminal(packed));
+	}
+
+	public static int getMDPState(String trueUtil, boolean terminal) {
+		int packed = trueUtil.equals("death") ? DEATH : 0;
+		if(terminal){
+			packed |= TERMINAL;
+		}
+		return packed;
+	}
+
+	public static String utility(int packed) {
+		return (packed & DEATH) != 0 ? "death" : "cake";
+	}
+
+	public static int actionId(String actionName) {
+		if(actionName.equals(CakeDeath.ACTIONCAKE)){
+			return CAKE;
+		}
+		if(actionName.equals(CakeDeath.ACTIONDEATH)){
+			return KILL;
+		}
+		if(actionName.equals(CakeDeath.ACTIONASKMORAL)){
+			return ASKMORAL;
+		}
+		throw new IllegalArgumentException("Unknown CakeDeath action: " + actionName);
+	}
+
+	public static int observationId(State observation) {
+		if(observation.numTotalObjects() == 0){
+			return OBSNULL;
+		}
+		String answer = observation.getFirstObjectOfClass(CakeDeath.CLASSOBSANSWER).getStringValForAttribute(CakeDeath.ATTMANSWER);
+		return answer.equals("death") ? OBSDEATH : OBSCAKE;
+	}
+
+	/**
+	 * Every action in this domain is deterministic: both final decisions end the episode
+	 * and asking leaves the state unchanged.
+	 */
+	public static int transition(int s, int action) {
+		if(action == ASKMORAL){
+			return s;
+		}
+		return s | TERMINAL;
+	}
+
+	/**
+	 * The dynamics of one action as a {@link PackedActionModel}, for {@link sampling.PooledAction}s.
+	 */
+	public static PackedActionModel actionModel(final int action) {
+		return new PackedActionModel() {
+
+			@Override
+			public int sample(int s) {
+				return transition(s, action);
+			}
+
+			@Override
+			public int getTransitions(int s, int[] successors, double[] probs) {
+				successors[0] = transition(s, action);
+				probs[0] = 1.;
+				return 1;
+			}
+
+			@Override
+			public int maxSuccessors() {
+				return 1;
+			}
+		};
+	}
+
+	public static double reward(int s, int action, int sprime) {
+		if(isTerminal(s)){
+			return 0.;
+		}
+
+		boolean death = (s & DEATH) != 0;
+		if(action == CAKE){
+			if(!death){
+				return 1.;
+			}
+		}
+		else if(action == KILL){
+			if(death){
+				return 3.;
+			}
+		}
+
+		return 0;
+	}
+
+	public static boolean isTerminal(int s) {
+		return (s & TERMINAL) != 0;
+	}
+
+	public static double getObservationProbability(int observation, int s, int action) {
+
+		//terminated or a final decision: only the null observation
+		if(isTerminal(s) || action != ASKMORAL){
+			return observation == OBSNULL ? 1. : 0.;
+		}
+
+		if(observation == OBSNULL){
+			return 0.;
+		}
+		return observation == getObservation(s, action) ? 1. : 0.;
+	}
+
+	public static int getObservation(int s, int action) {
+		if(isTerminal(s) || action != ASKMORAL){
+			return OBSNULL;
+		}
+		return (s & DEATH) != 0 ? OBSDEATH : OBSCAKE;
+	}
+
+}
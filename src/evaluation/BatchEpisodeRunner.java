@@ -0,0 +1,277 @@
+package evaluation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import burlap.behavior.policy.Policy;
+import burlap.behavior.singleagent.EpisodeAnalysis;
+import burlap.behavior.singleagent.pomdp.BeliefPolicyAgent;
+import burlap.oomdp.auxiliary.StateGenerator;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
+import burlap.oomdp.singleagent.pomdp.beliefstate.BeliefState;
+import sampling.RandomStreams;
+
+/**
+ * Runs many independent {@link BeliefPolicyAgent} episodes in a {@link SimulatedPOEnvironment} in parallel
+ * and summarises their returns in an {@link EpisodeStatistics}. Episodes are split into fixed-size chunks;
+ * each chunk keeps its own statistics, and the chunks are merged in order at the end, so no episode is kept
+ * after it finishes.
+ * <p>
+ * Episode i draws all of its randomness from {@link RandomStreams#forEpisode(long, long)} with the runner's
+ * seed, so a run gives identical results for a fixed seed on any number of threads, provided the policy
+ * itself is deterministic. Policies are usually not thread safe (planners cache search trees), so each chunk
+ * gets its own policy from the {@link PolicyFactory}. The domain is shared between threads, which is safe as
+ * long as its state enumerator already contains every reachable state.
+ * <p>
+ * With an {@link OutcomeSketch}, each chunk also folds the return, initial state and outcome events of its
+ * episodes into a sketch of its own, which is merged in chunk order with the chunk's statistics, so the merged
+ * sketch does not depend on how the chunks were scheduled.
+ */
+public class BatchEpisodeRunner {
+
+	/**
+	 * Creates a policy for one chunk of episodes.
+	 */
+	public interface PolicyFactory {
+		Policy generatePolicy();
+	}
+
+	/**
+	 * Gives the agent's initial belief for an episode that starts in the given MDP state.
+	 */
+	public interface BeliefGenerator {
+		BeliefState generateBelief(State initialMDPState);
+	}
+
+	/**
+	 * Statistics of a batch together with its wall-clock time.
+	 */
+	public static class Result {
+
+		public final EpisodeStatistics statistics;
+		// Null unless the runner has an outcome sketch.
+		public final OutcomeSketch outcomes;
+		public final long elapsedNanos;
+
+		public Result(EpisodeStatistics statistics, long elapsedNanos) {
+			this(statistics, null, elapsedNanos);
+		}
+
+		public Result(EpisodeStatistics statistics, OutcomeSketch outcomes, long elapsedNanos) {
+			this.statistics = statistics;
+			this.outcomes = outcomes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public double getEpisodesPerSecond() {
+			return elapsedNanos == 0 ? 0. : statistics.getCount() / (elapsedNanos / 1e9);
+		}
+
+		@Override
+		public String toString() {
+			return statistics + ", episodes/s: " + getEpisodesPerSecond();
+		}
+	}
+
+	protected final PODomain domain;
+	protected final RewardFunction rf;
+	protected final TerminalFunction tf;
+	protected final PolicyFactory policyFactory;
+	protected final StateGenerator initialStates;
+	protected final BeliefGenerator initialBeliefs;
+
+	protected double gamma = 1.;
+	protected int maxSteps = -1;
+	protected int chunkSize = 256;
+	protected long seed = 0;
+	protected EpisodeLogRecorder episodeLog;
+	protected OutcomeSketch outcomeTemplate;
+
+	public BatchEpisodeRunner(PODomain domain, RewardFunction rf, TerminalFunction tf, PolicyFactory policyFactory,
+							  StateGenerator initialStates, BeliefGenerator initialBeliefs) {
+		this.domain = domain;
+		this.rf = rf;
+		this.tf = tf;
+		this.policyFactory = policyFactory;
+		this.initialStates = initialStates;
+		this.initialBeliefs = initialBeliefs;
+	}
+
+	/**
+	 * Uses the same initial belief for every episode, whatever its initial state.
+	 */
+	public BatchEpisodeRunner(PODomain domain, RewardFunction rf, TerminalFunction tf, PolicyFactory policyFactory,
+							  StateGenerator initialStates, final BeliefState initialBelief) {
+		this(domain, rf, tf, policyFactory, initialStates, new BeliefGenerator() {
+			@Override
+			public BeliefState generateBelief(State initialMDPState) {
+				return (BeliefState)initialBelief.copy();
+			}
+		});
+	}
+
+	public void setGamma(double gamma) {
+		this.gamma = gamma;
+	}
+
+	/**
+	 * Caps the length of each episode; -1 runs every episode until it reaches a terminal state.
+	 */
+	public void setMaxSteps(int maxSteps) {
+		this.maxSteps = maxSteps;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		if(chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least 1.");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Writes every step of every episode, under the episode's index, through the recorder; null stops logging.
+	 * The recorder's writer is not closed by the runner.
+	 */
+	public void setEpisodeLog(EpisodeLogRecorder episodeLog) {
+		this.episodeLog = episodeLog;
+	}
+
+	/**
+	 * Sketches the outcomes of each run in copies of the given empty sketch, whose states are those of the
+	 * domain's state enumerator; null stops sketching.
+	 */
+	public void setOutcomeSketch(OutcomeSketch template) {
+		this.outcomeTemplate = template == null ? null : template.emptyCopy();
+	}
+
+	/**
+	 * Runs the episodes on a fork-join pool with one worker per available processor.
+	 */
+	public Result run(long numEpisodes) {
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			return run(numEpisodes, pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs the episodes on the given executor, e.g. a virtual thread per task executor where the JDK has one.
+	 * The executor is not shut down.
+	 */
+	public Result run(long numEpisodes, ExecutorService executor) {
+
+		long start = System.nanoTime();
+
+		List<Future<Chunk>> chunks = new ArrayList<Future<Chunk>>();
+		for(long first = 0; first < numEpisodes; first += chunkSize) {
+			final long from = first;
+			final long to = Math.min(numEpisodes, first + chunkSize);
+			chunks.add(executor.submit(new Callable<Chunk>() {
+				@Override
+				public Chunk call() {
+					return runChunk(from, to);
+				}
+			}));
+		}
+
+		EpisodeStatistics total = new EpisodeStatistics();
+		OutcomeSketch outcomes = outcomeTemplate == null ? null : outcomeTemplate.emptyCopy();
+		try {
+			for(Future<Chunk> chunk : chunks) {
+				Chunk done = chunk.get();
+				total.merge(done.statistics);
+				if(outcomes != null) {
+					outcomes.merge(done.outcomes);
+				}
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for episodes.", e);
+		}
+		catch(ExecutionException e) {
+			throw new RuntimeException("An episode failed.", e.getCause());
+		}
+
+		return new Result(total, outcomes, System.nanoTime() - start);
+	}
+
+	/**
+	 * Statistics and, with an outcome sketch, outcomes of one chunk of episodes.
+	 */
+	protected static class Chunk {
+
+		final EpisodeStatistics statistics;
+		final OutcomeSketch outcomes;
+
+		Chunk(EpisodeStatistics statistics, OutcomeSketch outcomes) {
+			this.statistics = statistics;
+			this.outcomes = outcomes;
+		}
+	}
+
+	/**
+	 * Runs episodes [from, to) with a new policy.
+	 */
+	protected Chunk runChunk(long from, long to) {
+		EpisodeStatistics stats = new EpisodeStatistics();
+		OutcomeSketch outcomes = outcomeTemplate == null ? null : outcomeTemplate.emptyCopy();
+		Policy policy = policyFactory.generatePolicy();
+		try {
+			for(long i = from; i < to; i++) {
+				RandomStreams.bind(RandomStreams.forEpisode(seed, i));
+				runEpisode(i, policy, stats, outcomes);
+			}
+		}
+		finally {
+			RandomStreams.unbind();
+		}
+		return new Chunk(stats, outcomes);
+	}
+
+	protected void runEpisode(long episode, Policy policy, EpisodeStatistics stats, OutcomeSketch outcomes) {
+		State initialState = initialStates.generateState();
+		int initialId = outcomes == null ? -1 : domain.getStateEnumerator().getEnumeratedID(initialState);
+		SimulatedPOEnvironment env = new SimulatedPOEnvironment(domain, rf, tf, initialState);
+
+		double ret;
+		if(episodeLog != null) {
+			try {
+				ret = episodeLog.runEpisode(episode, policy, env, initialBeliefs.generateBelief(initialState), maxSteps, gamma, stats);
+			}
+			catch(IOException e) {
+				throw new RuntimeException("Could not write episode " + episode + " to the episode log.", e);
+			}
+		}
+		else {
+			BeliefPolicyAgent agent = new BeliefPolicyAgent(domain, env, policy);
+			agent.setBeliefState(initialBeliefs.generateBelief(initialState));
+
+			EpisodeAnalysis ea = maxSteps == -1 ? agent.actUntilTerminal() : agent.actUntilTerminalOrMaxSteps(maxSteps);
+			ret = ea.getDiscountedReturn(gamma);
+			stats.add(ret, ea.numTimeSteps() - 1, env.isInTerminalState());
+		}
+
+		if(outcomes != null) {
+			outcomes.add(initialId, ret, env.getCurrentHiddenState());
+		}
+	}
+
+}
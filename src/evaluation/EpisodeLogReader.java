@@ -0,0 +1,241 @@
+package evaluation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of the segments an {@link EpisodeLogWriter} wrote. Each segment is memory-mapped, and records
+ * are read field by field through a reusable {@link Record} cursor, so a scan allocates nothing per record and
+ * touches only the pages it reads; the operating system's page cache does the rest.
+ */
+public class EpisodeLogReader {
+
+	/**
+	 * Cursor over one record. It is only valid during the {@link RecordVisitor#visit} call it is passed to, or
+	 * until it is moved with {@link EpisodeLogReader#seek}.
+	 */
+	public static final class Record {
+
+		protected MappedByteBuffer buffer;
+		protected int offset;
+		protected final int numStates;
+
+		protected Record(int numStates) {
+			this.numStates = numStates;
+		}
+
+		public long getEpisode() {
+			return buffer.getLong(offset + EpisodeLogWriter.EPISODE);
+		}
+
+		public int getStep() {
+			return buffer.getInt(offset + EpisodeLogWriter.STEP);
+		}
+
+		public int getState() {
+			return buffer.getInt(offset + EpisodeLogWriter.STATE);
+		}
+
+		public int getNextState() {
+			return buffer.getInt(offset + EpisodeLogWriter.NEXTSTATE);
+		}
+
+		public int getAction() {
+			return buffer.getShort(offset + EpisodeLogWriter.ACTION);
+		}
+
+		public int getObservation() {
+			return buffer.getShort(offset + EpisodeLogWriter.OBSERVATION);
+		}
+
+		public double getReward() {
+			return buffer.getDouble(offset + EpisodeLogWriter.REWARD);
+		}
+
+		public boolean isTerminal() {
+			return (buffer.getInt(offset + EpisodeLogWriter.FLAGS) & EpisodeLogWriter.FLAGTERMINAL) != 0;
+		}
+
+		public float getBeliefBefore(int s) {
+			return buffer.getFloat(offset + EpisodeLogWriter.BELIEFS + 4 * s);
+		}
+
+		public float getBeliefAfter(int s) {
+			return buffer.getFloat(offset + EpisodeLogWriter.BELIEFS + 4 * (numStates + s));
+		}
+	}
+
+	public interface RecordVisitor {
+		void visit(Record record);
+	}
+
+	protected final MappedByteBuffer[] segments;
+	protected final long[] firstRecord;
+	protected final int numStates;
+	protected final int numActions;
+	protected final int numObservations;
+	protected final int recordSize;
+	protected final long numRecords;
+
+	protected EpisodeLogReader(MappedByteBuffer[] segments, int numStates, int numActions, int numObservations, int recordSize) {
+		this.segments = segments;
+		this.numStates = numStates;
+		this.numActions = numActions;
+		this.numObservations = numObservations;
+		this.recordSize = recordSize;
+		this.firstRecord = new long[segments.length + 1];
+		for(int i = 0; i < segments.length; i++) {
+			firstRecord[i + 1] = firstRecord[i] + recordsIn(segments[i]);
+		}
+		this.numRecords = firstRecord[segments.length];
+	}
+
+	/**
+	 * Maps every segment of the log with the given prefix in directory, in segment order. Throws an IOException if
+	 * a segment is malformed, the segments disagree on the record layout or a segment is missing.
+	 */
+	public static EpisodeLogReader open(File directory, String prefix) throws IOException {
+		File[] files = EpisodeLogWriter.segmentFiles(directory, prefix);
+		if(files.length == 0) {
+			throw new IOException("No episode log segments named " + prefix + "-*" + EpisodeLogWriter.EXTENSION + " in " + directory + ".");
+		}
+
+		List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>(files.length);
+		int[] layout = null;
+		for(File file : files) {
+			MappedByteBuffer segment = map(file);
+			if(segment.capacity() < EpisodeLogWriter.HEADERSIZE || segment.getInt(0) != EpisodeLogWriter.MAGIC) {
+				throw new IOException(file + " is not an episode log segment.");
+			}
+			if(segment.getInt(4) != EpisodeLogWriter.VERSION) {
+				throw new IOException("Unsupported episode log version " + segment.getInt(4) + " in " + file + ".");
+			}
+			int[] segmentLayout = new int[]{segment.getInt(8), segment.getInt(12), segment.getInt(16), segment.getInt(20)};
+			if(layout == null) {
+				layout = segmentLayout;
+			}
+			else if(!Arrays.equals(layout, segmentLayout)) {
+				throw new IOException(file + " has a different record layout than the segments before it.");
+			}
+			if(segment.getLong(24) != segments.size()) {
+				throw new IOException(file + " is segment " + segment.getLong(24) + " but segment " + segments.size() + " was expected.");
+			}
+			segments.add(segment);
+		}
+
+		return new EpisodeLogReader(segments.toArray(new MappedByteBuffer[segments.size()]), layout[0], layout[1], layout[2], layout[3]);
+	}
+
+	protected static MappedByteBuffer map(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	protected long recordsIn(MappedByteBuffer segment) {
+		// A partial record at the end (e.g. after a crash) is ignored.
+		return (segment.capacity() - EpisodeLogWriter.HEADERSIZE) / recordSize;
+	}
+
+	public long numRecords() {
+		return numRecords;
+	}
+
+	public int numSegments() {
+		return segments.length;
+	}
+
+	public int numStates() {
+		return numStates;
+	}
+
+	public int numActions() {
+		return numActions;
+	}
+
+	public int numObservations() {
+		return numObservations;
+	}
+
+	public Record newRecord() {
+		return new Record(numStates);
+	}
+
+	/**
+	 * Moves record to the record with the given index.
+	 */
+	public Record seek(Record record, long index) {
+		if(index < 0 || index >= numRecords) {
+			throw new IndexOutOfBoundsException("Record " + index + " is not in the log.");
+		}
+		int segment = Arrays.binarySearch(firstRecord, index);
+		if(segment < 0) {
+			segment = -segment - 2;
+		}
+		// Skip empty segments that share the same first record.
+		while(firstRecord[segment + 1] == index) {
+			segment++;
+		}
+		record.buffer = segments[segment];
+		record.offset = EpisodeLogWriter.HEADERSIZE + (int)(index - firstRecord[segment]) * recordSize;
+		return record;
+	}
+
+	/**
+	 * Visits every record in log order.
+	 */
+	public void forEach(RecordVisitor visitor) {
+		Record record = newRecord();
+		for(int i = 0; i < segments.length; i++) {
+			record.buffer = segments[i];
+			long n = firstRecord[i + 1] - firstRecord[i];
+			for(long r = 0; r < n; r++) {
+				record.offset = EpisodeLogWriter.HEADERSIZE + (int)r * recordSize;
+				visitor.visit(record);
+			}
+		}
+	}
+
+	/**
+	 * How often each action was taken.
+	 */
+	public long[] actionCounts() {
+		final long[] counts = new long[numActions];
+		forEach(new RecordVisitor() {
+			@Override
+			public void visit(Record record) {
+				counts[record.getAction()]++;
+			}
+		});
+		return counts;
+	}
+
+	/**
+	 * How often each state was the outcome of a step that ended its episode, e.g. to count how many episodes
+	 * ended with the robot destroyed.
+	 */
+	public long[] terminalStateCounts() {
+		final long[] counts = new long[numStates];
+		forEach(new RecordVisitor() {
+			@Override
+			public void visit(Record record) {
+				int sp = record.getNextState();
+				if(record.isTerminal() && sp >= 0) {
+					counts[sp]++;
+				}
+			}
+		});
+		return counts;
+	}
+
+}
@@ -0,0 +1,76 @@
+package evaluation;
+
+import java.io.IOException;
+
+import burlap.behavior.policy.Policy;
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.environment.EnvironmentOutcome;
+import burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment;
+import burlap.oomdp.singleagent.pomdp.beliefstate.BeliefState;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import tabular.TabularPOMDP;
+
+/**
+ * Runs episodes the way a {@link burlap.behavior.singleagent.pomdp.BeliefPolicyAgent} does (act on the belief,
+ * observe, update the belief) and writes every step to an {@link EpisodeLogWriter} instead of collecting an
+ * {@link burlap.behavior.singleagent.EpisodeAnalysis}. States, actions and observations are logged by their ids
+ * in model, and beliefs must be {@link TabularBeliefState}s over the same enumeration.
+ */
+public class EpisodeLogRecorder {
+
+	protected final TabularPOMDP model;
+	protected final EpisodeLogWriter writer;
+
+	public EpisodeLogRecorder(TabularPOMDP model, EpisodeLogWriter writer) {
+		this.model = model;
+		this.writer = writer;
+	}
+
+	public EpisodeLogWriter getWriter() {
+		return writer;
+	}
+
+	/**
+	 * Runs one episode from the environment's current state and initial belief, for at most maxSteps steps (-1
+	 * for no limit), logging it under the given episode id, and adds its discounted return to stats. Returns the
+	 * discounted return.
+	 */
+	public double runEpisode(long episode, Policy policy, SimulatedPOEnvironment env, BeliefState initialBelief,
+						   int maxSteps, double gamma, EpisodeStatistics stats) throws IOException {
+
+		StateEnumerator senum = model.getStateEnumerator();
+		BeliefState belief = initialBelief;
+		int state = senum.getEnumeratedID(env.getCurrentHiddenState());
+		double ret = 0.;
+		double discount = 1.;
+		int step = 0;
+
+		while(!env.isInTerminalState() && (maxSteps == -1 || step < maxSteps)) {
+			GroundedAction ga = (GroundedAction)policy.getAction(belief);
+			EnvironmentOutcome eo = env.executeAction(ga);
+			BeliefState next = belief.getUpdatedBeliefState(eo.op, ga);
+			int nextState = senum.getEnumeratedID(env.getCurrentHiddenState());
+
+			writer.write(episode, step, state, model.actionIndex(ga.actionName()), model.observationIndex(eo.op), nextState,
+					eo.r, eo.terminated, beliefVector(belief), beliefVector(next));
+
+			ret += discount * eo.r;
+			discount *= gamma;
+			belief = next;
+			state = nextState;
+			step++;
+		}
+
+		stats.add(ret, step, env.isInTerminalState());
+		return ret;
+	}
+
+	protected double[] beliefVector(BeliefState belief) {
+		if(!(belief instanceof TabularBeliefState)) {
+			throw new IllegalArgumentException("Episode logs need tabular beliefs.");
+		}
+		return ((TabularBeliefState)belief).getBeliefVector();
+	}
+
+}
@@ -0,0 +1,226 @@
+package evaluation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import tabular.TabularPOMDP;
+
+/**
+ * Streams agent decisions into a log of fixed-width binary records, one per step, rolling over to a new segment
+ * file once a segment reaches its size limit. States, actions and observations are stored by their ids in the
+ * domain's enumeration and {@link TabularPOMDP}, so nothing is serialised as an object and
+ * {@link EpisodeLogReader} can scan the segments in place.
+ * <p>
+ * Segment <code>&lt;prefix&gt;-NNNNNN.edl</code> starts with a 32 byte header (magic, version, numStates,
+ * numActions, numObservations, record size, segment index) followed by records. A record (big-endian) holds the
+ * episode id (long), step (int), state and next state ids (int), action and observation ids (short), reward
+ * (double), flags (int, bit 0 set when the step ended the episode), the belief before and the belief after the
+ * step as floats, and padding to a multiple of 8 bytes.
+ * <p>
+ * A new log replaces any earlier log with the same prefix: its segments are deleted when the first record is
+ * written, so a shorter log never picks up the earlier log's trailing segments. Records are buffered and
+ * written in batches; a crash loses at most the unwritten batch and the reader ignores
+ * a trailing partial record. All methods are synchronized, so parallel workers can share one writer; their
+ * records interleave and are told apart by episode id.
+ */
+public class EpisodeLogWriter implements Closeable {
+
+	public static final int MAGIC = 0x4544454C; // "EDEL"
+	public static final int VERSION = 1;
+	public static final int HEADERSIZE = 32;
+	public static final String EXTENSION = ".edl";
+
+	public static final int FLAGTERMINAL = 1;
+
+	// Offsets of the record fields.
+	static final int EPISODE = 0;
+	static final int STEP = 8;
+	static final int STATE = 12;
+	static final int NEXTSTATE = 16;
+	static final int ACTION = 20;
+	static final int OBSERVATION = 22;
+	static final int REWARD = 24;
+	static final int FLAGS = 32;
+	static final int BELIEFS = 36;
+
+	protected final File directory;
+	protected final String prefix;
+	protected final int numStates;
+	protected final int numActions;
+	protected final int numObservations;
+	protected final int recordSize;
+
+	protected long recordsPerSegment;
+	protected final ByteBuffer batch;
+
+	protected FileChannel segment;
+	protected int segmentIndex = -1;
+	protected long segmentRecords;
+	protected long totalRecords;
+
+	public EpisodeLogWriter(File directory, String prefix, int numStates, int numActions, int numObservations) {
+		if(numActions > Short.MAX_VALUE || numObservations > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Action and observation ids must fit in 16 bits.");
+		}
+		this.directory = directory;
+		this.prefix = prefix;
+		this.numStates = numStates;
+		this.numActions = numActions;
+		this.numObservations = numObservations;
+		this.recordSize = recordSize(numStates);
+		this.batch = ByteBuffer.allocate(recordSize * Math.max(1, (1 << 16) / recordSize));
+		setSegmentBytes(64L << 20);
+	}
+
+	public EpisodeLogWriter(File directory, String prefix, TabularPOMDP model) {
+		this(directory, prefix, model.numStates(), model.numActions(), model.numObservations());
+	}
+
+	public static int recordSize(int numStates) {
+		return (BELIEFS + 8 * numStates + 7) & ~7;
+	}
+
+	/**
+	 * Approximate size at which segments roll over; segments always hold at least one record and stay mappable
+	 * (under 2 GB).
+	 */
+	public synchronized void setSegmentBytes(long segmentBytes) {
+		long max = (Integer.MAX_VALUE - HEADERSIZE) / recordSize;
+		this.recordsPerSegment = Math.max(1, Math.min(max, (segmentBytes - HEADERSIZE) / recordSize));
+	}
+
+	public int getRecordSize() {
+		return recordSize;
+	}
+
+	public synchronized long getRecordsWritten() {
+		return totalRecords;
+	}
+
+	/**
+	 * Appends one step. Every id must be in range for the model the log was opened with, and the belief vectors
+	 * are indexed by state id and must have numStates entries.
+	 */
+	public synchronized void write(long episode, int step, int state, int action, int observation, int nextState,
+								   double reward, boolean terminal, double[] beliefBefore, double[] beliefAfter) throws IOException {
+
+		if(state < 0 || state >= numStates || nextState < 0 || nextState >= numStates) {
+			throw new IllegalArgumentException("State ids must be in [0, " + numStates + ").");
+		}
+		if(action < 0 || action >= numActions || observation < 0 || observation >= numObservations) {
+			throw new IllegalArgumentException("Action and observation ids must be in range of the model.");
+		}
+		if(beliefBefore.length != numStates || beliefAfter.length != numStates) {
+			throw new IllegalArgumentException("Beliefs must have " + numStates + " entries.");
+		}
+		if(segment == null || segmentRecords == recordsPerSegment) {
+			rollOver();
+		}
+		if(batch.remaining() < recordSize) {
+			flushBatch();
+		}
+
+		int start = batch.position();
+		batch.putLong(episode);
+		batch.putInt(step);
+		batch.putInt(state);
+		batch.putInt(nextState);
+		batch.putShort((short)action);
+		batch.putShort((short)observation);
+		batch.putDouble(reward);
+		batch.putInt(terminal ? FLAGTERMINAL : 0);
+		for(int s = 0; s < numStates; s++) {
+			batch.putFloat((float)beliefBefore[s]);
+		}
+		for(int s = 0; s < numStates; s++) {
+			batch.putFloat((float)beliefAfter[s]);
+		}
+		batch.position(start + recordSize);
+
+		segmentRecords++;
+		totalRecords++;
+	}
+
+	/**
+	 * Writes buffered records to the current segment.
+	 */
+	public synchronized void flush() throws IOException {
+		if(segment != null) {
+			flushBatch();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(segment != null) {
+			flushBatch();
+			segment.close();
+			segment = null;
+		}
+	}
+
+	public static File segmentFile(File directory, String prefix, int index) {
+		return new File(directory, String.format("%s-%06d%s", prefix, index, EXTENSION));
+	}
+
+	/**
+	 * The segments of the log with the given prefix in directory, in segment order; empty if there are none.
+	 */
+	public static File[] segmentFiles(File directory, final String prefix) {
+		File[] files = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith(prefix + "-") && name.endsWith(EXTENSION)
+						&& name.length() == prefix.length() + 7 + EXTENSION.length();
+			}
+		});
+		if(files == null) {
+			return new File[0];
+		}
+		Arrays.sort(files);
+		return files;
+	}
+
+	protected void rollOver() throws IOException {
+		close();
+		if(segmentIndex == -1) {
+			for(File old : segmentFiles(directory, prefix)) {
+				if(!old.delete()) {
+					throw new IOException("Could not delete " + old + " of an earlier episode log.");
+				}
+			}
+		}
+		segmentIndex++;
+		segmentRecords = 0;
+		segment = FileChannel.open(segmentFile(directory, prefix, segmentIndex).toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADERSIZE);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(numStates);
+		header.putInt(numActions);
+		header.putInt(numObservations);
+		header.putInt(recordSize);
+		header.putLong(segmentIndex);
+		header.flip();
+		while(header.hasRemaining()) {
+			segment.write(header);
+		}
+	}
+
+	protected void flushBatch() throws IOException {
+		batch.flip();
+		while(batch.hasRemaining()) {
+			segment.write(batch);
+		}
+		batch.clear();
+	}
+
+}
@@ -0,0 +1,102 @@
+package evaluation;
+
+/**
+ * Running summary of episode returns: count, mean and variance (Welford's method), extremes,
+ * step counts and how many episodes reached a terminal state. Two summaries can be merged, so
+ * workers can each keep their own and combine them at the end without storing any episodes.
+ */
+public class EpisodeStatistics {
+
+	protected long count;
+	protected double mean;
+	protected double m2;
+	protected double min = Double.POSITIVE_INFINITY;
+	protected double max = Double.NEGATIVE_INFINITY;
+	protected long totalSteps;
+	protected long terminated;
+
+	public void add(double episodeReturn, int steps, boolean reachedTerminal) {
+		count++;
+		double delta = episodeReturn - mean;
+		mean += delta / count;
+		m2 += delta * (episodeReturn - mean);
+		min = Math.min(min, episodeReturn);
+		max = Math.max(max, episodeReturn);
+		totalSteps += steps;
+		if(reachedTerminal) {
+			terminated++;
+		}
+	}
+
+	/**
+	 * Folds other into this summary (Chan et al.'s parallel variance update).
+	 */
+	public void merge(EpisodeStatistics other) {
+		if(other.count == 0) {
+			return;
+		}
+		if(count == 0) {
+			count = other.count;
+			mean = other.mean;
+			m2 = other.m2;
+		}
+		else {
+			long n = count + other.count;
+			double delta = other.mean - mean;
+			mean += delta * other.count / n;
+			m2 += other.m2 + delta * delta * ((double)count * other.count / n);
+			count = n;
+		}
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		totalSteps += other.totalSteps;
+		terminated += other.terminated;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getVariance() {
+		return count > 1 ? m2 / (count - 1) : 0.;
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	public double getStandardError() {
+		return count > 0 ? getStandardDeviation() / Math.sqrt(count) : 0.;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getMeanSteps() {
+		return count > 0 ? (double)totalSteps / count : 0.;
+	}
+
+	public long getTotalSteps() {
+		return totalSteps;
+	}
+
+	public long getTerminatedCount() {
+		return terminated;
+	}
+
+	@Override
+	public String toString() {
+		return "episodes: " + count + ", mean return: " + mean + " (+/- " + getStandardError() + "), min: " + min
+				+ ", max: " + max + ", mean steps: " + getMeanSteps() + ", terminated: " + terminated;
+	}
+
+}
@@ -0,0 +1,217 @@
+package evaluation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import burlap.oomdp.core.objects.ObjectInstance;
+import burlap.oomdp.core.states.State;
+
+/**
+ * Streaming summary of episode outcomes for risk reporting: a {@link QuantileSketch} of the returns and counts of
+ * outcome events, such as the robot being destroyed while valuable, overall and for each initial state. Memory
+ * depends on the number of states and events, not on the number of episodes.
+ * <p>
+ * Like {@link EpisodeStatistics}, sketches merge, so each worker thread can fold its episodes into its own sketch
+ * without any locking and the sketches are combined at the end; see
+ * {@link BatchEpisodeRunner#setOutcomeSketch(OutcomeSketch)}. Instances are not thread safe.
+ */
+public class OutcomeSketch {
+
+	/**
+	 * Something that did or did not happen in an episode, judged from the state it ended in.
+	 */
+	public interface Event {
+		String getName();
+		boolean occurred(State finalState);
+	}
+
+	/**
+	 * Event that occurs when every one of the given boolean attributes of the first object of the class is set in
+	 * the final state.
+	 */
+	public static Event flags(final String name, final String className, final String... attributes) {
+		return new Event() {
+			@Override
+			public String getName() {
+				return name;
+			}
+
+			@Override
+			public boolean occurred(State finalState) {
+				ObjectInstance o = finalState.getFirstObjectOfClass(className);
+				for(String attribute : attributes) {
+					if(!o.getBooleanValForAttribute(attribute)) {
+						return false;
+					}
+				}
+				return true;
+			}
+		};
+	}
+
+	protected final Event[] events;
+	protected final QuantileSketch template;
+
+	protected final QuantileSketch returns;
+	protected final long[] eventCounts;
+
+	// By initial state id, allocated when a state is first seen.
+	protected final QuantileSketch[] returnsByState;
+	protected final long[][] eventCountsByState;
+
+	/**
+	 * @param numStates the number of enumerated states; initial states are given by their enumeration ids.
+	 */
+	public OutcomeSketch(int numStates, List<Event> events) {
+		this(numStates, events, new QuantileSketch());
+	}
+
+	/**
+	 * @param template an empty sketch whose parameters the return sketches copy.
+	 */
+	public OutcomeSketch(int numStates, List<Event> events, QuantileSketch template) {
+		this.events = events.toArray(new Event[events.size()]);
+		this.template = template.emptyCopy();
+		this.returns = template.emptyCopy();
+		this.eventCounts = new long[this.events.length];
+		this.returnsByState = new QuantileSketch[numStates];
+		this.eventCountsByState = new long[numStates][];
+	}
+
+	/**
+	 * An empty sketch with the same states, events and parameters, which this one can merge.
+	 */
+	public OutcomeSketch emptyCopy() {
+		return new OutcomeSketch(returnsByState.length, Arrays.asList(events), template);
+	}
+
+	/**
+	 * Adds an episode that started in the state with the given id, earned the given return and ended in
+	 * finalState. Episodes whose initial state is not one of the sketch's states (e.g. id -1) only count towards
+	 * the totals.
+	 */
+	public void add(int initialState, double episodeReturn, State finalState) {
+		returns.add(episodeReturn);
+		long[] byState = null;
+		if(initialState >= 0 && initialState < returnsByState.length) {
+			if(returnsByState[initialState] == null) {
+				returnsByState[initialState] = template.emptyCopy();
+				eventCountsByState[initialState] = new long[events.length];
+			}
+			returnsByState[initialState].add(episodeReturn);
+			byState = eventCountsByState[initialState];
+		}
+		for(int e = 0; e < events.length; e++) {
+			if(events[e].occurred(finalState)) {
+				eventCounts[e]++;
+				if(byState != null) {
+					byState[e]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Folds other, which must have the same states, events and parameters, into this sketch.
+	 */
+	public void merge(OutcomeSketch other) {
+		if(other.events.length != events.length || other.returnsByState.length != returnsByState.length) {
+			throw new IllegalArgumentException("Only sketches over the same states and events can be merged.");
+		}
+		returns.merge(other.returns);
+		add(eventCounts, other.eventCounts);
+		for(int s = 0; s < returnsByState.length; s++) {
+			if(other.returnsByState[s] == null) {
+				continue;
+			}
+			if(returnsByState[s] == null) {
+				returnsByState[s] = template.emptyCopy();
+				eventCountsByState[s] = new long[events.length];
+			}
+			returnsByState[s].merge(other.returnsByState[s]);
+			add(eventCountsByState[s], other.eventCountsByState[s]);
+		}
+	}
+
+	protected static void add(long[] into, long[] from) {
+		for(int i = 0; i < into.length; i++) {
+			into[i] += from[i];
+		}
+	}
+
+	public int numEvents() {
+		return events.length;
+	}
+
+	public String getEventName(int event) {
+		return events[event].getName();
+	}
+
+	public long getCount() {
+		return returns.getCount();
+	}
+
+	/**
+	 * Returns of all episodes.
+	 */
+	public QuantileSketch getReturns() {
+		return returns;
+	}
+
+	/**
+	 * Returns of the episodes that started in the given state, or null if there were none.
+	 */
+	public QuantileSketch getReturns(int initialState) {
+		return returnsByState[initialState];
+	}
+
+	public long getEventCount(int event) {
+		return eventCounts[event];
+	}
+
+	public long getEventCount(int initialState, int event) {
+		return eventCountsByState[initialState] == null ? 0 : eventCountsByState[initialState][event];
+	}
+
+	/**
+	 * Fraction of all episodes in which the event occurred.
+	 */
+	public double getEventProbability(int event) {
+		long n = returns.getCount();
+		return n == 0 ? 0. : (double)eventCounts[event] / n;
+	}
+
+	/**
+	 * Fraction of the episodes that started in the given state in which the event occurred.
+	 */
+	public double getEventProbability(int initialState, int event) {
+		QuantileSketch byState = returnsByState[initialState];
+		return byState == null ? 0. : (double)eventCountsByState[initialState][event] / byState.getCount();
+	}
+
+	/**
+	 * One line for all episodes and one per initial state that was seen, each with the return summary and the
+	 * event probabilities.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("all: ").append(returns);
+		appendEvents(sb, -1);
+		for(int s = 0; s < returnsByState.length; s++) {
+			if(returnsByState[s] != null) {
+				sb.append("\ninitial state ").append(s).append(": ").append(returnsByState[s]);
+				appendEvents(sb, s);
+			}
+		}
+		return sb.toString();
+	}
+
+	protected void appendEvents(StringBuilder sb, int initialState) {
+		for(int e = 0; e < events.length; e++) {
+			double p = initialState == -1 ? getEventProbability(e) : getEventProbability(initialState, e);
+			sb.append(", P(").append(events[e].getName()).append("): ").append(p);
+		}
+	}
+
+}
@@ -0,0 +1,260 @@
+package evaluation;
+
+/**
+ * Mergeable streaming summary of a distribution of returns that answers quantile and lower-tail (CVaR) queries
+ * without storing the values. Values are counted in logarithmically spaced buckets of their magnitude, one set
+ * for positive and one for negative values, so any two values sharing a bucket are within the relative accuracy
+ * of each other; a bucket also keeps the sum of its values, and its mean stands for it, so a bucket that only
+ * holds one discrete return, as the dilemma domains mostly produce, gives it back exactly.
+ * <p>
+ * Magnitudes below the minimum magnitude count as zero (their sum is still kept) and magnitudes above the
+ * maximum share the last bucket, so memory is bounded by the number of buckets between the two, whatever the
+ * number of values; only the range of buckets actually hit is allocated. Two sketches with the same parameters
+ * merge by adding their buckets (counts exactly, sums up to rounding), so workers can each keep their own sketch
+ * and combine them at the end. Instances are not thread safe.
+ */
+public class QuantileSketch {
+
+	/**
+	 * Buckets of one sign, indexed by the number of growth factors above the minimum magnitude, allocated only
+	 * over the range of indices that has been hit.
+	 */
+	protected static final class Store {
+
+		protected int offset;
+		protected long[] counts = new long[0];
+		protected double[] sums = new double[0];
+
+		protected void add(int index, long count, double sum, int maxBuckets) {
+			ensure(index, maxBuckets);
+			counts[index - offset] += count;
+			sums[index - offset] += sum;
+		}
+
+		protected void ensure(int index, int maxBuckets) {
+			if(counts.length == 0) {
+				int length = Math.min(8, maxBuckets);
+				offset = Math.max(0, Math.min(index, maxBuckets - length));
+				counts = new long[length];
+				sums = new double[length];
+				return;
+			}
+			if(index >= offset && index < offset + counts.length) {
+				return;
+			}
+			int lo = Math.min(offset, index);
+			int hi = Math.max(offset + counts.length, index + 1);
+			int length = Math.min(maxBuckets, Math.max(hi - lo, 2 * counts.length));
+			int newOffset = index < offset ? Math.max(0, hi - length) : Math.min(lo, maxBuckets - length);
+
+			long[] newCounts = new long[length];
+			double[] newSums = new double[length];
+			System.arraycopy(counts, 0, newCounts, offset - newOffset, counts.length);
+			System.arraycopy(sums, 0, newSums, offset - newOffset, sums.length);
+			counts = newCounts;
+			sums = newSums;
+			offset = newOffset;
+		}
+	}
+
+	public static final double DEFAULTRELATIVEACCURACY = 0.01;
+	public static final double DEFAULTMINMAGNITUDE = 1e-4;
+	public static final double DEFAULTMAXMAGNITUDE = 1e6;
+
+	protected final double relativeAccuracy;
+	protected final double minMagnitude;
+	protected final double maxMagnitude;
+	protected final double logGamma;
+	protected final int maxBuckets;
+
+	protected final Store positive = new Store();
+	protected final Store negative = new Store();
+	protected long zeroCount;
+	protected double zeroSum;
+
+	protected long count;
+	protected double sum;
+	protected double min = Double.POSITIVE_INFINITY;
+	protected double max = Double.NEGATIVE_INFINITY;
+
+	public QuantileSketch() {
+		this(DEFAULTRELATIVEACCURACY, DEFAULTMINMAGNITUDE, DEFAULTMAXMAGNITUDE);
+	}
+
+	/**
+	 * @param relativeAccuracy the largest relative difference between values that share a bucket.
+	 * @param minMagnitude magnitudes below this count as zero.
+	 * @param maxMagnitude magnitudes above this share the last bucket.
+	 */
+	public QuantileSketch(double relativeAccuracy, double minMagnitude, double maxMagnitude) {
+		if(relativeAccuracy <= 0. || relativeAccuracy >= 1.) {
+			throw new IllegalArgumentException("Relative accuracy must be in (0, 1).");
+		}
+		if(minMagnitude <= 0. || maxMagnitude <= minMagnitude) {
+			throw new IllegalArgumentException("Magnitudes must satisfy 0 < min < max.");
+		}
+		this.relativeAccuracy = relativeAccuracy;
+		this.minMagnitude = minMagnitude;
+		this.maxMagnitude = maxMagnitude;
+		this.logGamma = Math.log1p(relativeAccuracy);
+		this.maxBuckets = (int)Math.ceil(Math.log(maxMagnitude / minMagnitude) / logGamma) + 1;
+	}
+
+	/**
+	 * An empty sketch with the same parameters, which this one can merge.
+	 */
+	public QuantileSketch emptyCopy() {
+		return new QuantileSketch(relativeAccuracy, minMagnitude, maxMagnitude);
+	}
+
+	public void add(double value) {
+		double magnitude = Math.abs(value);
+		if(magnitude < minMagnitude) {
+			zeroCount++;
+			zeroSum += value;
+		}
+		else if(value > 0.) {
+			positive.add(bucket(magnitude), 1, value, maxBuckets);
+		}
+		else {
+			negative.add(bucket(magnitude), 1, value, maxBuckets);
+		}
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Folds other, which must have the same parameters, into this sketch.
+	 */
+	public void merge(QuantileSketch other) {
+		if(other.relativeAccuracy != relativeAccuracy || other.minMagnitude != minMagnitude || other.maxMagnitude != maxMagnitude) {
+			throw new IllegalArgumentException("Only sketches with the same parameters can be merged.");
+		}
+		mergeStore(positive, other.positive);
+		mergeStore(negative, other.negative);
+		zeroCount += other.zeroCount;
+		zeroSum += other.zeroSum;
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	protected void mergeStore(Store into, Store from) {
+		for(int i = 0; i < from.counts.length; i++) {
+			if(from.counts[i] != 0) {
+				into.add(from.offset + i, from.counts[i], from.sums[i], maxBuckets);
+			}
+		}
+	}
+
+	protected int bucket(double magnitude) {
+		int index = (int)Math.ceil(Math.log(magnitude / minMagnitude) / logGamma);
+		return Math.max(0, Math.min(maxBuckets - 1, index));
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return count > 0 ? sum / count : Double.NaN;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getRelativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	/**
+	 * Value of rank q * (count - 1) in ascending order, within the relative accuracy for magnitudes between the
+	 * minimum and maximum magnitude; NaN if the sketch is empty.
+	 */
+	public double getQuantile(double q) {
+		if(q < 0. || q > 1.) {
+			throw new IllegalArgumentException("Quantiles must be in [0, 1].");
+		}
+		if(count == 0) {
+			return Double.NaN;
+		}
+		double rank = q * (count - 1);
+		long seen = 0;
+		for(int p = 0; p < numPositions(); p++) {
+			long c = countAt(p);
+			seen += c;
+			if(c != 0 && seen > rank) {
+				return Math.max(min, Math.min(max, sumAt(p) / c));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Mean of the lowest alpha fraction of the values, the conditional value at risk of returns at level alpha.
+	 * Buckets wholly inside the tail contribute their exact sums and the bucket the tail ends in contributes its
+	 * mean for the remaining fraction. NaN if the sketch is empty.
+	 */
+	public double getLowerTailMean(double alpha) {
+		if(alpha <= 0. || alpha > 1.) {
+			throw new IllegalArgumentException("Alpha must be in (0, 1].");
+		}
+		if(count == 0) {
+			return Double.NaN;
+		}
+		double mass = alpha * count;
+		double remaining = mass;
+		double total = 0.;
+		for(int p = 0; p < numPositions() && remaining > 0.; p++) {
+			long c = countAt(p);
+			if(c == 0) {
+				continue;
+			}
+			if(c <= remaining) {
+				total += sumAt(p);
+				remaining -= c;
+			}
+			else {
+				total += remaining * sumAt(p) / c;
+				remaining = 0.;
+			}
+		}
+		return total / mass;
+	}
+
+	// Bucket positions in ascending order of value: negative buckets by falling magnitude, zero, positive buckets.
+	protected int numPositions() {
+		return negative.counts.length + 1 + positive.counts.length;
+	}
+
+	protected long countAt(int p) {
+		int n = negative.counts.length;
+		if(p < n) {
+			return negative.counts[n - 1 - p];
+		}
+		return p == n ? zeroCount : positive.counts[p - n - 1];
+	}
+
+	protected double sumAt(int p) {
+		int n = negative.sums.length;
+		if(p < n) {
+			return negative.sums[n - 1 - p];
+		}
+		return p == n ? zeroSum : positive.sums[p - n - 1];
+	}
+
+	@Override
+	public String toString() {
+		return "n: " + count + ", mean: " + getMean() + ", min: " + min + ", p01: " + getQuantile(0.01) + ", p05: " + getQuantile(0.05)
+				+ ", median: " + getQuantile(0.5) + ", p95: " + getQuantile(0.95) + ", max: " + max + ", CVaR05: " + getLowerTailMean(0.05);
+	}
+
+}
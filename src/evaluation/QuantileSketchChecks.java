@@ -0,0 +1,64 @@
+package evaluation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Checks {@link QuantileSketch} against exact order statistics of seeded continuous returns of both signs and
+ * exits with status 1 if any check fails: each quantile must be within the relative accuracy of the exact value
+ * of the same rank, and a sketch merged from two halves must answer like one fed every value, up to the rounding
+ * of bucket sums.
+ */
+public class QuantileSketchChecks {
+
+	protected static int failures = 0;
+
+	public static void main(String[] args) {
+
+		int n = 100000;
+		SplittableRandom random = new SplittableRandom(0);
+		double[] values = new double[n];
+		QuantileSketch whole = new QuantileSketch();
+		QuantileSketch first = new QuantileSketch();
+		QuantileSketch second = first.emptyCopy();
+		for(int i = 0; i < n; i++) {
+			// A mixture like the dilemmas' returns: a heavy loss mode and a spread of gains.
+			values[i] = random.nextDouble() < 0.1 ? -10. - 5. * random.nextDouble() : 10. * Math.exp(random.nextGaussian()) - 4.;
+			whole.add(values[i]);
+			(i % 2 == 0 ? first : second).add(values[i]);
+		}
+		first.merge(second);
+		Arrays.sort(values);
+
+		boolean accurate = true;
+		boolean merged = true;
+		double worst = 0.;
+		for(double q : new double[]{0., 0.001, 0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1.}) {
+			double exact = values[(int)Math.floor(q * (n - 1))];
+			double estimate = whole.getQuantile(q);
+			double error = Math.abs(estimate - exact) / Math.abs(exact);
+			worst = Math.max(worst, error);
+			if(error > whole.getRelativeAccuracy()) {
+				accurate = false;
+				System.out.println("  q = " + q + ": exact " + exact + ", sketch " + estimate);
+			}
+			if(Math.abs(first.getQuantile(q) - estimate) > 1e-12 * Math.abs(estimate)) {
+				merged = false;
+				System.out.println("  q = " + q + ": merged " + first.getQuantile(q) + ", whole " + estimate);
+			}
+		}
+		check("quantiles within relative accuracy " + whole.getRelativeAccuracy() + " (worst " + worst + ")", accurate);
+		check("merged halves answer like the whole", merged && first.getCount() == whole.getCount());
+
+		System.out.println(failures == 0 ? "all checks passed" : failures + " check(s) failed");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	protected static void check(String name, boolean passed) {
+		System.out.println((passed ? "ok: " : "FAILED: ") + name);
+		if(!passed) {
+			failures++;
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import burlap.oomdp.auxiliary.StateGenerator;
+import burlap.oomdp.core.states.State;
+import sampling.RandomStreams;
+
+/**
+ * {@link StateGenerator} over a finite set of weighted initial states, e.g. the fire/no-fire by
+ * valuable/not-valuable states of {@link burningroom.BurningRoom#getMDPState}. Draws come from
+ * {@link RandomStreams}, so they are reproducible when the caller binds a per-episode stream.
+ */
+public class WeightedStateGenerator implements StateGenerator {
+
+	protected final List<State> states = new ArrayList<State>();
+	protected final List<Double> cumulative = new ArrayList<Double>();
+	protected double totalWeight = 0.;
+
+	public WeightedStateGenerator addState(State s, double weight) {
+		if(weight <= 0.) {
+			throw new IllegalArgumentException("Weights must be positive.");
+		}
+		totalWeight += weight;
+		states.add(s);
+		cumulative.add(totalWeight);
+		return this;
+	}
+
+	public List<State> getStates() {
+		return states;
+	}
+
+	@Override
+	public State generateState() {
+		if(states.isEmpty()) {
+			throw new IllegalStateException("No states to generate from.");
+		}
+		double r = RandomStreams.nextDouble() * totalWeight;
+		for(int i = 0; i < states.size(); i++) {
+			if(r < cumulative.get(i)) {
+				return states.get(i).copy();
+			}
+		}
+		return states.get(states.size() - 1).copy();
+	}
+
+}
@@ -0,0 +1,117 @@
+package factored;
+
+import sampling.RandomStreams;
+
+/**
+ * Action whose transition function is a product of independent {@link VariableEffect}s, at most one per
+ * variable; variables without an effect keep their value. Successors are generated on the fly from the
+ * factors, so no successor list is ever stored, and sampling draws each factor separately, costing time
+ * linear in the number of effects rather than in the number of joint outcomes.
+ */
+public class FactoredAction {
+
+	/**
+	 * Receives the successors of a state with their probabilities.
+	 */
+	public interface SuccessorVisitor {
+		void visit(long sprime, double p);
+	}
+
+	protected final String name;
+	protected final FactoredStateSpace space;
+	protected final VariableEffect[] effects;
+
+	public FactoredAction(String name, FactoredStateSpace space, VariableEffect... effects) {
+		boolean[] affected = new boolean[space.numVariables()];
+		for(VariableEffect effect : effects) {
+			if(affected[effect.getVariable()]) {
+				throw new IllegalArgumentException("Action " + name + " has two effects on " + space.getName(effect.getVariable()) + ".");
+			}
+			affected[effect.getVariable()] = true;
+		}
+		this.name = name;
+		this.space = space;
+		this.effects = effects.clone();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int numEffects() {
+		return effects.length;
+	}
+
+	public VariableEffect getEffect(int i) {
+		return effects[i];
+	}
+
+	/**
+	 * Most joint outcomes the action can have: the product of its effects' outcome counts.
+	 */
+	public long maxSuccessors() {
+		long n = 1;
+		for(VariableEffect effect : effects) {
+			n *= effect.maxOutcomes();
+		}
+		return n;
+	}
+
+	/**
+	 * Calls the visitor once for every successor of s with non-zero probability. Successors are distinct.
+	 */
+	public void forEachSuccessor(long s, SuccessorVisitor visitor) {
+		int n = effects.length;
+		int[][] values = new int[n][];
+		double[][] probs = new double[n][];
+		int[] counts = new int[n];
+		for(int e = 0; e < n; e++) {
+			values[e] = new int[effects[e].maxOutcomes()];
+			probs[e] = new double[effects[e].maxOutcomes()];
+			counts[e] = effects[e].getDistribution(s, values[e], probs[e]);
+		}
+		visit(s, 0, 1., values, probs, counts, visitor);
+	}
+
+	protected void visit(long sprime, int e, double p, int[][] values, double[][] probs, int[] counts, SuccessorVisitor visitor) {
+		if(e == effects.length) {
+			visitor.visit(sprime, p);
+			return;
+		}
+		int variable = effects[e].getVariable();
+		for(int i = 0; i < counts[e]; i++) {
+			if(probs[e][i] > 0.) {
+				visit(space.set(sprime, variable, values[e][i]), e + 1, p * probs[e][i], values, probs, counts, visitor);
+			}
+		}
+	}
+
+	/**
+	 * Samples a successor of s, drawing each effect independently from {@link RandomStreams}.
+	 */
+	public long sample(long s) {
+		long sprime = s;
+		int[] values = new int[0];
+		double[] probs = new double[0];
+		for(VariableEffect effect : effects) {
+			if(values.length < effect.maxOutcomes()) {
+				values = new int[effect.maxOutcomes()];
+				probs = new double[effect.maxOutcomes()];
+			}
+			int n = effect.getDistribution(s, values, probs);
+			double u = RandomStreams.nextDouble();
+			double sum = 0.;
+			int chosen = n - 1;
+			for(int i = 0; i < n; i++) {
+				sum += probs[i];
+				if(u < sum) {
+					chosen = i;
+					break;
+				}
+			}
+			sprime = space.set(sprime, effect.getVariable(), values[chosen]);
+		}
+		return sprime;
+	}
+
+}
@@ -0,0 +1,163 @@
+package factored;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact finite-horizon expectimax over {@link SparseFactoredBelief}s of a {@link FactoredPOMDP}. Nothing is
+ * enumerated up front: each node generates the successors of its belief's support states from the action's
+ * factors, groups them by observation, and recurses on the updated beliefs. Node values are memoised per
+ * depth on the belief, so beliefs reached along different histories are only solved once. The cost is
+ * governed by the reachable supports, not by the size of the state space.
+ * <p>
+ * Instances are not thread safe; use one per thread.
+ */
+public class FactoredForwardSearch {
+
+	protected final FactoredPOMDP model;
+	protected final double gamma;
+	protected final int horizon;
+
+	// memo.get(d) maps beliefs to their Q values with d steps to go.
+	protected final List<Map<SparseFactoredBelief, double[]>> memo;
+	protected long nodesExpanded = 0;
+
+	public FactoredForwardSearch(FactoredPOMDP model, double gamma, int horizon) {
+		if(horizon < 1) {
+			throw new IllegalArgumentException("The horizon must be at least 1.");
+		}
+		this.model = model;
+		this.gamma = gamma;
+		this.horizon = horizon;
+		this.memo = new ArrayList<Map<SparseFactoredBelief, double[]>>(horizon + 1);
+		for(int d = 0; d <= horizon; d++) {
+			memo.add(new HashMap<SparseFactoredBelief, double[]>());
+		}
+	}
+
+	public FactoredPOMDP getModel() {
+		return model;
+	}
+
+	/**
+	 * Q values of every action for b with the full horizon to go.
+	 */
+	public double[] qs(SparseFactoredBelief b) {
+		return qs(b, horizon).clone();
+	}
+
+	public int bestAction(SparseFactoredBelief b) {
+		double[] qs = qs(b, horizon);
+		int best = 0;
+		for(int a = 1; a < qs.length; a++) {
+			if(qs[a] > qs[best]) {
+				best = a;
+			}
+		}
+		return best;
+	}
+
+	public double value(SparseFactoredBelief b) {
+		return value(b, horizon);
+	}
+
+	/**
+	 * Number of distinct (belief, depth) nodes solved since construction or the last {@link #resetCache()}.
+	 */
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	public void resetCache() {
+		for(Map<SparseFactoredBelief, double[]> m : memo) {
+			m.clear();
+		}
+		nodesExpanded = 0;
+	}
+
+	protected double value(SparseFactoredBelief b, int depth) {
+		if(depth == 0 || allTerminal(b)) {
+			return 0.;
+		}
+		double best = Double.NEGATIVE_INFINITY;
+		for(double q : qs(b, depth)) {
+			best = Math.max(best, q);
+		}
+		return best;
+	}
+
+	protected double[] qs(SparseFactoredBelief b, int depth) {
+		Map<SparseFactoredBelief, double[]> cache = memo.get(depth);
+		double[] qs = cache.get(b);
+		if(qs != null) {
+			return qs;
+		}
+
+		nodesExpanded++;
+		qs = new double[model.numActions()];
+		for(int a = 0; a < qs.length; a++) {
+			qs[a] = q(b, a, depth);
+		}
+		cache.put(b, qs);
+		return qs;
+	}
+
+	protected double q(SparseFactoredBelief b, final int action, int depth) {
+
+		final Map<Long, LongDoubleMap> branches = new HashMap<Long, LongDoubleMap>();
+		final double[] expectedReward = new double[1];
+		final FactoredPOMDP.ObservationModel observations = model.getObservationModel();
+		final long[] obs = new long[observations.maxObservations()];
+		final double[] obsProbs = new double[observations.maxObservations()];
+
+		for(int i = 0; i < b.supportSize(); i++) {
+			final long s = b.getState(i);
+			final double bs = b.getProbability(i);
+			model.forEachSuccessor(s, action, new FactoredAction.SuccessorVisitor() {
+				@Override
+				public void visit(long sprime, double p) {
+					double mass = bs * p;
+					expectedReward[0] += mass * model.reward(s, action, sprime);
+					int n = observations.getDistribution(sprime, action, obs, obsProbs);
+					for(int k = 0; k < n; k++) {
+						if(obsProbs[k] > 0.) {
+							LongDoubleMap branch = branches.get(obs[k]);
+							if(branch == null) {
+								branch = new LongDoubleMap();
+								branches.put(obs[k], branch);
+							}
+							branch.add(sprime, mass * obsProbs[k]);
+						}
+					}
+				}
+			});
+		}
+
+		double q = expectedReward[0];
+		if(depth > 1) {
+			for(LongDoubleMap branch : branches.values()) {
+				double pObs = 0.;
+				for(long sprime : branch.sortedKeys()) {
+					pObs += branch.get(sprime);
+				}
+				SparseFactoredBelief next = SparseFactoredBelief.fromMass(branch);
+				if(next != null) {
+					q += gamma * pObs * value(next, depth - 1);
+				}
+			}
+		}
+		return q;
+	}
+
+	protected boolean allTerminal(SparseFactoredBelief b) {
+		for(int i = 0; i < b.supportSize(); i++) {
+			if(!model.isTerminal(b.getState(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
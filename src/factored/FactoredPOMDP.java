@@ -0,0 +1,139 @@
+package factored;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import sampling.RandomStreams;
+
+/**
+ * POMDP over a {@link FactoredStateSpace} with {@link FactoredAction}s. Observations are <code>long</code> codes
+ * chosen by the {@link ObservationModel}. Like the OO-MDP dilemmas, terminal states are absorbing with zero
+ * reward.
+ */
+public class FactoredPOMDP {
+
+	public interface RewardFunction {
+		double reward(long s, int action, long sprime);
+	}
+
+	public interface TerminalFunction {
+		boolean isTerminal(long s);
+	}
+
+	public interface ObservationModel {
+
+		/**
+		 * Writes the observations that can follow action in sprime, with their probabilities, and returns how
+		 * many there are. Both arrays hold at least {@link #maxObservations()} entries.
+		 */
+		int getDistribution(long sprime, int action, long[] observations, double[] probs);
+
+		/**
+		 * Pr(observation | sprime, action), without enumerating the other observations.
+		 */
+		double getProbability(long observation, long sprime, int action);
+
+		int maxObservations();
+	}
+
+	protected final FactoredStateSpace space;
+	protected final List<FactoredAction> actions;
+	protected final RewardFunction rf;
+	protected final TerminalFunction tf;
+	protected final ObservationModel observations;
+
+	public FactoredPOMDP(FactoredStateSpace space, List<FactoredAction> actions, RewardFunction rf, TerminalFunction tf, ObservationModel observations) {
+		this.space = space;
+		this.actions = Collections.unmodifiableList(new ArrayList<FactoredAction>(actions));
+		this.rf = rf;
+		this.tf = tf;
+		this.observations = observations;
+	}
+
+	public FactoredStateSpace getStateSpace() {
+		return space;
+	}
+
+	public int numActions() {
+		return actions.size();
+	}
+
+	public FactoredAction getAction(int action) {
+		return actions.get(action);
+	}
+
+	public int actionIndex(String name) {
+		for(int a = 0; a < actions.size(); a++) {
+			if(actions.get(a).getName().equals(name)) {
+				return a;
+			}
+		}
+		return -1;
+	}
+
+	public ObservationModel getObservationModel() {
+		return observations;
+	}
+
+	public double reward(long s, int action, long sprime) {
+		return tf.isTerminal(s) ? 0. : rf.reward(s, action, sprime);
+	}
+
+	public boolean isTerminal(long s) {
+		return tf.isTerminal(s);
+	}
+
+	public void forEachSuccessor(long s, int action, FactoredAction.SuccessorVisitor visitor) {
+		if(tf.isTerminal(s)) {
+			visitor.visit(s, 1.);
+		}
+		else {
+			actions.get(action).forEachSuccessor(s, visitor);
+		}
+	}
+
+	public long sampleTransition(long s, int action) {
+		return tf.isTerminal(s) ? s : actions.get(action).sample(s);
+	}
+
+	/**
+	 * Samples an observation of sprime after action from {@link RandomStreams}.
+	 */
+	public long sampleObservation(long sprime, int action) {
+		long[] obs = new long[observations.maxObservations()];
+		double[] probs = new double[observations.maxObservations()];
+		int n = observations.getDistribution(sprime, action, obs, probs);
+		double u = RandomStreams.nextDouble();
+		double sum = 0.;
+		for(int i = 0; i < n; i++) {
+			sum += probs[i];
+			if(u < sum) {
+				return obs[i];
+			}
+		}
+		return obs[n - 1];
+	}
+
+	/**
+	 * Bayes update of b after action and observation; returns null if the observation is impossible under b.
+	 * Costs time proportional to the support of b times the successors of each support state.
+	 */
+	public SparseFactoredBelief update(SparseFactoredBelief b, final int action, final long observation) {
+		final LongDoubleMap mass = new LongDoubleMap(b.supportSize() * 2);
+		for(int i = 0; i < b.supportSize(); i++) {
+			final double bs = b.getProbability(i);
+			forEachSuccessor(b.getState(i), action, new FactoredAction.SuccessorVisitor() {
+				@Override
+				public void visit(long sprime, double p) {
+					double po = observations.getProbability(observation, sprime, action);
+					if(po > 0.) {
+						mass.add(sprime, bs * p * po);
+					}
+				}
+			});
+		}
+		return SparseFactoredBelief.fromMass(mass);
+	}
+
+}
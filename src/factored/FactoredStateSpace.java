@@ -0,0 +1,103 @@
+package factored;
+
+/**
+ * State space spanned by a list of discrete variables. A state is a <code>long</code> holding every variable's
+ * value in its own bit field, so states are never materialised as objects and the space never has to be
+ * enumerated: with 63 usable bits it can hold, e.g., thirty 3-valued variables (more than 2^47 states).
+ */
+public class FactoredStateSpace {
+
+	protected final String[] names;
+	protected final int[] sizes;
+	protected final int[] offsets;
+	protected final long[] masks;
+	protected final int numBits;
+
+	public FactoredStateSpace(String[] names, int[] sizes) {
+		if(names.length != sizes.length) {
+			throw new IllegalArgumentException("Every variable needs a name and a size.");
+		}
+		this.names = names.clone();
+		this.sizes = sizes.clone();
+		this.offsets = new int[sizes.length];
+		this.masks = new long[sizes.length];
+
+		int offset = 0;
+		for(int i = 0; i < sizes.length; i++) {
+			if(sizes[i] < 2) {
+				throw new IllegalArgumentException("Variable " + names[i] + " must have at least two values.");
+			}
+			int width = 32 - Integer.numberOfLeadingZeros(sizes[i] - 1);
+			offsets[i] = offset;
+			masks[i] = ((1L << width) - 1) << offset;
+			offset += width;
+		}
+		if(offset > 63) {
+			throw new IllegalArgumentException("The variables need " + offset + " bits; at most 63 fit in a state.");
+		}
+		this.numBits = offset;
+	}
+
+	public int numVariables() {
+		return names.length;
+	}
+
+	public String getName(int variable) {
+		return names[variable];
+	}
+
+	public int getSize(int variable) {
+		return sizes[variable];
+	}
+
+	public int variableIndex(String name) {
+		for(int i = 0; i < names.length; i++) {
+			if(names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The bits of a state that hold the given variable.
+	 */
+	public long getMask(int variable) {
+		return masks[variable];
+	}
+
+	public int numBits() {
+		return numBits;
+	}
+
+	/**
+	 * log2 of the number of joint assignments.
+	 */
+	public double log2NumStates() {
+		double bits = 0.;
+		for(int size : sizes) {
+			bits += Math.log(size) / Math.log(2);
+		}
+		return bits;
+	}
+
+	public int get(long s, int variable) {
+		return (int)((s & masks[variable]) >>> offsets[variable]);
+	}
+
+	public long set(long s, int variable, int value) {
+		return (s & ~masks[variable]) | ((long)value << offsets[variable]);
+	}
+
+	public String toString(long s) {
+		StringBuilder sb = new StringBuilder("{");
+		for(int i = 0; i < names.length; i++) {
+			if(i > 0) {
+				sb.append(", ");
+			}
+			sb.append(names[i]).append('=').append(get(s, i));
+		}
+		return sb.append('}').toString();
+	}
+
+}
@@ -0,0 +1,95 @@
+package factored;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long keys to accumulated double values, used to gather belief mass without boxing.
+ */
+public class LongDoubleMap {
+
+	protected long[] keys;
+	protected double[] values;
+	protected boolean[] used;
+	protected int size;
+
+	public LongDoubleMap() {
+		this(16);
+	}
+
+	public LongDoubleMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+		this.keys = new long[capacity];
+		this.values = new double[capacity];
+		this.used = new boolean[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds value to the key's current value, which starts at 0.
+	 */
+	public void add(long key, double value) {
+		int i = slot(key);
+		if(!used[i]) {
+			used[i] = true;
+			keys[i] = key;
+			size++;
+			if(size * 2 > keys.length) {
+				values[i] = value;
+				grow();
+				return;
+			}
+		}
+		values[i] += value;
+	}
+
+	public double get(long key) {
+		int i = slot(key);
+		return used[i] ? values[i] : 0.;
+	}
+
+	/**
+	 * The keys in ascending order.
+	 */
+	public long[] sortedKeys() {
+		long[] out = new long[size];
+		int n = 0;
+		for(int i = 0; i < keys.length; i++) {
+			if(used[i]) {
+				out[n++] = keys[i];
+			}
+		}
+		Arrays.sort(out);
+		return out;
+	}
+
+	protected int slot(long key) {
+		int mask = keys.length - 1;
+		long h = key * 0x9E3779B97F4A7C15L;
+		int i = (int)(h ^ (h >>> 32)) & mask;
+		while(used[i] && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	protected void grow() {
+		long[] oldKeys = keys;
+		double[] oldValues = values;
+		boolean[] oldUsed = used;
+		keys = new long[oldKeys.length * 2];
+		values = new double[oldKeys.length * 2];
+		used = new boolean[oldKeys.length * 2];
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldUsed[i]) {
+				int j = slot(oldKeys[i]);
+				used[j] = true;
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package factored;
+
+import java.util.Arrays;
+
+/**
+ * Immutable belief over factored states that stores only its support, as parallel arrays of states (ascending)
+ * and probabilities. Equal beliefs have equal arrays, so beliefs can key memo tables.
+ */
+public class SparseFactoredBelief {
+
+	protected final long[] states;
+	protected final double[] probs;
+	protected final int hash;
+
+	protected SparseFactoredBelief(long[] states, double[] probs) {
+		this.states = states;
+		this.probs = probs;
+		this.hash = 31 * Arrays.hashCode(states) + Arrays.hashCode(probs);
+	}
+
+	/**
+	 * Belief with all mass on s.
+	 */
+	public static SparseFactoredBelief pointMass(long s) {
+		return new SparseFactoredBelief(new long[]{s}, new double[]{1.});
+	}
+
+	/**
+	 * Normalised belief from unnormalised mass; states with no mass are dropped. Returns null if there is no mass.
+	 */
+	public static SparseFactoredBelief fromMass(LongDoubleMap mass) {
+		long[] keys = mass.sortedKeys();
+		double total = 0.;
+		int n = 0;
+		for(long key : keys) {
+			double m = mass.get(key);
+			if(m > 0.) {
+				total += m;
+				n++;
+			}
+		}
+		if(total <= 0.) {
+			return null;
+		}
+		long[] states = new long[n];
+		double[] probs = new double[n];
+		int i = 0;
+		for(long key : keys) {
+			double m = mass.get(key);
+			if(m > 0.) {
+				states[i] = key;
+				probs[i++] = m / total;
+			}
+		}
+		return new SparseFactoredBelief(states, probs);
+	}
+
+	public int supportSize() {
+		return states.length;
+	}
+
+	public long getState(int i) {
+		return states[i];
+	}
+
+	public double getProbability(int i) {
+		return probs[i];
+	}
+
+	public double probability(long s) {
+		int i = Arrays.binarySearch(states, s);
+		return i < 0 ? 0. : probs[i];
+	}
+
+	/**
+	 * Belief without the states whose probability is below minProbability, renormalised. Noisy observations
+	 * never rule a state out exactly, so pruning is what keeps the support, and the cost of updates, small.
+	 * Returns this belief if nothing is dropped, and null if everything would be.
+	 */
+	public SparseFactoredBelief pruned(double minProbability) {
+		int n = 0;
+		for(double p : probs) {
+			if(p >= minProbability) {
+				n++;
+			}
+		}
+		if(n == probs.length) {
+			return this;
+		}
+		LongDoubleMap mass = new LongDoubleMap(n);
+		for(int i = 0; i < states.length; i++) {
+			if(probs[i] >= minProbability) {
+				mass.add(states[i], probs[i]);
+			}
+		}
+		return fromMass(mass);
+	}
+
+	/**
+	 * Pr(variable = value) under the belief.
+	 */
+	public double marginal(FactoredStateSpace space, int variable, int value) {
+		double p = 0.;
+		for(int i = 0; i < states.length; i++) {
+			if(space.get(states[i], variable) == value) {
+				p += probs[i];
+			}
+		}
+		return p;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(!(o instanceof SparseFactoredBelief)) {
+			return false;
+		}
+		SparseFactoredBelief that = (SparseFactoredBelief)o;
+		return hash == that.hash && Arrays.equals(states, that.states) && Arrays.equals(probs, that.probs);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+}
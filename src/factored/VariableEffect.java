@@ -0,0 +1,20 @@
+package factored;
+
+/**
+ * One factor of a DBN transition: the distribution of a single variable's next value given the current state.
+ * The effects of an action are independent of each other given the current state, so the joint successor
+ * distribution is their product.
+ */
+public interface VariableEffect {
+
+	int getVariable();
+
+	/**
+	 * Writes the possible next values of the variable and their probabilities into the arrays and returns how
+	 * many there are. Both arrays hold at least {@link #maxOutcomes()} entries.
+	 */
+	int getDistribution(long s, int[] values, double[] probs);
+
+	int maxOutcomes();
+
+}
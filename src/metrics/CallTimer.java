@@ -0,0 +1,49 @@
+package metrics;
+
+/**
+ * Counts the calls of one operation of one component and records their latencies. Every recorded call is
+ * also emitted as a {@link ComponentCallEvent} when the JVM supports Flight Recorder and a recording has the
+ * event enabled.
+ * <p>
+ * Usage: <code>long start = timer.start(); ... timer.stop(start);</code>
+ */
+public class CallTimer {
+
+	protected final String component;
+	protected final String operation;
+	protected final LatencyHistogram histogram = new LatencyHistogram();
+
+	public CallTimer(String component, String operation) {
+		this.component = component;
+		this.operation = operation;
+	}
+
+	public String getComponent() {
+		return component;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public String getName() {
+		return component + "." + operation;
+	}
+
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	public long start() {
+		return System.nanoTime();
+	}
+
+	public void stop(long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		histogram.record(nanos);
+		if(JfrSupport.AVAILABLE) {
+			ComponentCallEvent.emit(component, operation, nanos);
+		}
+	}
+
+}
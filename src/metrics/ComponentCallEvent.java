@@ -0,0 +1,43 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one timed call of a domain or planner component. Enable it in a recording with
+ * <code>-XX:StartFlightRecording:settings=...</code> or <code>jfr configure</code> using the event name
+ * <code>ethicaldilemmas.ComponentCall</code>.
+ */
+@Name("ethicaldilemmas.ComponentCall")
+@Label("Component Call")
+@Category("Ethical Dilemmas")
+@Description("A timed call of a domain action, observation function, reward function or planner.")
+@StackTrace(false)
+class ComponentCallEvent extends Event {
+
+	@Label("Component")
+	String component;
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	long latency;
+
+	static void emit(String component, String operation, long nanos) {
+		ComponentCallEvent event = new ComponentCallEvent();
+		if(event.shouldCommit()) {
+			event.component = component;
+			event.operation = operation;
+			event.latency = nanos;
+			event.commit();
+		}
+	}
+
+}
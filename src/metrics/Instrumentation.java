@@ -0,0 +1,37 @@
+package metrics;
+
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+
+/**
+ * Helpers for domain generators that build instrumented domains.
+ */
+public final class Instrumentation {
+
+	private Instrumentation() {
+		// Static helpers only.
+	}
+
+	/**
+	 * Domain that a generator should build its actions in: the domain itself without metrics, or a scratch
+	 * domain whose actions {@link #instrumentActions} then registers in the real one behind timers.
+	 */
+	public static Domain actionDomain(Domain domain, MetricsRegistry metrics) {
+		return metrics == null ? domain : new PODomain();
+	}
+
+	/**
+	 * Registers an {@link InstrumentedAction} in domain for every action of actionDomain. Does nothing if
+	 * actionDomain is domain, i.e. metrics are off.
+	 */
+	public static void instrumentActions(Domain actionDomain, Domain domain, MetricsRegistry metrics) {
+		if(actionDomain == domain) {
+			return;
+		}
+		for(Action action : actionDomain.getActions()) {
+			new InstrumentedAction(action, domain, metrics);
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package metrics;
+
+import java.util.List;
+
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.TransitionProbability;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.FullActionModel;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.common.SimpleAction;
+
+/**
+ * Unparameterized action that times the sampled transitions and transition enumerations of another action under
+ * the component name <code>action.&lt;name&gt;</code>. The wrapper registers itself in the given domain under the
+ * delegate's name, and the grounded actions of the domain refer to it, so the delegate itself must be built in
+ * a different (scratch) domain; see {@link Instrumentation#instrumentActions}.
+ */
+public class InstrumentedAction extends SimpleAction implements FullActionModel {
+
+	protected final Action delegate;
+	protected final CallTimer performTimer;
+	protected final CallTimer transitionsTimer;
+
+	public InstrumentedAction(Action delegate, Domain domain, MetricsRegistry metrics) {
+		super(delegate.getName(), domain);
+		if(delegate.isParameterized()) {
+			throw new IllegalArgumentException("Action " + delegate.getName() + " is parameterized; only unparameterized actions can be instrumented.");
+		}
+		this.delegate = delegate;
+		this.performTimer = metrics.timer("action." + delegate.getName(), "performAction");
+		this.transitionsTimer = metrics.timer("action." + delegate.getName(), "getTransitions");
+	}
+
+	public Action getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public boolean applicableInState(State s, GroundedAction groundedAction) {
+		return delegate.applicableInState(s, groundedAction);
+	}
+
+	@Override
+	public boolean isPrimitive() {
+		return delegate.isPrimitive();
+	}
+
+	@Override
+	public State performAction(State s, GroundedAction groundedAction) {
+		long start = performTimer.start();
+		try {
+			return delegate.performAction(s, groundedAction);
+		}
+		finally {
+			performTimer.stop(start);
+		}
+	}
+
+	@Override
+	protected State performActionHelper(State s, GroundedAction groundedAction) {
+		return delegate.performAction(s, groundedAction);
+	}
+
+	@Override
+	public List<TransitionProbability> getTransitions(State s, GroundedAction groundedAction) {
+		if(!(delegate instanceof FullActionModel)) {
+			throw new UnsupportedOperationException("Action " + delegate.getName() + " does not implement FullActionModel.");
+		}
+		long start = transitionsTimer.start();
+		try {
+			return ((FullActionModel)delegate).getTransitions(s, groundedAction);
+		}
+		finally {
+			transitionsTimer.stop(start);
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package metrics;
+
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.statehashing.HashableState;
+import burlap.oomdp.statehashing.HashableStateFactory;
+
+/**
+ * State hashing factory that times the hashable states another one creates under the component name
+ * <code>hashing</code>. Pass it to planners or state enumerators in place of the factory it wraps.
+ */
+public class InstrumentedHashableStateFactory implements HashableStateFactory {
+
+	protected final HashableStateFactory delegate;
+	protected final CallTimer timer;
+
+	public InstrumentedHashableStateFactory(HashableStateFactory delegate, MetricsRegistry metrics) {
+		this.delegate = delegate;
+		this.timer = metrics.timer("hashing", "hashState");
+	}
+
+	public HashableStateFactory getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public HashableState hashState(State s) {
+		long start = timer.start();
+		try {
+			return delegate.hashState(s);
+		}
+		finally {
+			timer.stop(start);
+		}
+	}
+
+	@Override
+	public boolean objectIdentifierIndependent() {
+		return delegate.objectIdentifierIndependent();
+	}
+
+}
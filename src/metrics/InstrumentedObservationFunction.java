@@ -0,0 +1,83 @@
+package metrics;
+
+import java.util.List;
+
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.pomdp.ObservationFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+
+/**
+ * Observation function that times the queries made to another one under the component name
+ * <code>observation</code>. Constructing it replaces the domain's observation function with itself.
+ */
+public class InstrumentedObservationFunction extends ObservationFunction {
+
+	protected final ObservationFunction delegate;
+	protected final CallTimer probabilityTimer;
+	protected final CallTimer probabilitiesTimer;
+	protected final CallTimer sampleTimer;
+
+	/**
+	 * Wraps the observation function the domain currently has.
+	 */
+	public InstrumentedObservationFunction(PODomain domain, MetricsRegistry metrics) {
+		this(domain, domain.getObservationFunction(), metrics);
+	}
+
+	public InstrumentedObservationFunction(PODomain domain, ObservationFunction delegate, MetricsRegistry metrics) {
+		super(domain);
+		this.delegate = delegate;
+		this.probabilityTimer = metrics.timer("observation", "getObservationProbability");
+		this.probabilitiesTimer = metrics.timer("observation", "getObservationProbabilities");
+		this.sampleTimer = metrics.timer("observation", "sampleObservation");
+	}
+
+	public ObservationFunction getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public boolean canEnumerateObservations() {
+		return delegate.canEnumerateObservations();
+	}
+
+	@Override
+	public List<State> getAllPossibleObservations() {
+		return delegate.getAllPossibleObservations();
+	}
+
+	@Override
+	public double getObservationProbability(State observation, State state, GroundedAction action) {
+		long start = probabilityTimer.start();
+		try {
+			return delegate.getObservationProbability(observation, state, action);
+		}
+		finally {
+			probabilityTimer.stop(start);
+		}
+	}
+
+	@Override
+	public List<ObservationProbability> getObservationProbabilities(State state, GroundedAction action) {
+		long start = probabilitiesTimer.start();
+		try {
+			return delegate.getObservationProbabilities(state, action);
+		}
+		finally {
+			probabilitiesTimer.stop(start);
+		}
+	}
+
+	@Override
+	public State sampleObservation(State state, GroundedAction action) {
+		long start = sampleTimer.start();
+		try {
+			return delegate.sampleObservation(state, action);
+		}
+		finally {
+			sampleTimer.stop(start);
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package metrics;
+
+import java.util.List;
+
+import burlap.behavior.valuefunction.QFunction;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.AbstractGroundedAction;
+import burlap.oomdp.core.states.State;
+
+/**
+ * Q function that times the queries made to a planner, e.g. a
+ * {@link burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling} wrapped in a
+ * {@link burlap.behavior.policy.GreedyQPolicy}, under the component name <code>planner.&lt;name&gt;</code>.
+ * With an instrumented domain, the action and observation timers then show where a slow decision spent its time.
+ */
+public class InstrumentedQFunction implements QFunction {
+
+	protected final QFunction delegate;
+	protected final CallTimer qsTimer;
+	protected final CallTimer qTimer;
+	protected final CallTimer valueTimer;
+
+	public InstrumentedQFunction(QFunction delegate, String name, MetricsRegistry metrics) {
+		this.delegate = delegate;
+		this.qsTimer = metrics.timer("planner." + name, "getQs");
+		this.qTimer = metrics.timer("planner." + name, "getQ");
+		this.valueTimer = metrics.timer("planner." + name, "value");
+	}
+
+	public QFunction getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public List<QValue> getQs(State s) {
+		long start = qsTimer.start();
+		try {
+			return delegate.getQs(s);
+		}
+		finally {
+			qsTimer.stop(start);
+		}
+	}
+
+	@Override
+	public QValue getQ(State s, AbstractGroundedAction a) {
+		long start = qTimer.start();
+		try {
+			return delegate.getQ(s, a);
+		}
+		finally {
+			qTimer.stop(start);
+		}
+	}
+
+	@Override
+	public double value(State s) {
+		long start = valueTimer.start();
+		try {
+			return delegate.value(s);
+		}
+		finally {
+			valueTimer.stop(start);
+		}
+	}
+
+}
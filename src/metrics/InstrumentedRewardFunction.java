@@ -0,0 +1,35 @@
+package metrics;
+
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+
+/**
+ * Reward function that times another one under the component name <code>reward</code>.
+ */
+public class InstrumentedRewardFunction implements RewardFunction {
+
+	protected final RewardFunction delegate;
+	protected final CallTimer timer;
+
+	public InstrumentedRewardFunction(RewardFunction delegate, MetricsRegistry metrics) {
+		this.delegate = delegate;
+		this.timer = metrics.timer("reward", "reward");
+	}
+
+	public RewardFunction getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public double reward(State s, GroundedAction a, State sprime) {
+		long start = timer.start();
+		try {
+			return delegate.reward(s, a, sprime);
+		}
+		finally {
+			timer.stop(start);
+		}
+	}
+
+}
@@ -0,0 +1,27 @@
+package metrics;
+
+/**
+ * Whether this JVM has the Flight Recorder event API. {@link ComponentCallEvent} is only loaded when it does.
+ */
+final class JfrSupport {
+
+	static final boolean AVAILABLE = isAvailable();
+
+	private JfrSupport() {
+		// Static helpers only.
+	}
+
+	private static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		}
+		catch(ClassNotFoundException e) {
+			return false;
+		}
+		catch(LinkageError e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds. Buckets are log-linear: each power of two is split
+ * into four sub-buckets, so any recorded value is reported within 25% of its true value, using a fixed
+ * 256 counters whatever the range of latencies.
+ */
+public class LatencyHistogram {
+
+	protected static final int SUBBITS = 2;
+	protected static final int NUMBUCKETS = 64 << SUBBITS;
+
+	protected final AtomicLongArray buckets = new AtomicLongArray(NUMBUCKETS);
+	protected final AtomicLong count = new AtomicLong();
+	protected final AtomicLong total = new AtomicLong();
+	protected final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		if(nanos < 0) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+
+		long m = max.get();
+		while(nanos > m && !max.compareAndSet(m, nanos)) {
+			m = max.get();
+		}
+	}
+
+	protected static int bucket(long nanos) {
+		if(nanos < (1 << SUBBITS)) {
+			return (int)nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int)(nanos >>> (exponent - SUBBITS)) & ((1 << SUBBITS) - 1);
+		return ((exponent - SUBBITS + 1) << SUBBITS) + sub;
+	}
+
+	/**
+	 * Largest value that falls in the given bucket.
+	 */
+	protected static long bucketUpperBound(int bucket) {
+		if(bucket < (1 << SUBBITS)) {
+			return bucket;
+		}
+		int exponent = (bucket >>> SUBBITS) + SUBBITS - 1;
+		long sub = bucket & ((1 << SUBBITS) - 1);
+		long lower = (1L << exponent) + (sub << (exponent - SUBBITS));
+		return lower + (1L << (exponent - SUBBITS)) - 1;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getTotalNanos() {
+		return total.get();
+	}
+
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	/**
+	 * Approximate q-quantile (q in [0, 1]) of the recorded latencies, or 0 if nothing was recorded.
+	 */
+	public long quantile(double q) {
+		long[] counts = new long[NUMBUCKETS];
+		long n = 0;
+		for(int i = 0; i < NUMBUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			n += counts[i];
+		}
+		if(n == 0) {
+			return 0;
+		}
+		long rank = (long)Math.ceil(q * n);
+		long seen = 0;
+		for(int i = 0; i < NUMBUCKETS; i++) {
+			seen += counts[i];
+			if(seen >= rank && counts[i] > 0) {
+				return Math.min(bucketUpperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	public void reset() {
+		for(int i = 0; i < NUMBUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+}
@@ -0,0 +1,43 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Named {@link CallTimer}s shared by the instrumented components of a domain or service. Timers are created on
+ * first use and live as long as the registry; {@link #snapshot()} exports their current values without printing.
+ */
+public class MetricsRegistry {
+
+	protected final ConcurrentMap<String, CallTimer> timers = new ConcurrentHashMap<String, CallTimer>();
+
+	public CallTimer timer(String component, String operation) {
+		String name = component + "." + operation;
+		CallTimer timer = timers.get(name);
+		if(timer == null) {
+			CallTimer created = new CallTimer(component, operation);
+			timer = timers.putIfAbsent(name, created);
+			if(timer == null) {
+				timer = created;
+			}
+		}
+		return timer;
+	}
+
+	public MetricsSnapshot snapshot() {
+		List<MetricsSnapshot.TimerSnapshot> snapshots = new ArrayList<MetricsSnapshot.TimerSnapshot>(timers.size());
+		for(CallTimer timer : timers.values()) {
+			snapshots.add(new MetricsSnapshot.TimerSnapshot(timer));
+		}
+		return new MetricsSnapshot(System.currentTimeMillis(), snapshots);
+	}
+
+	public void reset() {
+		for(CallTimer timer : timers.values()) {
+			timer.getHistogram().reset();
+		}
+	}
+
+}
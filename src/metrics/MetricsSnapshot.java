@@ -0,0 +1,92 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable point-in-time copy of a {@link MetricsRegistry}, sorted by total time spent, largest first.
+ */
+public class MetricsSnapshot {
+
+	/**
+	 * Call count and latency summary of one timer.
+	 */
+	public static class TimerSnapshot {
+
+		public final String component;
+		public final String operation;
+		public final long count;
+		public final long totalNanos;
+		public final long maxNanos;
+		public final long p50Nanos;
+		public final long p90Nanos;
+		public final long p99Nanos;
+
+		public TimerSnapshot(CallTimer timer) {
+			LatencyHistogram h = timer.getHistogram();
+			this.component = timer.getComponent();
+			this.operation = timer.getOperation();
+			this.count = h.getCount();
+			this.totalNanos = h.getTotalNanos();
+			this.maxNanos = h.getMaxNanos();
+			this.p50Nanos = h.quantile(0.5);
+			this.p90Nanos = h.quantile(0.9);
+			this.p99Nanos = h.quantile(0.99);
+		}
+
+		public double getMeanNanos() {
+			return count == 0 ? 0. : (double)totalNanos / count;
+		}
+	}
+
+	public final long timestampMillis;
+	public final List<TimerSnapshot> timers;
+
+	public MetricsSnapshot(long timestampMillis, List<TimerSnapshot> timers) {
+		List<TimerSnapshot> sorted = new ArrayList<TimerSnapshot>(timers);
+		Collections.sort(sorted, new Comparator<TimerSnapshot>() {
+			@Override
+			public int compare(TimerSnapshot a, TimerSnapshot b) {
+				return Long.compare(b.totalNanos, a.totalNanos);
+			}
+		});
+		this.timestampMillis = timestampMillis;
+		this.timers = Collections.unmodifiableList(sorted);
+	}
+
+	public TimerSnapshot get(String component, String operation) {
+		for(TimerSnapshot t : timers) {
+			if(t.component.equals(component) && t.operation.equals(operation)) {
+				return t;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * One CSV row per timer, with a header row.
+	 */
+	public String toCSV() {
+		StringBuilder sb = new StringBuilder("component,operation,count,totalNanos,meanNanos,p50Nanos,p90Nanos,p99Nanos,maxNanos\n");
+		for(TimerSnapshot t : timers) {
+			sb.append(t.component).append(',').append(t.operation).append(',').append(t.count).append(',').append(t.totalNanos)
+					.append(',').append(t.getMeanNanos()).append(',').append(t.p50Nanos).append(',').append(t.p90Nanos)
+					.append(',').append(t.p99Nanos).append(',').append(t.maxNanos).append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(TimerSnapshot t : timers) {
+			sb.append(t.component).append('.').append(t.operation).append(": ").append(t.count).append(" calls, ")
+					.append(t.totalNanos / 1e6).append(" ms total, mean ").append(t.getMeanNanos()).append(" ns, p99 ")
+					.append(t.p99Nanos).append(" ns\n");
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,102 @@
+package policy;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Policy given by a set of alpha vectors, each labelled with an action: the action of belief b is the label of
+ * the vector with the largest dot product with b. The vectors are stored back to back in one array, so a
+ * decision is a single pass over contiguous memory.
+ */
+public class AlphaVectorPolicy extends CompiledPolicy {
+
+	protected final double[] alphas;
+	protected final int[] labels;
+
+	/**
+	 * @param alphas the vectors back to back, vector i starting at <code>i * numStates</code>.
+	 * @param labels the action id of each vector.
+	 */
+	public AlphaVectorPolicy(String[] actionNames, int numStates, double[] alphas, int[] labels) {
+		super(actionNames, numStates);
+		if(alphas.length != labels.length * numStates) {
+			throw new IllegalArgumentException("Expected " + labels.length + " vectors of length " + numStates + ".");
+		}
+		if(labels.length == 0) {
+			throw new IllegalArgumentException("A policy needs at least one alpha vector.");
+		}
+		for(int label : labels) {
+			if(label < 0 || label >= actionNames.length) {
+				throw new IllegalArgumentException("Alpha vector label " + label + " is not an action id.");
+			}
+		}
+		this.alphas = alphas.clone();
+		this.labels = labels.clone();
+	}
+
+	public int numAlphaVectors() {
+		return labels.length;
+	}
+
+	@Override
+	public int action(double[] b) {
+		return labels[bestVector(b, 0)];
+	}
+
+	@Override
+	public void actions(double[] beliefs, int numBeliefs, int[] actions) {
+		for(int i = 0; i < numBeliefs; i++) {
+			actions[i] = labels[bestVector(beliefs, i * numStates)];
+		}
+	}
+
+	/**
+	 * Index of the vector with the largest dot product with the belief at beliefs[offset..offset + numStates);
+	 * ties go to the lowest index.
+	 */
+	protected int bestVector(double[] beliefs, int offset) {
+		int best = 0;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for(int i = 0, row = 0; i < labels.length; i++, row += numStates) {
+			double v = 0.;
+			for(int s = 0; s < numStates; s++) {
+				v += beliefs[offset + s] * alphas[row + s];
+			}
+			if(v > bestValue) {
+				bestValue = v;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	protected int getType() {
+		return TYPEALPHAVECTORS;
+	}
+
+	@Override
+	protected void writeBody(DataOutputStream out) throws IOException {
+		out.writeInt(labels.length);
+		for(int label : labels) {
+			out.writeInt(label);
+		}
+		for(double alpha : alphas) {
+			out.writeDouble(alpha);
+		}
+	}
+
+	protected static AlphaVectorPolicy readBody(DataInputStream in, String[] actionNames, int numStates) throws IOException {
+		int[] labels = new int[in.readInt()];
+		for(int i = 0; i < labels.length; i++) {
+			labels[i] = in.readInt();
+		}
+		double[] alphas = new double[labels.length * numStates];
+		for(int i = 0; i < alphas.length; i++) {
+			alphas[i] = in.readDouble();
+		}
+		return new AlphaVectorPolicy(actionNames, numStates, alphas, labels);
+	}
+
+}
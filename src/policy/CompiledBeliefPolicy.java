@@ -0,0 +1,63 @@
+package policy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import burlap.behavior.policy.Policy;
+import burlap.oomdp.core.AbstractGroundedAction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.DenseBeliefVector;
+import tabular.TabularBeliefs;
+
+/**
+ * Deterministic BURLAP {@link Policy} that follows a {@link CompiledPolicy}, so a compiled policy can drive a
+ * {@link burlap.behavior.singleagent.pomdp.BeliefPolicyAgent} in place of a greedy policy over a planner.
+ * Belief states must be {@link DenseBeliefVector}s over the enumeration the policy was compiled for.
+ */
+public class CompiledBeliefPolicy extends Policy {
+
+	protected final CompiledPolicy policy;
+	protected final GroundedAction[] actions;
+
+	public CompiledBeliefPolicy(CompiledPolicy policy, PODomain domain) {
+		this.policy = policy;
+		this.actions = new GroundedAction[policy.numActions()];
+		for(int a = 0; a < actions.length; a++) {
+			Action action = domain.getAction(policy.getActionName(a));
+			if(action == null) {
+				throw new IllegalArgumentException("The domain has no action named " + policy.getActionName(a) + ".");
+			}
+			actions[a] = action.getAssociatedGroundedAction();
+		}
+	}
+
+	public CompiledPolicy getCompiledPolicy() {
+		return policy;
+	}
+
+	@Override
+	public AbstractGroundedAction getAction(State s) {
+		return actions[policy.action(TabularBeliefs.beliefVector(s))];
+	}
+
+	@Override
+	public List<ActionProb> getActionDistributionForState(State s) {
+		List<ActionProb> dist = new ArrayList<ActionProb>(1);
+		dist.add(new ActionProb(getAction(s), 1.));
+		return dist;
+	}
+
+	@Override
+	public boolean isStochastic() {
+		return false;
+	}
+
+	@Override
+	public boolean isDefinedFor(State s) {
+		return s instanceof DenseBeliefVector;
+	}
+
+}
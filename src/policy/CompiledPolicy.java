@@ -0,0 +1,142 @@
+package policy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Decision structure over dense belief vectors produced by {@link PolicyCompiler}. Choosing an action needs no
+ * planner, domain or model: actions are returned as ids into {@link #getActionName(int)}, which follow the
+ * action order of the tabular model the policy was compiled from. Compiled policies are immutable and can be
+ * shared between threads.
+ * <p>
+ * {@link #save(File)} and {@link #load(File)} persist policies in a small versioned binary format.
+ */
+public abstract class CompiledPolicy {
+
+	public static final int MAGIC = 0x45445043; // "EDPC"
+	public static final int VERSION = 1;
+
+	protected static final int TYPEALPHAVECTORS = 1;
+	protected static final int TYPETHRESHOLDS = 2;
+
+	protected final String[] actionNames;
+	protected final int numStates;
+
+	protected CompiledPolicy(String[] actionNames, int numStates) {
+		this.actionNames = actionNames.clone();
+		this.numStates = numStates;
+	}
+
+	/**
+	 * Action id for a dense belief vector of length {@link #numStates()}.
+	 */
+	public abstract int action(double[] b);
+
+	/**
+	 * Writes the action of beliefs[i] into actions[i] for every belief.
+	 */
+	public void actions(double[][] beliefs, int[] actions) {
+		for(int i = 0; i < beliefs.length; i++) {
+			actions[i] = action(beliefs[i]);
+		}
+	}
+
+	/**
+	 * Batch form over numBeliefs beliefs stored back to back in one array, belief i starting at
+	 * <code>i * numStates()</code>.
+	 */
+	public void actions(double[] beliefs, int numBeliefs, int[] actions) {
+		double[] b = new double[numStates];
+		for(int i = 0; i < numBeliefs; i++) {
+			System.arraycopy(beliefs, i * numStates, b, 0, numStates);
+			actions[i] = action(b);
+		}
+	}
+
+	public int numStates() {
+		return numStates;
+	}
+
+	public int numActions() {
+		return actionNames.length;
+	}
+
+	public String getActionName(int action) {
+		return actionNames[action];
+	}
+
+	public int actionIndex(String actionName) {
+		for(int a = 0; a < actionNames.length; a++) {
+			if(actionNames[a].equals(actionName)) {
+				return a;
+			}
+		}
+		return -1;
+	}
+
+	protected abstract int getType();
+
+	protected abstract void writeBody(DataOutputStream out) throws IOException;
+
+	public void save(File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			write(out);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	public static CompiledPolicy load(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if(in.readInt() != MAGIC) {
+				throw new IOException("Not a compiled policy file.");
+			}
+			int version = in.readInt();
+			if(version != VERSION) {
+				throw new IOException("Unsupported compiled policy version " + version + "; expected " + VERSION + ".");
+			}
+			return read(in);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	protected void write(DataOutputStream out) throws IOException {
+		out.writeInt(getType());
+		out.writeInt(numStates);
+		out.writeInt(actionNames.length);
+		for(String name : actionNames) {
+			out.writeUTF(name);
+		}
+		writeBody(out);
+	}
+
+	protected static CompiledPolicy read(DataInputStream in) throws IOException {
+		int type = in.readInt();
+		int numStates = in.readInt();
+		String[] actionNames = new String[in.readInt()];
+		for(int a = 0; a < actionNames.length; a++) {
+			actionNames[a] = in.readUTF();
+		}
+		if(type == TYPEALPHAVECTORS) {
+			return AlphaVectorPolicy.readBody(in, actionNames, numStates);
+		}
+		if(type == TYPETHRESHOLDS) {
+			return ThresholdPolicy.readBody(in, actionNames, numStates);
+		}
+		throw new IOException("Unknown compiled policy type " + type + ".");
+	}
+
+}
@@ -0,0 +1,230 @@
+package policy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import burlap.behavior.valuefunction.QFunction;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import solvers.AlphaVectorQFunction;
+import tabular.TabularBeliefs;
+import tabular.TabularPOMDP;
+
+/**
+ * Turns solved value functions into {@link CompiledPolicy}s:
+ * <ul>
+ *     <li>{@link #compile(AlphaVectorQFunction)} keeps the alpha vectors, minus those another vector dominates
+ *     everywhere, for any number of states.</li>
+ *     <li>{@link #compileThresholds(AlphaVectorQFunction, int, int)} computes the exact belief thresholds of a
+ *     two-hypothesis dilemma from the vectors.</li>
+ *     <li>{@link #compileThresholds(QFunction, PODomain, TabularPOMDP, int, int, int, double)} finds the
+ *     thresholds of any belief planner, e.g. BeliefSparseSampling, by scanning a grid and bisecting every
+ *     action change.</li>
+ * </ul>
+ */
+public class PolicyCompiler {
+
+	private PolicyCompiler() {
+		// Static helpers only.
+	}
+
+	public static String[] actionNames(TabularPOMDP model) {
+		String[] names = new String[model.numActions()];
+		for(int a = 0; a < names.length; a++) {
+			names[a] = model.getAction(a).actionName();
+		}
+		return names;
+	}
+
+	public static AlphaVectorPolicy compile(AlphaVectorQFunction qs) {
+		TabularPOMDP model = qs.getModel();
+		int nS = model.numStates();
+
+		List<double[]> kept = new ArrayList<double[]>();
+		List<Integer> labels = new ArrayList<Integer>();
+		for(int a = 0; a < model.numActions(); a++) {
+			for(double[] alpha : qs.getAlphaVectors(a)) {
+				if(!dominated(alpha, kept)) {
+					// Drop earlier vectors the new one dominates.
+					for(int i = kept.size() - 1; i >= 0; i--) {
+						if(dominates(alpha, kept.get(i))) {
+							kept.remove(i);
+							labels.remove(i);
+						}
+					}
+					kept.add(alpha);
+					labels.add(a);
+				}
+			}
+		}
+
+		double[] alphas = new double[kept.size() * nS];
+		int[] labelArray = new int[kept.size()];
+		for(int i = 0; i < kept.size(); i++) {
+			System.arraycopy(kept.get(i), 0, alphas, i * nS, nS);
+			labelArray[i] = labels.get(i);
+		}
+		return new AlphaVectorPolicy(actionNames(model), nS, alphas, labelArray);
+	}
+
+	protected static boolean dominated(double[] alpha, List<double[]> others) {
+		for(double[] other : others) {
+			if(dominates(other, alpha)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * True if a is at least b in every state.
+	 */
+	protected static boolean dominates(double[] a, double[] b) {
+		for(int s = 0; s < a.length; s++) {
+			if(a[s] < b[s]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Exact thresholds for beliefs over states s0 and s1. On that line every alpha vector is linear in
+	 * p = b(s1), so the greedy action can only change where two vectors cross; the greedy action is evaluated
+	 * between consecutive crossings and equal neighbours are merged. Beliefs outside the two states fall back
+	 * to {@link #compile(AlphaVectorQFunction)}.
+	 */
+	public static ThresholdPolicy compileThresholds(AlphaVectorQFunction qs, int s0, int s1) {
+		TabularPOMDP model = qs.getModel();
+		double[][] vectors = qs.getValueVectors();
+
+		List<Double> cuts = new ArrayList<Double>();
+		cuts.add(0.);
+		cuts.add(1.);
+		for(int i = 0; i < vectors.length; i++) {
+			double slopeI = vectors[i][s1] - vectors[i][s0];
+			for(int j = i + 1; j < vectors.length; j++) {
+				double slopeJ = vectors[j][s1] - vectors[j][s0];
+				if(slopeI != slopeJ) {
+					double p = (vectors[j][s0] - vectors[i][s0]) / (slopeI - slopeJ);
+					if(p > 0. && p < 1.) {
+						cuts.add(p);
+					}
+				}
+			}
+		}
+		double[] sorted = new double[cuts.size()];
+		for(int i = 0; i < sorted.length; i++) {
+			sorted[i] = cuts.get(i);
+		}
+		Arrays.sort(sorted);
+
+		double[] b = new double[model.numStates()];
+		List<Double> thresholds = new ArrayList<Double>();
+		List<Integer> actions = new ArrayList<Integer>();
+		for(int i = 0; i + 1 < sorted.length; i++) {
+			if(sorted[i + 1] == sorted[i]) {
+				continue;
+			}
+			double mid = (sorted[i] + sorted[i + 1]) / 2.;
+			b[s0] = 1. - mid;
+			b[s1] = mid;
+			int a = qs.bestAction(b);
+			if(actions.isEmpty()) {
+				actions.add(a);
+			}
+			else if(actions.get(actions.size() - 1) != a) {
+				thresholds.add(sorted[i]);
+				actions.add(a);
+			}
+		}
+
+		return new ThresholdPolicy(actionNames(model), model.numStates(), s0, s1, toDoubles(thresholds), toInts(actions), compile(qs));
+	}
+
+	/**
+	 * Thresholds of an arbitrary belief planner over states s0 and s1: the greedy action is evaluated at
+	 * gridPoints evenly spaced values of p = b(s1), and every change between neighbours is located by bisection
+	 * to within tolerance. Changes that happen and revert between two grid points are missed, so the grid should
+	 * be fine enough for the planner's decision regions. The result has no fallback.
+	 */
+	public static ThresholdPolicy compileThresholds(QFunction planner, PODomain domain, TabularPOMDP model, int s0, int s1,
+													int gridPoints, double tolerance) {
+		if(gridPoints < 2) {
+			throw new IllegalArgumentException("At least two grid points are needed.");
+		}
+
+		List<Double> thresholds = new ArrayList<Double>();
+		List<Integer> actions = new ArrayList<Integer>();
+
+		double prevP = 0.;
+		int prevA = greedyAction(planner, domain, model, s0, s1, prevP);
+		actions.add(prevA);
+		for(int i = 1; i < gridPoints; i++) {
+			double p = (double)i / (gridPoints - 1);
+			int a = greedyAction(planner, domain, model, s0, s1, p);
+			if(a != prevA) {
+				// The boundary lies in (lo, hi]: lo has prevA, hi does not.
+				double lo = prevP;
+				double hi = p;
+				int hiA = a;
+				while(hi - lo > tolerance) {
+					double mid = (lo + hi) / 2.;
+					int midA = greedyAction(planner, domain, model, s0, s1, mid);
+					if(midA == prevA) {
+						lo = mid;
+					}
+					else {
+						hi = mid;
+						hiA = midA;
+					}
+				}
+				thresholds.add(hi);
+				actions.add(hiA);
+				if(hiA != a) {
+					// A third action sits between the boundary and the grid point.
+					thresholds.add(p);
+					actions.add(a);
+				}
+			}
+			prevP = p;
+			prevA = a;
+		}
+
+		return new ThresholdPolicy(actionNames(model), model.numStates(), s0, s1, toDoubles(thresholds), toInts(actions), null);
+	}
+
+	protected static int greedyAction(QFunction planner, PODomain domain, TabularPOMDP model, int s0, int s1, double p) {
+		double[] b = new double[model.numStates()];
+		b[s0] = 1. - p;
+		b[s1] = p;
+		int best = -1;
+		double bestQ = Double.NEGATIVE_INFINITY;
+		for(QValue q : planner.getQs(TabularBeliefs.toBeliefState(domain, model, b))) {
+			int a = model.actionIndex(q.a.actionName());
+			if(q.q > bestQ || (q.q == bestQ && a < best)) {
+				bestQ = q.q;
+				best = a;
+			}
+		}
+		return best;
+	}
+
+	protected static double[] toDoubles(List<Double> values) {
+		double[] array = new double[values.size()];
+		for(int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+
+	protected static int[] toInts(List<Integer> values) {
+		int[] array = new int[values.size()];
+		for(int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+
+}
@@ -0,0 +1,152 @@
+package policy;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Policy for dilemmas whose belief lives on two states, such as the two moral hypotheses of CakeDeath or the
+ * valuable/not valuable robot of BurningRoom. With p = b(s1) / (b(s0) + b(s1)), the unit interval is cut at
+ * ascending thresholds t_0 < t_1 < ... and action i is taken for p in [t_(i-1), t_i), so a decision is a
+ * binary search over a handful of numbers.
+ * <p>
+ * Beliefs with mass outside the two states go to the fallback policy if there is one, and are rejected
+ * otherwise.
+ */
+public class ThresholdPolicy extends CompiledPolicy {
+
+	// Mass outside the two states below this is treated as rounding error.
+	protected static final double SUPPORTTOLERANCE = 1e-9;
+
+	protected final int s0;
+	protected final int s1;
+	protected final double[] thresholds;
+	protected final int[] intervalActions;
+	protected final CompiledPolicy fallback;
+
+	/**
+	 * @param thresholds ascending cut points in (0, 1).
+	 * @param intervalActions the action of each of the thresholds.length + 1 intervals.
+	 * @param fallback policy for beliefs outside the two states, or null.
+	 */
+	public ThresholdPolicy(String[] actionNames, int numStates, int s0, int s1, double[] thresholds, int[] intervalActions, CompiledPolicy fallback) {
+		super(actionNames, numStates);
+		if(intervalActions.length != thresholds.length + 1) {
+			throw new IllegalArgumentException("Expected " + (thresholds.length + 1) + " interval actions but got " + intervalActions.length + ".");
+		}
+		for(int i = 1; i < thresholds.length; i++) {
+			if(thresholds[i] < thresholds[i - 1]) {
+				throw new IllegalArgumentException("Thresholds must be ascending.");
+			}
+		}
+		this.s0 = s0;
+		this.s1 = s1;
+		this.thresholds = thresholds.clone();
+		this.intervalActions = intervalActions.clone();
+		this.fallback = fallback;
+	}
+
+	public int getFirstState() {
+		return s0;
+	}
+
+	public int getSecondState() {
+		return s1;
+	}
+
+	/**
+	 * The cut points, as probabilities of the second state.
+	 */
+	public double[] getThresholds() {
+		return thresholds.clone();
+	}
+
+	public int getIntervalAction(int interval) {
+		return intervalActions[interval];
+	}
+
+	public CompiledPolicy getFallback() {
+		return fallback;
+	}
+
+	/**
+	 * Action when the second state has probability p and the first 1 - p.
+	 */
+	public int action(double p) {
+		int lo = 0;
+		int hi = thresholds.length;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(thresholds[mid] <= p) {
+				lo = mid + 1;
+			}
+			else {
+				hi = mid;
+			}
+		}
+		return intervalActions[lo];
+	}
+
+	@Override
+	public int action(double[] b) {
+		double mass = b[s0] + b[s1];
+		if(mass <= 0. || mass < 1. - SUPPORTTOLERANCE) {
+			if(fallback != null) {
+				return fallback.action(b);
+			}
+			throw new IllegalArgumentException("The belief has mass outside states " + s0 + " and " + s1 + ".");
+		}
+		return action(b[s1] / mass);
+	}
+
+	@Override
+	protected int getType() {
+		return TYPETHRESHOLDS;
+	}
+
+	@Override
+	protected void writeBody(DataOutputStream out) throws IOException {
+		out.writeInt(s0);
+		out.writeInt(s1);
+		out.writeInt(thresholds.length);
+		for(double t : thresholds) {
+			out.writeDouble(t);
+		}
+		for(int a : intervalActions) {
+			out.writeInt(a);
+		}
+		out.writeBoolean(fallback != null);
+		if(fallback != null) {
+			fallback.write(out);
+		}
+	}
+
+	protected static ThresholdPolicy readBody(DataInputStream in, String[] actionNames, int numStates) throws IOException {
+		int s0 = in.readInt();
+		int s1 = in.readInt();
+		double[] thresholds = new double[in.readInt()];
+		for(int i = 0; i < thresholds.length; i++) {
+			thresholds[i] = in.readDouble();
+		}
+		int[] intervalActions = new int[thresholds.length + 1];
+		for(int i = 0; i < intervalActions.length; i++) {
+			intervalActions[i] = in.readInt();
+		}
+		CompiledPolicy fallback = in.readBoolean() ? read(in) : null;
+		return new ThresholdPolicy(actionNames, numStates, s0, s1, thresholds, intervalActions, fallback);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		double from = 0.;
+		for(int i = 0; i < intervalActions.length; i++) {
+			double to = i < thresholds.length ? thresholds[i] : 1.;
+			sb.append("[").append(from).append(", ").append(to).append(i < thresholds.length ? ")" : "]").append(": ")
+					.append(actionNames[intervalActions[i]]).append("\n");
+			from = to;
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,215 @@
+package sampling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.TransitionProbability;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.FullActionModel;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.common.SimpleAction;
+import burlap.oomdp.statehashing.HashableState;
+import burlap.oomdp.statehashing.HashableStateFactory;
+
+/**
+ * Unparameterized action that memoises the transition distributions of another {@link FullActionModel} action,
+ * keyed on the hashed state and the grounded action. Belief planners ask for the same distribution over and
+ * over; after the first call this one answers with a new list of new {@link TransitionProbability} objects, which
+ * the caller may modify, over the cached successor states, without asking the delegate or copying states. The
+ * successor states are shared between calls and are read-only. Sampled steps are passed to the delegate
+ * unchanged, so seeded trajectories are the same with and without the cache.
+ * <p>
+ * The cache holds at most a fixed number of distributions and evicts the least recently used one when full.
+ * It is safe to share between threads; the delegate is only called outside the cache lock, so concurrent misses
+ * on the same key may both compute the distribution. Like {@link metrics.InstrumentedAction}, the wrapper
+ * registers itself in the given domain under the delegate's name, so the delegate must be built in a different
+ * (scratch) domain; see {@link #cacheActions}.
+ */
+public class CachedTransitionsAction extends SimpleAction implements FullActionModel {
+
+	protected final Action delegate;
+	protected final HashableStateFactory hashingFactory;
+	protected final int maxSize;
+
+	protected final Map<Key, List<TransitionProbability>> cache;
+
+	protected final AtomicLong hits = new AtomicLong();
+	protected final AtomicLong misses = new AtomicLong();
+	protected final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param hashingFactory hashes the states distributions are keyed on; states that hash equal must have the
+	 *                       same distribution.
+	 * @param maxSize the most distributions to keep before evicting the least recently used one.
+	 */
+	public CachedTransitionsAction(Action delegate, Domain domain, HashableStateFactory hashingFactory, final int maxSize) {
+		super(delegate.getName(), domain);
+		if(delegate.isParameterized()) {
+			throw new IllegalArgumentException("Action " + delegate.getName() + " is parameterized; only unparameterized actions can be cached.");
+		}
+		if(!(delegate instanceof FullActionModel)) {
+			throw new IllegalArgumentException("Action " + delegate.getName() + " does not implement FullActionModel.");
+		}
+		if(maxSize < 1) {
+			throw new IllegalArgumentException("Max size must be at least 1.");
+		}
+		this.delegate = delegate;
+		this.hashingFactory = hashingFactory;
+		this.maxSize = maxSize;
+		this.cache = new LinkedHashMap<Key, List<TransitionProbability>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, List<TransitionProbability>> eldest) {
+				if(this.size() > maxSize) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Registers a {@link CachedTransitionsAction} in domain for every action of actionDomain, each with its own
+	 * cache of at most maxSize distributions.
+	 */
+	public static void cacheActions(Domain actionDomain, Domain domain, HashableStateFactory hashingFactory, int maxSize) {
+		for(Action action : actionDomain.getActions()) {
+			new CachedTransitionsAction(action, domain, hashingFactory, maxSize);
+		}
+	}
+
+	public Action getDelegate() {
+		return delegate;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	public double getHitRate() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0. : (double)h / total;
+	}
+
+	public int size() {
+		synchronized(cache) {
+			return cache.size();
+		}
+	}
+
+	public void clear() {
+		synchronized(cache) {
+			cache.clear();
+		}
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+	}
+
+	@Override
+	public boolean applicableInState(State s, GroundedAction groundedAction) {
+		return delegate.applicableInState(s, groundedAction);
+	}
+
+	@Override
+	public boolean isPrimitive() {
+		return delegate.isPrimitive();
+	}
+
+	@Override
+	public State performAction(State s, GroundedAction groundedAction) {
+		return delegate.performAction(s, groundedAction);
+	}
+
+	@Override
+	protected State performActionHelper(State s, GroundedAction groundedAction) {
+		return delegate.performAction(s, groundedAction);
+	}
+
+	@Override
+	public List<TransitionProbability> getTransitions(State s, GroundedAction groundedAction) {
+		Key key = new Key(hashingFactory.hashState(s), groundedAction);
+
+		List<TransitionProbability> cached;
+		synchronized(cache) {
+			cached = cache.get(key);
+		}
+		if(cached != null) {
+			hits.incrementAndGet();
+			return copy(cached);
+		}
+
+		misses.incrementAndGet();
+		List<TransitionProbability> tps = ((FullActionModel)delegate).getTransitions(s, groundedAction);
+		cached = Collections.unmodifiableList(copy(tps));
+
+		// The caller may modify s and groundedAction later, so the stored key gets copies.
+		Key stored = new Key(hashingFactory.hashState(s.copy()), groundedAction.copy());
+		synchronized(cache) {
+			cache.put(stored, cached);
+		}
+		return copy(cached);
+	}
+
+	/**
+	 * New transition probabilities over the same states.
+	 */
+	protected static List<TransitionProbability> copy(List<TransitionProbability> tps) {
+		List<TransitionProbability> copies = new ArrayList<TransitionProbability>(tps.size());
+		for(TransitionProbability tp : tps) {
+			copies.add(new TransitionProbability(tp.s, tp.p));
+		}
+		return copies;
+	}
+
+	/**
+	 * A hashed state and the grounded action applied in it.
+	 */
+	protected static class Key {
+
+		protected final HashableState state;
+		protected final GroundedAction action;
+		protected final int hashCode;
+
+		public Key(HashableState state, GroundedAction action) {
+			this.state = state;
+			this.action = action;
+			this.hashCode = 31 * state.hashCode() + action.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(this == other) {
+				return true;
+			}
+			if(!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key)other;
+			return state.equals(key.state) && action.equals(key.action);
+		}
+	}
+
+}
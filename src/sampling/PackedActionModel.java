@@ -0,0 +1,21 @@
+package sampling;
+
+/**
+ * Dynamics of one action on packed state codes, as used by {@link PooledAction}.
+ */
+public interface PackedActionModel {
+
+	/**
+	 * Draws a successor of s from {@link RandomStreams}.
+	 */
+	int sample(int s);
+
+	/**
+	 * Writes the successors of s and their probabilities into the arrays, which hold at least
+	 * {@link #maxSuccessors()} entries, and returns how many were written.
+	 */
+	int getTransitions(int s, int[] successors, double[] probs);
+
+	int maxSuccessors();
+
+}
@@ -0,0 +1,58 @@
+package sampling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.TransitionProbability;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.FullActionModel;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.common.SimpleAction;
+
+/**
+ * Unparameterized action whose dynamics are a {@link PackedActionModel} and whose outcomes are the shared states
+ * of a {@link StatePool}. Sampling a step encodes the state (free when it is already pooled), draws the successor
+ * code and returns the pooled successor: nothing is copied and nothing is allocated, which keeps long simulations
+ * through a {@link burlap.oomdp.singleagent.pomdp.SimulatedPOEnvironment} out of the garbage collector. The states
+ * it accepts are never modified.
+ */
+public class PooledAction extends SimpleAction implements FullActionModel {
+
+	protected final StatePool pool;
+	protected final PackedActionModel model;
+
+	public PooledAction(String name, Domain domain, StatePool pool, PackedActionModel model) {
+		super(name, domain);
+		this.pool = pool;
+		this.model = model;
+	}
+
+	public StatePool getPool() {
+		return pool;
+	}
+
+	@Override
+	public State performAction(State s, GroundedAction groundedAction) {
+		return performActionHelper(s, groundedAction);
+	}
+
+	@Override
+	protected State performActionHelper(State s, GroundedAction groundedAction) {
+		return pool.get(model.sample(pool.encode(s)));
+	}
+
+	@Override
+	public List<TransitionProbability> getTransitions(State s, GroundedAction groundedAction) {
+		int[] successors = new int[model.maxSuccessors()];
+		double[] probs = new double[model.maxSuccessors()];
+		int n = model.getTransitions(pool.encode(s), successors, probs);
+
+		List<TransitionProbability> tps = new ArrayList<TransitionProbability>(n);
+		for(int i = 0; i < n; i++) {
+			tps.add(new TransitionProbability(pool.get(successors[i]), probs[i]));
+		}
+		return tps;
+	}
+
+}
@@ -0,0 +1,71 @@
+package sampling;
+
+import java.util.SplittableRandom;
+
+/**
+ * Source of randomness for the domains' generative models. Each thread draws from its own
+ * {@link SplittableRandom} stream, so parallel rollouts never contend on a shared seed.
+ * <p>
+ * A thread that has not bound a stream gets one split from a root stream the first time it samples.
+ * For reproducible Monte Carlo runs, bind {@link #forEpisode(long, long)} before each episode: the
+ * stream then depends only on the seed and the episode index, not on which thread runs the episode
+ * or how many threads there are.
+ */
+public final class RandomStreams {
+
+	private static SplittableRandom root = new SplittableRandom();
+
+	private static final ThreadLocal<SplittableRandom> current = new ThreadLocal<SplittableRandom>() {
+		@Override
+		protected SplittableRandom initialValue() {
+			return splitRoot();
+		}
+	};
+
+	private RandomStreams() {
+		// Static helpers only.
+	}
+
+	private static synchronized SplittableRandom splitRoot() {
+		return root.split();
+	}
+
+	/**
+	 * Reseeds the root stream that unbound threads split their streams from. Threads that already
+	 * have a stream keep it until they {@link #unbind()}.
+	 */
+	public static synchronized void setRootSeed(long seed) {
+		root = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Returns an independent stream for the given episode of a run with the given seed.
+	 */
+	public static SplittableRandom forEpisode(long seed, long episode) {
+		// Jump the seed by the episode index so that each episode gets its own stream.
+		return new SplittableRandom(seed + episode * 0x9E3779B97F4A7C15L).split();
+	}
+
+	/**
+	 * Makes the current thread sample from the given stream.
+	 */
+	public static void bind(SplittableRandom stream) {
+		current.set(stream);
+	}
+
+	/**
+	 * Drops the current thread's stream; its next draw splits a fresh one from the root.
+	 */
+	public static void unbind() {
+		current.remove();
+	}
+
+	public static SplittableRandom current() {
+		return current.get();
+	}
+
+	public static double nextDouble() {
+		return current.get().nextDouble();
+	}
+
+}
@@ -0,0 +1,208 @@
+package sampling;
+
+import java.util.Collection;
+
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.objects.MutableObjectInstance;
+import burlap.oomdp.core.objects.ObjectInstance;
+import burlap.oomdp.core.states.MutableState;
+import burlap.oomdp.core.states.State;
+import tabular.StateCodec;
+
+/**
+ * One shared, immutable state per code of a {@link StateCodec}, so that simulators built from
+ * {@link PooledAction}s step from pooled state to pooled state without copying or allocating. The pool is filled
+ * when it is built and is safe to share between threads.
+ */
+public class StatePool {
+
+	/**
+	 * A pooled state. It is shared by every simulation that reaches it, so copy() returns the state itself, which is
+	 * what makes stepping through {@link burlap.oomdp.singleagent.Action#performAction} free of copies. Every
+	 * mutator of the state and of its objects throws an UnsupportedOperationException instead of changing what
+	 * the other simulations see; code that needs a modified state must build a new one.
+	 */
+	public static final class PooledState extends MutableState {
+
+		protected final StatePool pool;
+		protected final int code;
+
+		protected PooledState(StatePool pool, int code, State contents) {
+			this.pool = pool;
+			this.code = code;
+			for(ObjectInstance o : contents.getAllObjects()) {
+				super.addObject(new PooledObject((MutableObjectInstance)o));
+			}
+		}
+
+		public int getCode() {
+			return code;
+		}
+
+		@Override
+		public MutableState copy() {
+			return this;
+		}
+
+		@Override
+		public State addObject(ObjectInstance o) {
+			throw immutable();
+		}
+
+		@Override
+		public State addAllObjects(Collection<ObjectInstance> objects) {
+			throw immutable();
+		}
+
+		@Override
+		public State removeObject(String oname) {
+			throw immutable();
+		}
+
+		@Override
+		public State removeObject(ObjectInstance o) {
+			throw immutable();
+		}
+
+		@Override
+		public State removeAllObjects(Collection<ObjectInstance> objects) {
+			throw immutable();
+		}
+
+		@Override
+		public State renameObject(String originalName, String newName) {
+			throw immutable();
+		}
+
+		@Override
+		public State renameObject(ObjectInstance o, String newName) {
+			throw immutable();
+		}
+
+		@Override
+		public <T> State setObjectsValue(String objectName, String attName, T value) {
+			throw immutable();
+		}
+
+	}
+
+	/**
+	 * Object of a {@link PooledState}; its values are fixed when the pool is built. copy() returns an ordinary,
+	 * mutable copy.
+	 */
+	protected static final class PooledObject extends MutableObjectInstance {
+
+		protected PooledObject(MutableObjectInstance o) {
+			super(o);
+		}
+
+		@Override
+		public MutableObjectInstance copy() {
+			return new MutableObjectInstance(this);
+		}
+
+		@Override
+		public ObjectInstance setName(String name) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance setValue(String attName, String v) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance setValue(String attName, double v) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance setValue(String attName, int v) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance setValue(String attName, boolean v) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance setValue(String attName, int[] v) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance setValue(String attName, double[] v) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance addRelationalTarget(String attName, String target) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance addAllRelationalTargets(String attName, Collection<String> targets) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance clearRelationalTargets(String attName) {
+			throw immutable();
+		}
+
+		@Override
+		public ObjectInstance removeRelationalTarget(String attName, String target) {
+			throw immutable();
+		}
+
+	}
+
+	protected static UnsupportedOperationException immutable() {
+		return new UnsupportedOperationException("Pooled states are shared between simulations and must not be modified.");
+	}
+
+	protected final StateCodec codec;
+	protected final PooledState[] states;
+
+	/**
+	 * Decodes every code in [0, numCodes) in domain.
+	 */
+	public StatePool(Domain domain, StateCodec codec, int numCodes) {
+		this.codec = codec;
+		this.states = new PooledState[numCodes];
+		for(int code = 0; code < numCodes; code++) {
+			states[code] = new PooledState(this, code, codec.decode(domain, code));
+		}
+	}
+
+	public StateCodec getCodec() {
+		return codec;
+	}
+
+	public int size() {
+		return states.length;
+	}
+
+	public State get(int code) {
+		return states[code];
+	}
+
+	/**
+	 * Code of s; free for states of this pool, otherwise it is read from the state's attributes.
+	 */
+	public int encode(State s) {
+		if(s instanceof PooledState && ((PooledState)s).pool == this) {
+			return ((PooledState)s).code;
+		}
+		return codec.encode(s);
+	}
+
+	/**
+	 * The pooled state equal to s.
+	 */
+	public State intern(State s) {
+		return states[encode(s)];
+	}
+
+}
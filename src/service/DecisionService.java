@@ -0,0 +1,420 @@
+package service;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import burlap.behavior.valuefunction.QFunction;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+import metrics.CallTimer;
+import metrics.MetricsRegistry;
+import solvers.CachedBeliefQFunction;
+
+/**
+ * In-process decision service for many concurrent sessions, each an agent at its own point in a dilemma. A
+ * session keeps its own {@link TabularBeliefState}; callers report the action a session took and the
+ * observation it received with {@link #step}, and get back a future of the session's next decision, the greedy
+ * action of the planner at the updated belief.
+ * <p>
+ * Requests of one session are applied in the order they were submitted: each session has a mailbox that one
+ * task at a time drains, so sessions never need a lock and different sessions run in parallel. Tasks run on
+ * virtual threads where the JDK has them ({@link #defaultExecutor()}). Planner queries for beliefs that agree to
+ * within the batching tolerance are batched: while one session's query is running, others with the same belief
+ * wait for its result instead of calling the planner again; to also reuse queries that have finished, wrap the
+ * planner in a {@link CachedBeliefQFunction}. At most a fixed number of requests may be pending;
+ * beyond that, requests wait up to the admission timeout and are then rejected, so an overloaded service pushes
+ * back on its callers instead of queueing without bound.
+ * <p>
+ * The planner is shared by all sessions and must be thread safe, e.g. an {@link solvers.AlphaVectorQFunction},
+ * a {@link solvers.QMDPQFunction} or a {@link CachedBeliefQFunction} over a thread-safe planner.
+ */
+public class DecisionService implements Closeable {
+
+	/**
+	 * A session's belief after a request and the action to take next.
+	 */
+	public static class Decision {
+
+		public final String sessionId;
+		// Number of steps the session has taken.
+		public final long step;
+		// A copy of the session's belief, which the caller may modify.
+		public final TabularBeliefState belief;
+		public final GroundedAction action;
+		public final List<QValue> qs;
+
+		public Decision(String sessionId, long step, TabularBeliefState belief, GroundedAction action, List<QValue> qs) {
+			this.sessionId = sessionId;
+			this.step = step;
+			this.belief = belief;
+			this.action = action;
+			this.qs = qs;
+		}
+
+		@Override
+		public String toString() {
+			return sessionId + " step " + step + ": " + action.actionName();
+		}
+	}
+
+	protected static class Session {
+
+		protected final String id;
+		protected final Queue<FutureTask<Decision>> mailbox = new ConcurrentLinkedQueue<FutureTask<Decision>>();
+		protected final AtomicBoolean scheduled = new AtomicBoolean();
+
+		// Only read and written by the task draining the mailbox.
+		protected TabularBeliefState belief;
+		protected long steps;
+
+		protected Session(String id, TabularBeliefState belief) {
+			this.id = id;
+			this.belief = belief;
+		}
+	}
+
+	protected final QFunction planner;
+	protected final ExecutorService executor;
+	protected final boolean ownsExecutor;
+
+	protected final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+	protected final ConcurrentMap<CachedBeliefQFunction.BeliefKey, FutureTask<List<QValue>>> queries =
+			new ConcurrentHashMap<CachedBeliefQFunction.BeliefKey, FutureTask<List<QValue>>>();
+
+	protected final int maxPendingRequests;
+	protected final Semaphore admissions;
+	protected long admissionTimeoutNanos = 0;
+	protected double batchingTolerance = 1e-9;
+
+	protected final AtomicLong plannerCalls = new AtomicLong();
+	protected final AtomicLong batchedQueries = new AtomicLong();
+	protected final AtomicLong rejectedRequests = new AtomicLong();
+
+	protected CallTimer updateTimer;
+	protected CallTimer planTimer;
+
+	/**
+	 * Service on the {@link #defaultExecutor()}, which {@link #close()} shuts down.
+	 *
+	 * @param maxPendingRequests the most requests that may be submitted but not yet answered.
+	 */
+	public DecisionService(QFunction planner, int maxPendingRequests) {
+		this(planner, maxPendingRequests, defaultExecutor(), true);
+	}
+
+	/**
+	 * Service on the given executor, which is not shut down.
+	 */
+	public DecisionService(QFunction planner, int maxPendingRequests, ExecutorService executor) {
+		this(planner, maxPendingRequests, executor, false);
+	}
+
+	protected DecisionService(QFunction planner, int maxPendingRequests, ExecutorService executor, boolean ownsExecutor) {
+		if(maxPendingRequests < 1) {
+			throw new IllegalArgumentException("At least 1 pending request must be allowed.");
+		}
+		this.planner = planner;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.maxPendingRequests = maxPendingRequests;
+		this.admissions = new Semaphore(maxPendingRequests);
+	}
+
+	/**
+	 * An executor that starts a virtual thread per task if the JDK has virtual threads, and otherwise a fork-join
+	 * pool with one worker per available processor. The project builds on Java 8 (update 262 or later, for
+	 * jdk.jfr), and virtual threads arrived in Java 21, so the factory is looked up reflectively.
+	 */
+	public static ExecutorService defaultExecutor() {
+		try {
+			Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)factory.invoke(null);
+		}
+		catch(ReflectiveOperationException e) {
+			return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	/**
+	 * How long a request may wait for a free slot before it is rejected; 0 rejects requests as soon as the
+	 * service is full.
+	 */
+	public void setAdmissionTimeout(long timeout, TimeUnit unit) {
+		this.admissionTimeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Beliefs whose components all round to the same multiple of the tolerance share one planner query.
+	 */
+	public void setBatchingTolerance(double batchingTolerance) {
+		if(batchingTolerance <= 0.) {
+			throw new IllegalArgumentException("Tolerance must be positive.");
+		}
+		this.batchingTolerance = batchingTolerance;
+	}
+
+	/**
+	 * Times belief updates and planner queries in the given registry under the component name
+	 * <code>decisionService</code>; null turns timing off again.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		this.updateTimer = metrics == null ? null : metrics.timer("decisionService", "beliefUpdate");
+		this.planTimer = metrics == null ? null : metrics.timer("decisionService", "plan");
+	}
+
+	public int numSessions() {
+		return sessions.size();
+	}
+
+	public long getPlannerCalls() {
+		return plannerCalls.get();
+	}
+
+	/**
+	 * Number of queries answered by another session's planner call.
+	 */
+	public long getBatchedQueries() {
+		return batchedQueries.get();
+	}
+
+	public long getRejectedRequests() {
+		return rejectedRequests.get();
+	}
+
+	/**
+	 * Number of requests submitted but not yet answered.
+	 */
+	public int getPendingRequests() {
+		return maxPendingRequests - admissions.availablePermits();
+	}
+
+	/**
+	 * Opens a session with the given initial belief, which the service takes over, and returns its first decision.
+	 * Throws an IllegalArgumentException if the id is in use.
+	 */
+	public Future<Decision> openSession(String sessionId, TabularBeliefState initialBelief) {
+		final Session session = new Session(sessionId, initialBelief);
+		if(sessions.putIfAbsent(sessionId, session) != null) {
+			throw new IllegalArgumentException("Session " + sessionId + " is already open.");
+		}
+		return submit(session, new Callable<Decision>() {
+			@Override
+			public Decision call() {
+				return decide(session);
+			}
+		});
+	}
+
+	/**
+	 * Reports that the session took the action and received the observation, and returns the decision at the
+	 * updated belief. Throws an IllegalArgumentException if the session is not open and a
+	 * RejectedExecutionException if the service stays full for the admission timeout. The future fails with an
+	 * IllegalStateException, leaving the belief as it was, if the observation is impossible under the belief.
+	 */
+	public Future<Decision> step(String sessionId, final GroundedAction action, final State observation) {
+		final Session session = sessions.get(sessionId);
+		if(session == null) {
+			throw new IllegalArgumentException("Session " + sessionId + " is not open.");
+		}
+		return submit(session, new Callable<Decision>() {
+			@Override
+			public Decision call() {
+				update(session, action, observation);
+				return decide(session);
+			}
+		});
+	}
+
+	/**
+	 * Closes the session; requests already submitted for it are still answered.
+	 */
+	public void closeSession(String sessionId) {
+		sessions.remove(sessionId);
+	}
+
+	/**
+	 * Shuts the executor down if the service created it.
+	 */
+	@Override
+	public void close() {
+		if(ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	protected Future<Decision> submit(final Session session, Callable<Decision> request) {
+		boolean admitted;
+		try {
+			admitted = admissions.tryAcquire(admissionTimeoutNanos, TimeUnit.NANOSECONDS);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for the decision service.", e);
+		}
+		if(!admitted) {
+			rejectedRequests.incrementAndGet();
+			throw new RejectedExecutionException("The decision service is overloaded.");
+		}
+
+		FutureTask<Decision> task = new FutureTask<Decision>(request) {
+			@Override
+			protected void done() {
+				admissions.release();
+			}
+		};
+		session.mailbox.add(task);
+		try {
+			schedule(session);
+		}
+		catch(RejectedExecutionException e) {
+			session.mailbox.remove(task);
+			task.cancel(false);
+			throw e;
+		}
+		return task;
+	}
+
+	protected void schedule(final Session session) {
+		if(!session.scheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					drain(session);
+				}
+			});
+		}
+		catch(RejectedExecutionException e) {
+			session.scheduled.set(false);
+			throw e;
+		}
+	}
+
+	protected void drain(Session session) {
+		FutureTask<Decision> task;
+		while((task = session.mailbox.poll()) != null) {
+			task.run();
+		}
+		session.scheduled.set(false);
+		// A request may have arrived after the last poll but before the flag was cleared.
+		if(!session.mailbox.isEmpty()) {
+			try {
+				schedule(session);
+			}
+			catch(RejectedExecutionException e) {
+				// The executor was shut down; nothing will answer the rest.
+				while((task = session.mailbox.poll()) != null) {
+					task.cancel(false);
+				}
+			}
+		}
+	}
+
+	protected void update(Session session, GroundedAction action, State observation) {
+		long start = updateTimer != null ? updateTimer.start() : 0;
+		TabularBeliefState next = (TabularBeliefState)session.belief.getUpdatedBeliefState(observation, action);
+		if(updateTimer != null) {
+			updateTimer.stop(start);
+		}
+
+		double total = 0.;
+		for(double p : next.getBeliefVector()) {
+			total += p;
+		}
+		if(!(total > 0.)) {
+			throw new IllegalStateException("Observation " + observation.getCompleteStateDescription()
+					+ " is impossible after " + action.actionName() + " under the belief of session " + session.id + ".");
+		}
+		session.belief = next;
+		session.steps++;
+	}
+
+	protected Decision decide(Session session) {
+		List<QValue> planned = query(session.belief);
+		if(planned.isEmpty()) {
+			throw new IllegalStateException("The planner returned no Q-values for the belief of session " + session.id + ".");
+		}
+
+		// Bind the Q-values to a copy of this session's belief; a batched query was made with another session's.
+		TabularBeliefState belief = (TabularBeliefState)session.belief.copy();
+		List<QValue> qs = new ArrayList<QValue>(planned.size());
+		QValue best = null;
+		for(QValue q : planned) {
+			QValue bound = new QValue(belief, q.a, q.q);
+			qs.add(bound);
+			if(best == null || bound.q > best.q) {
+				best = bound;
+			}
+		}
+		return new Decision(session.id, session.steps, belief, (GroundedAction)best.a, qs);
+	}
+
+	/**
+	 * The planner's Q-values at belief, shared with any concurrent query for the same quantized belief.
+	 */
+	protected List<QValue> query(final TabularBeliefState belief) {
+		CachedBeliefQFunction.BeliefKey key = new CachedBeliefQFunction.BeliefKey(belief.getBeliefVector(), batchingTolerance);
+		FutureTask<List<QValue>> mine = new FutureTask<List<QValue>>(new Callable<List<QValue>>() {
+			@Override
+			public List<QValue> call() {
+				long start = planTimer != null ? planTimer.start() : 0;
+				try {
+					return planner.getQs(belief);
+				}
+				finally {
+					if(planTimer != null) {
+						planTimer.stop(start);
+					}
+				}
+			}
+		});
+
+		FutureTask<List<QValue>> running = queries.putIfAbsent(key, mine);
+		if(running == null) {
+			plannerCalls.incrementAndGet();
+			try {
+				mine.run();
+			}
+			finally {
+				queries.remove(key, mine);
+			}
+			running = mine;
+		}
+		else {
+			batchedQueries.incrementAndGet();
+		}
+
+		try {
+			return running.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for a batched planner query.", e);
+		}
+		catch(ExecutionException e) {
+			throw new RuntimeException("The planner failed.", e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import burlap.behavior.valuefunction.QFunction;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.AbstractGroundedAction;
+import burlap.oomdp.core.states.State;
+import tabular.TabularBeliefs;
+import tabular.TabularPOMDP;
+
+/**
+ * {@link QFunction} over belief states represented by a set of alpha vectors per action:
+ * Q(b, a) is the largest dot product of b with one of a's vectors. Querying costs one dot
+ * product per vector, independent of the horizon the vectors were computed for, so it can be
+ * used with {@link burlap.behavior.policy.GreedyQPolicy} in place of an online belief planner.
+ * <p>
+ * Belief states must be {@link burlap.oomdp.singleagent.pomdp.beliefstate.DenseBeliefVector}s
+ * over the model's state enumeration, such as
+ * {@link burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState}.
+ */
+public class AlphaVectorQFunction implements QFunction {
+
+	protected final TabularPOMDP model;
+	protected final double[][][] alphas;
+
+	/**
+	 * @param model the model the vectors were computed for.
+	 * @param alphas alphas[a] holds the vectors of action a, each of length model.numStates().
+	 */
+	public AlphaVectorQFunction(TabularPOMDP model, double[][][] alphas) {
+		if(alphas.length != model.numActions()) {
+			throw new IllegalArgumentException("Expected alpha vectors for " + model.numActions() + " actions but got " + alphas.length + ".");
+		}
+		this.model = model;
+		this.alphas = alphas;
+	}
+
+	public TabularPOMDP getModel() {
+		return model;
+	}
+
+	public double[][] getAlphaVectors(int action) {
+		return alphas[action];
+	}
+
+	/**
+	 * All vectors of all actions; their upper surface is the value function V(b) = max_a Q(b, a).
+	 */
+	public double[][] getValueVectors() {
+		double[][] all = new double[numAlphaVectors()][];
+		int i = 0;
+		for(double[][] actionAlphas : alphas) {
+			for(double[] alpha : actionAlphas) {
+				all[i++] = alpha;
+			}
+		}
+		return all;
+	}
+
+	public int numAlphaVectors() {
+		int n = 0;
+		for(double[][] actionAlphas : alphas) {
+			n += actionAlphas.length;
+		}
+		return n;
+	}
+
+	/**
+	 * Q(b, a) for a dense belief vector.
+	 */
+	public double q(double[] b, int action) {
+		double best = Double.NEGATIVE_INFINITY;
+		for(double[] alpha : alphas[action]) {
+			double v = TabularBeliefs.dot(b, alpha);
+			if(v > best) {
+				best = v;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Fills qs with Q(b, a) for every action.
+	 */
+	public void qs(double[] b, double[] qs) {
+		for(int a = 0; a < alphas.length; a++) {
+			qs[a] = q(b, a);
+		}
+	}
+
+	/**
+	 * Returns the id of the greedy action for a dense belief vector; ties go to the lowest id.
+	 */
+	public int bestAction(double[] b) {
+		int best = 0;
+		double bestQ = Double.NEGATIVE_INFINITY;
+		for(int a = 0; a < alphas.length; a++) {
+			double q = q(b, a);
+			if(q > bestQ) {
+				bestQ = q;
+				best = a;
+			}
+		}
+		return best;
+	}
+
+	public double value(double[] b) {
+		double best = Double.NEGATIVE_INFINITY;
+		for(int a = 0; a < alphas.length; a++) {
+			best = Math.max(best, q(b, a));
+		}
+		return best;
+	}
+
+	@Override
+	public List<QValue> getQs(State s) {
+		double[] b = TabularBeliefs.beliefVector(s);
+		List<QValue> qs = new ArrayList<QValue>(alphas.length);
+		for(int a = 0; a < alphas.length; a++) {
+			qs.add(new QValue(s, model.getAction(a), q(b, a)));
+		}
+		return qs;
+	}
+
+	@Override
+	public QValue getQ(State s, AbstractGroundedAction a) {
+		int action = model.actionIndex(a.actionName());
+		if(action == -1) {
+			throw new IllegalArgumentException("Action " + a.actionName() + " is not part of the tabular model.");
+		}
+		return new QValue(s, a, q(TabularBeliefs.beliefVector(s), action));
+	}
+
+	@Override
+	public double value(State s) {
+		return value(TabularBeliefs.beliefVector(s));
+	}
+
+}
@@ -0,0 +1,195 @@
+package solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import burlap.behavior.valuefunction.QFunction;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.AbstractGroundedAction;
+import burlap.oomdp.core.states.State;
+import tabular.TabularBeliefs;
+
+/**
+ * Caching {@link QFunction} for belief planners such as
+ * {@link burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling}. Entries are keyed on
+ * the belief vector with every component rounded to a multiple of the tolerance, so beliefs whose
+ * components all round to the same multiple of the tolerance share one planner call. An entry keeps only the
+ * actions and their values, and every query gets Q-values bound to its own belief. The cache holds at most a
+ * fixed number of beliefs and evicts the least recently used one when full.
+ * <p>
+ * Belief states must be {@link burlap.oomdp.singleagent.pomdp.beliefstate.DenseBeliefVector}s such as
+ * {@link burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState}. The cache is safe to
+ * share between threads; the wrapped planner is only called outside the cache lock, so it must be
+ * thread safe itself if the cache is shared.
+ */
+public class CachedBeliefQFunction implements QFunction {
+
+	protected final QFunction source;
+	protected final double tolerance;
+	protected final int maxSize;
+
+	protected final Map<BeliefKey, CachedQs> cache;
+
+	protected final AtomicLong hits = new AtomicLong();
+	protected final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param source the planner to cache.
+	 * @param tolerance the quantization step applied to each belief component.
+	 * @param maxSize the most beliefs to keep before evicting the least recently used one.
+	 */
+	public CachedBeliefQFunction(QFunction source, double tolerance, final int maxSize) {
+		if(tolerance <= 0.) {
+			throw new IllegalArgumentException("Tolerance must be positive.");
+		}
+		if(maxSize < 1) {
+			throw new IllegalArgumentException("Max size must be at least 1.");
+		}
+		this.source = source;
+		this.tolerance = tolerance;
+		this.maxSize = maxSize;
+		this.cache = new LinkedHashMap<BeliefKey, CachedQs>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<BeliefKey, CachedQs> eldest) {
+				return this.size() > maxSize;
+			}
+		};
+	}
+
+	public QFunction getSource() {
+		return source;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public double getHitRate() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0. : (double)h / total;
+	}
+
+	public int size() {
+		synchronized(cache) {
+			return cache.size();
+		}
+	}
+
+	public void clear() {
+		synchronized(cache) {
+			cache.clear();
+		}
+		hits.set(0);
+		misses.set(0);
+	}
+
+	@Override
+	public List<QValue> getQs(State s) {
+		BeliefKey key = new BeliefKey(TabularBeliefs.beliefVector(s), tolerance);
+
+		CachedQs cached;
+		synchronized(cache) {
+			cached = cache.get(key);
+		}
+
+		if(cached == null) {
+			misses.incrementAndGet();
+			cached = new CachedQs(source.getQs(s));
+			synchronized(cache) {
+				cache.put(key, cached);
+			}
+		}
+		else {
+			hits.incrementAndGet();
+		}
+
+		// Bind the values to the queried belief.
+		List<QValue> qs = new ArrayList<QValue>(cached.values.length);
+		for(int i = 0; i < cached.values.length; i++) {
+			qs.add(new QValue(s, cached.actions[i], cached.values[i]));
+		}
+		return qs;
+	}
+
+	@Override
+	public QValue getQ(State s, AbstractGroundedAction a) {
+		for(QValue q : this.getQs(s)) {
+			if(q.a.equals(a)) {
+				return q;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public double value(State s) {
+		double max = Double.NEGATIVE_INFINITY;
+		for(QValue q : this.getQs(s)) {
+			max = Math.max(max, q.q);
+		}
+		return max;
+	}
+
+	/**
+	 * The actions and Q-values of a planner call, without the belief it was made for.
+	 */
+	protected static class CachedQs {
+
+		protected final AbstractGroundedAction[] actions;
+		protected final double[] values;
+
+		public CachedQs(List<QValue> qs) {
+			this.actions = new AbstractGroundedAction[qs.size()];
+			this.values = new double[qs.size()];
+			for(int i = 0; i < actions.length; i++) {
+				this.actions[i] = qs.get(i).a;
+				this.values[i] = qs.get(i).q;
+			}
+		}
+	}
+
+	/**
+	 * A belief vector quantized to a multiple of the tolerance.
+	 */
+	public static class BeliefKey {
+
+		protected final long[] quantized;
+		protected final int hashCode;
+
+		public BeliefKey(double[] b, double tolerance) {
+			this.quantized = new long[b.length];
+			for(int i = 0; i < b.length; i++) {
+				this.quantized[i] = Math.round(b[i] / tolerance);
+			}
+			this.hashCode = Arrays.hashCode(this.quantized);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(this == other) {
+				return true;
+			}
+			if(!(other instanceof BeliefKey)) {
+				return false;
+			}
+			return Arrays.equals(quantized, ((BeliefKey)other).quantized);
+		}
+	}
+
+}
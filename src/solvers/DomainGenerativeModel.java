@@ -0,0 +1,91 @@
+package solvers;
+
+import java.util.List;
+
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.ObservationFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.statehashing.HashableStateFactory;
+import burlap.oomdp.statehashing.SimpleHashableStateFactory;
+
+/**
+ * {@link GenerativeModel} of a {@link PODomain} that only uses its samplers: {@link GroundedAction#executeIn(State)}
+ * for transitions and {@link ObservationFunction#sampleObservation} for observations, never transition or
+ * observation enumeration. Observations are keyed by their hashed form. Actions are grounded in the reference
+ * state, so the action set must not depend on the state, as in both dilemmas.
+ */
+public class DomainGenerativeModel implements GenerativeModel<State> {
+
+	protected final PODomain domain;
+	protected final RewardFunction rf;
+	protected final TerminalFunction tf;
+	protected final List<GroundedAction> actions;
+	protected final HashableStateFactory observationHashing;
+
+	public DomainGenerativeModel(PODomain domain, RewardFunction rf, TerminalFunction tf, State referenceState) {
+		this(domain, rf, tf, referenceState, new SimpleHashableStateFactory());
+	}
+
+	public DomainGenerativeModel(PODomain domain, RewardFunction rf, TerminalFunction tf, State referenceState, HashableStateFactory observationHashing) {
+		this.domain = domain;
+		this.rf = rf;
+		this.tf = tf;
+		this.actions = Action.getAllApplicableGroundedActionsFromActionList(domain.getActions(), referenceState);
+		this.observationHashing = observationHashing;
+	}
+
+	public GroundedAction getAction(int action) {
+		return actions.get(action);
+	}
+
+	public int actionIndex(String actionName) {
+		for(int a = 0; a < actions.size(); a++) {
+			if(actions.get(a).actionName().equals(actionName)) {
+				return a;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Key {@link POMCP#update(int, Object)} expects for an observation state.
+	 */
+	public Object observationKey(State observation) {
+		return observationHashing.hashState(observation);
+	}
+
+	@Override
+	public int numActions() {
+		return actions.size();
+	}
+
+	@Override
+	public String getActionName(int action) {
+		return actions.get(action).actionName();
+	}
+
+	@Override
+	public State sampleTransition(State s, int action) {
+		return actions.get(action).executeIn(s);
+	}
+
+	@Override
+	public double reward(State s, int action, State sprime) {
+		return rf.reward(s, actions.get(action), sprime);
+	}
+
+	@Override
+	public boolean isTerminal(State s) {
+		return tf.isTerminal(s);
+	}
+
+	@Override
+	public Object sampleObservation(State sprime, int action) {
+		return observationKey(domain.getObservationFunction().sampleObservation(sprime, actions.get(action)));
+	}
+
+}
@@ -0,0 +1,46 @@
+package solvers;
+
+import factored.FactoredPOMDP;
+
+/**
+ * {@link GenerativeModel} of a {@link FactoredPOMDP}, sampling each transition factor separately.
+ */
+public class FactoredGenerativeModel implements GenerativeModel<Long> {
+
+	protected final FactoredPOMDP model;
+
+	public FactoredGenerativeModel(FactoredPOMDP model) {
+		this.model = model;
+	}
+
+	@Override
+	public int numActions() {
+		return model.numActions();
+	}
+
+	@Override
+	public String getActionName(int action) {
+		return model.getAction(action).getName();
+	}
+
+	@Override
+	public Long sampleTransition(Long s, int action) {
+		return model.sampleTransition(s, action);
+	}
+
+	@Override
+	public double reward(Long s, int action, Long sprime) {
+		return model.reward(s, action, sprime);
+	}
+
+	@Override
+	public boolean isTerminal(Long s) {
+		return model.isTerminal(s);
+	}
+
+	@Override
+	public Object sampleObservation(Long sprime, int action) {
+		return model.sampleObservation(sprime, action);
+	}
+
+}
@@ -0,0 +1,26 @@
+package solvers;
+
+/**
+ * Black-box simulator of a POMDP, the only access sample-based planners such as {@link POMCP} need. States must
+ * not be modified by the methods; observations are compared with equals and hashCode.
+ *
+ * @param <S> the state type.
+ */
+public interface GenerativeModel<S> {
+
+	int numActions();
+
+	String getActionName(int action);
+
+	/**
+	 * Samples a successor of s; s itself is left unchanged.
+	 */
+	S sampleTransition(S s, int action);
+
+	double reward(S s, int action, S sprime);
+
+	boolean isTerminal(S s);
+
+	Object sampleObservation(S sprime, int action);
+
+}
@@ -0,0 +1,426 @@
+package solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import burlap.behavior.valuefunction.QFunction;
+import burlap.behavior.valuefunction.QValue;
+import burlap.oomdp.core.AbstractGroundedAction;
+import burlap.oomdp.core.states.State;
+import tabular.TabularBeliefs;
+import tabular.TabularPOMDP;
+
+/**
+ * Exact belief-space expectimax over a {@link TabularPOMDP} that searches horizons 1, 2, 3, ... until a time
+ * budget runs out, the anytime counterpart of a full-width
+ * {@link burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling} with a fixed horizon.
+ * <p>
+ * Belief nodes are memoised across passes (and across queries) on the belief vector rounded to a tolerance.
+ * A node keeps its successor beliefs, their observation probabilities, its expected rewards and its value at
+ * every depth computed so far, so a pass to horizon h repeats none of the belief updates of the earlier passes,
+ * though it still backs up every node it reaches at its new depth. Actions are tried in the order of their
+ * Q-values at the node's deepest completed depth. When the deadline falls in the middle of a pass, the root's
+ * actions already evaluated at the new depth (always including the previous best) decide the action, so a
+ * partial pass still refines the answer.
+ * <p>
+ * A pass that would create more belief nodes than the node limit stops the same way, and the next query
+ * starts with an empty memo. The memo therefore never holds more than the limit, plus the root and its children,
+ * which the pass to horizon 1 always creates.
+ * <p>
+ * With {@link QMDPQFunction} upper bounds, a node below the root skips the actions whose bound at the current
+ * depth cannot beat the best Q-value it has already found. Node values stay exact, so pruning changes the effort,
+ * not the answer.
+ * <p>
+ * Horizons have the same meaning as for {@link PointBasedValueIteration}. Instances are not thread safe.
+ */
+public class IterativeDeepeningBeliefPlanner implements QFunction {
+
+	/**
+	 * Outcome of one planning query.
+	 */
+	public static class Result {
+
+		// Q-values of the deepest completed pass.
+		public final double[] qs;
+		public final int depth;
+		// Best action, possibly refined by the partial pass after depth.
+		public final int bestAction;
+		public final long elapsedNanos;
+		// Whether deepening stopped at the node limit rather than the budget or the max horizon.
+		public final boolean nodeLimitReached;
+
+		public Result(double[] qs, int depth, int bestAction, long elapsedNanos, boolean nodeLimitReached) {
+			this.qs = qs;
+			this.depth = depth;
+			this.bestAction = bestAction;
+			this.elapsedNanos = elapsedNanos;
+			this.nodeLimitReached = nodeLimitReached;
+		}
+
+		@Override
+		public String toString() {
+			return "depth " + depth + ", best action " + bestAction + ", " + (elapsedNanos / 1000) + " us"
+					+ (nodeLimitReached ? ", node limit reached" : "");
+		}
+	}
+
+	protected class Node {
+
+		final double[] b;
+		// Value by depth; NaN where not computed.
+		double[] values = new double[0];
+		// Actions, best first at the deepest depth completed here.
+		final int[] order;
+		double[] expectedRewards;
+		Node[][] children;
+		double[][] observationProbs;
+
+		Node(double[] b) {
+			this.b = b;
+			this.order = new int[model.numActions()];
+			for(int a = 0; a < order.length; a++) {
+				order[a] = a;
+			}
+		}
+	}
+
+	// Thrown, without a stack trace, when the deadline passes or the node limit is reached during a search pass.
+	protected static class StopException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		StopException(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+	protected static final StopException DEADLINE = new StopException("Planning deadline reached.");
+	protected static final StopException NODE_LIMIT = new StopException("Belief node limit reached.");
+
+	protected final TabularPOMDP model;
+	protected final double gamma;
+	protected final int maxHorizon;
+
+	protected long timeBudgetNanos = 50000000L;
+	protected double tolerance = 1e-9;
+	protected int maxNodes = 1000000;
+
+	protected QMDPQFunction upperBounds;
+	protected long prunedActions;
+	protected long cacheResets;
+
+	protected final Map<CachedBeliefQFunction.BeliefKey, Node> nodes = new HashMap<CachedBeliefQFunction.BeliefKey, Node>();
+	protected long deadline;
+	protected int nodeLimit;
+	protected Result lastResult;
+
+	public IterativeDeepeningBeliefPlanner(TabularPOMDP model, double gamma, int maxHorizon) {
+		if(maxHorizon < 1) {
+			throw new IllegalArgumentException("Max horizon must be at least 1.");
+		}
+		this.model = model;
+		this.gamma = gamma;
+		this.maxHorizon = maxHorizon;
+	}
+
+	/**
+	 * Wall-clock budget per query. A pass to horizon 1 always completes, whatever the budget.
+	 */
+	public void setTimeBudget(long timeBudgetNanos) {
+		this.timeBudgetNanos = timeBudgetNanos;
+	}
+
+	/**
+	 * Beliefs whose components all round to the same multiple of the tolerance share a node.
+	 */
+	public void setTolerance(double tolerance) {
+		if(tolerance <= 0.) {
+			throw new IllegalArgumentException("Tolerance must be positive.");
+		}
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Caps the memo at this many belief nodes: a pass that needs more stops like one that runs out of time, and
+	 * the next query starts with an empty memo. The pass to horizon 1 always completes, whatever the limit.
+	 */
+	public void setMaxNodes(int maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Prunes with the given bounds, which must have been solved for the same model and discount; null turns
+	 * pruning off.
+	 */
+	public void setUpperBounds(QMDPQFunction upperBounds) {
+		if(upperBounds != null && (upperBounds.getModel() != model || upperBounds.getGamma() != gamma)) {
+			throw new IllegalArgumentException("Upper bounds must be solved for the planner's model and discount.");
+		}
+		this.upperBounds = upperBounds;
+	}
+
+	/**
+	 * Number of action backups skipped by pruning since the planner was created.
+	 */
+	public long getPrunedActions() {
+		return prunedActions;
+	}
+
+	public int getNumNodes() {
+		return nodes.size();
+	}
+
+	public void resetCache() {
+		nodes.clear();
+	}
+
+	/**
+	 * Number of times a query found the memo at the node limit and cleared it.
+	 */
+	public long getCacheResets() {
+		return cacheResets;
+	}
+
+	public Result getLastResult() {
+		return lastResult;
+	}
+
+	/**
+	 * Deepens from b until the time budget, the max horizon or the node limit is reached.
+	 */
+	public Result plan(double[] b) {
+		long start = System.nanoTime();
+		if(nodes.size() >= maxNodes) {
+			nodes.clear();
+			cacheResets++;
+		}
+		// Horizon 1 has no deadline or node limit, so there is always an answer.
+		deadline = Long.MAX_VALUE;
+		nodeLimit = Integer.MAX_VALUE;
+		Node root = node(b.clone());
+		int nA = model.numActions();
+		double[] qs = new double[nA];
+		backup(root, 1, qs);
+		int depth = 1;
+		int best = argmax(qs);
+
+		deadline = start + timeBudgetNanos;
+		nodeLimit = maxNodes;
+		double[] next = new double[nA];
+		boolean nodeLimitReached = false;
+		while(depth < maxHorizon && System.nanoTime() < deadline) {
+			int completed = 0;
+			try {
+				for(; completed < nA; completed++) {
+					int a = root.order[completed];
+					next[a] = q(root, a, depth + 1);
+				}
+			}
+			catch(StopException e) {
+				nodeLimitReached = e == NODE_LIMIT;
+				// The previous best is evaluated first, so the actions completed so far can still change the decision.
+				double bestQ = Double.NEGATIVE_INFINITY;
+				for(int i = 0; i < completed; i++) {
+					int a = root.order[i];
+					if(next[a] > bestQ) {
+						bestQ = next[a];
+						best = a;
+					}
+				}
+				break;
+			}
+
+			depth++;
+			reorder(root, next);
+			System.arraycopy(next, 0, qs, 0, nA);
+			best = argmax(qs);
+		}
+
+		lastResult = new Result(qs, depth, best, System.nanoTime() - start, nodeLimitReached);
+		return lastResult;
+	}
+
+	/**
+	 * Computes the Q-values of node at the given depth into qs, trying actions in node order, and reorders the
+	 * node's actions by them.
+	 */
+	protected void backup(Node node, int depth, double[] qs) {
+		for(int i = 0; i < qs.length; i++) {
+			int a = node.order[i];
+			qs[a] = q(node, a, depth);
+		}
+		reorder(node, qs);
+	}
+
+	/**
+	 * Like {@link #backup}, but an action whose upper bound is no better than the best Q-value found so far gets
+	 * its bound in place of its Q-value. The maximum is still exact, and as a bound cannot beat it, the best
+	 * action stays first in the node's order.
+	 */
+	protected void prunedBackup(Node node, int depth, double[] qs) {
+		double best = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i < qs.length; i++) {
+			int a = node.order[i];
+			double bound = upperBounds.upperBound(node.b, a, depth);
+			if(bound <= best) {
+				qs[a] = bound;
+				prunedActions++;
+				continue;
+			}
+			qs[a] = q(node, a, depth);
+			best = Math.max(best, qs[a]);
+		}
+		reorder(node, qs);
+	}
+
+	protected double q(Node node, int a, int depth) {
+		expand(node);
+		double q = node.expectedRewards[a];
+		if(depth > 1) {
+			double future = 0.;
+			Node[] children = node.children[a];
+			for(int o = 0; o < children.length; o++) {
+				if(children[o] != null) {
+					future += node.observationProbs[a][o] * value(children[o], depth - 1);
+				}
+			}
+			q += gamma * future;
+		}
+		return q;
+	}
+
+	protected double value(Node node, int depth) {
+		if(depth < node.values.length && !Double.isNaN(node.values[depth])) {
+			return node.values[depth];
+		}
+		if(System.nanoTime() > deadline) {
+			throw DEADLINE;
+		}
+
+		double[] qs = new double[model.numActions()];
+		if(upperBounds != null) {
+			prunedBackup(node, depth, qs);
+		}
+		else {
+			backup(node, depth, qs);
+		}
+		double v = qs[argmax(qs)];
+
+		if(depth >= node.values.length) {
+			int old = node.values.length;
+			node.values = Arrays.copyOf(node.values, depth + 1);
+			for(int d = old; d < depth; d++) {
+				node.values[d] = Double.NaN;
+			}
+		}
+		node.values[depth] = v;
+		return v;
+	}
+
+	protected void expand(Node node) {
+		if(node.children != null) {
+			return;
+		}
+		int nS = model.numStates();
+		int nA = model.numActions();
+		int nO = model.numObservations();
+
+		double[] expectedRewards = new double[nA];
+		Node[][] children = new Node[nA][nO];
+		double[][] probs = new double[nA][nO];
+		double[] bprime = new double[nS];
+		for(int a = 0; a < nA; a++) {
+			double r = 0.;
+			for(int s = 0; s < nS; s++) {
+				if(node.b[s] != 0.) {
+					r += node.b[s] * model.expectedReward(s, a);
+				}
+			}
+			expectedRewards[a] = r;
+
+			for(int o = 0; o < nO; o++) {
+				double p = TabularBeliefs.update(model, node.b, a, o, bprime);
+				if(p > 0.) {
+					probs[a][o] = p;
+					children[a][o] = node(bprime.clone());
+				}
+			}
+		}
+
+		node.expectedRewards = expectedRewards;
+		node.observationProbs = probs;
+		node.children = children;
+	}
+
+	protected Node node(double[] b) {
+		CachedBeliefQFunction.BeliefKey key = new CachedBeliefQFunction.BeliefKey(b, tolerance);
+		Node node = nodes.get(key);
+		if(node == null) {
+			if(nodes.size() >= nodeLimit) {
+				throw NODE_LIMIT;
+			}
+			node = new Node(b);
+			nodes.put(key, node);
+		}
+		return node;
+	}
+
+	/**
+	 * Stable insertion sort of the node's actions by descending Q.
+	 */
+	protected static void reorder(Node node, double[] qs) {
+		int[] order = node.order;
+		for(int i = 1; i < order.length; i++) {
+			int a = order[i];
+			int j = i - 1;
+			while(j >= 0 && qs[order[j]] < qs[a]) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = a;
+		}
+	}
+
+	protected static int argmax(double[] qs) {
+		int best = 0;
+		for(int a = 1; a < qs.length; a++) {
+			if(qs[a] > qs[best]) {
+				best = a;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Q-values of the deepest pass that completed within the budget; {@link #plan} also reports the action a
+	 * partial pass preferred.
+	 */
+	@Override
+	public List<QValue> getQs(State s) {
+		Result result = plan(TabularBeliefs.beliefVector(s));
+		List<QValue> qs = new ArrayList<QValue>(result.qs.length);
+		for(int a = 0; a < result.qs.length; a++) {
+			qs.add(new QValue(s, model.getAction(a), result.qs[a]));
+		}
+		return qs;
+	}
+
+	@Override
+	public QValue getQ(State s, AbstractGroundedAction a) {
+		for(QValue q : this.getQs(s)) {
+			if(q.a.equals(a)) {
+				return q;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public double value(State s) {
+		Result result = plan(TabularBeliefs.beliefVector(s));
+		return result.qs[argmax(result.qs)];
+	}
+
+}
@@ -0,0 +1,286 @@
+package solvers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import sampling.RandomStreams;
+
+/**
+ * Partially Observable Monte-Carlo Planning (Silver and Veness, 2010). Only samples from a
+ * {@link GenerativeModel} are needed, so no transition or observation distribution is ever enumerated and
+ * the cost of a decision depends on the simulation budget, not on the size of the state space.
+ * <p>
+ * The belief is a set of state particles. {@link #selectAction()} runs simulations from particles drawn from
+ * the root until the iteration or time budget is spent; actions in the tree are chosen by UCB1 and leaves are
+ * valued with a uniformly random rollout. It can be stopped at any time and always returns the action with the
+ * highest estimated value so far. After the real action and observation, {@link #update(int, Object)} moves the
+ * root to the matching child node and, when tree reuse is on, keeps its statistics and the particles that
+ * reached it, topping them up by rejection sampling from the old root.
+ * <p>
+ * All randomness comes from {@link RandomStreams}. Instances are not thread safe.
+ *
+ * @param <S> the state type of the model.
+ */
+public class POMCP<S> {
+
+	protected class Node {
+
+		int visits;
+		final int[] actionVisits;
+		final double[] q;
+		final List<Map<Object, Node>> children;
+		final List<S> particles = new ArrayList<S>();
+
+		Node() {
+			int n = model.numActions();
+			actionVisits = new int[n];
+			q = new double[n];
+			children = new ArrayList<Map<Object, Node>>(n);
+			for(int a = 0; a < n; a++) {
+				children.add(new HashMap<Object, Node>());
+			}
+		}
+
+		Node child(int action, Object observation, boolean create) {
+			Node child = children.get(action).get(observation);
+			if(child == null && create) {
+				child = new Node();
+				children.get(action).put(observation, child);
+			}
+			return child;
+		}
+	}
+
+	protected final GenerativeModel<S> model;
+	protected final double gamma;
+	protected final int maxDepth;
+	protected final double explorationConstant;
+
+	protected long iterationBudget = 1000;
+	protected long timeBudgetNanos = -1;
+	protected int maxParticles = 1000;
+	protected int maxRejections = 100000;
+	protected boolean treeReuse = true;
+
+	protected Node root;
+	protected long lastSimulations;
+
+	/**
+	 * @param model the simulator.
+	 * @param gamma the discount factor.
+	 * @param maxDepth the horizon of each simulation.
+	 * @param explorationConstant the UCB1 constant; should be on the scale of the returns.
+	 */
+	public POMCP(GenerativeModel<S> model, double gamma, int maxDepth, double explorationConstant) {
+		this.model = model;
+		this.gamma = gamma;
+		this.maxDepth = maxDepth;
+		this.explorationConstant = explorationConstant;
+	}
+
+	/**
+	 * Number of simulations per decision; -1 leaves it to the time budget.
+	 */
+	public void setIterationBudget(long iterationBudget) {
+		this.iterationBudget = iterationBudget;
+	}
+
+	/**
+	 * Wall-clock budget per decision in nanoseconds; -1 leaves it to the iteration budget. When both are set the
+	 * search stops at whichever is reached first.
+	 */
+	public void setTimeBudget(long timeBudgetNanos) {
+		this.timeBudgetNanos = timeBudgetNanos;
+	}
+
+	public void setMaxParticles(int maxParticles) {
+		this.maxParticles = maxParticles;
+	}
+
+	/**
+	 * Caps the samples the particle filter draws in {@link #update(int, Object)} before giving up.
+	 */
+	public void setMaxRejections(int maxRejections) {
+		this.maxRejections = maxRejections;
+	}
+
+	public void setTreeReuse(boolean treeReuse) {
+		this.treeReuse = treeReuse;
+	}
+
+	/**
+	 * Starts a new search from a belief given as particles, e.g. drawn with
+	 * {@link burlap.oomdp.singleagent.pomdp.beliefstate.BeliefState#sampleStateFromBelief()}.
+	 */
+	public void setBelief(List<S> particles) {
+		if(particles.isEmpty()) {
+			throw new IllegalArgumentException("The belief needs at least one particle.");
+		}
+		root = new Node();
+		root.particles.addAll(particles);
+	}
+
+	public List<S> getParticles() {
+		return root.particles;
+	}
+
+	/**
+	 * Searches until the budget is spent and returns the action with the highest estimated value.
+	 */
+	public int selectAction() {
+		checkBelief();
+		if(iterationBudget < 0 && timeBudgetNanos < 0) {
+			throw new IllegalStateException("POMCP needs an iteration or a time budget.");
+		}
+
+		long deadline = timeBudgetNanos < 0 ? Long.MAX_VALUE : System.nanoTime() + timeBudgetNanos;
+		SplittableRandom random = RandomStreams.current();
+		long n = 0;
+		while((iterationBudget < 0 || n < iterationBudget) && (n == 0 || System.nanoTime() < deadline)) {
+			S s = root.particles.get(random.nextInt(root.particles.size()));
+			simulate(s, root, 0, false);
+			n++;
+		}
+		lastSimulations = n;
+
+		return greedyAction(root);
+	}
+
+	/**
+	 * Estimated Q-values at the root; actions never tried are NaN.
+	 */
+	public double[] getRootQs() {
+		checkBelief();
+		double[] qs = new double[root.q.length];
+		for(int a = 0; a < qs.length; a++) {
+			qs[a] = root.actionVisits[a] == 0 ? Double.NaN : root.q[a];
+		}
+		return qs;
+	}
+
+	public int[] getRootVisits() {
+		checkBelief();
+		return root.actionVisits.clone();
+	}
+
+	/**
+	 * Simulations run by the last call to {@link #selectAction()}.
+	 */
+	public long getLastSimulations() {
+		return lastSimulations;
+	}
+
+	/**
+	 * Advances the belief after action was taken and observation received. Throws an IllegalStateException if no
+	 * particle consistent with the observation could be found.
+	 */
+	public void update(int action, Object observation) {
+		checkBelief();
+		Node child = root.child(action, observation, false);
+		Node next = treeReuse && child != null ? child : new Node();
+		if(next.particles.size() > maxParticles) {
+			next.particles.subList(maxParticles, next.particles.size()).clear();
+		}
+
+		SplittableRandom random = RandomStreams.current();
+		for(int i = 0; i < maxRejections && next.particles.size() < maxParticles; i++) {
+			S s = root.particles.get(random.nextInt(root.particles.size()));
+			S sprime = model.sampleTransition(s, action);
+			if(model.sampleObservation(sprime, action).equals(observation)) {
+				next.particles.add(sprime);
+			}
+		}
+
+		if(next.particles.isEmpty()) {
+			throw new IllegalStateException("No particle is consistent with the observation " + observation + ".");
+		}
+		root = next;
+	}
+
+	protected double simulate(S s, Node node, int depth, boolean addParticle) {
+		if(depth >= maxDepth || model.isTerminal(s)) {
+			return 0.;
+		}
+		if(addParticle && node.particles.size() < maxParticles) {
+			node.particles.add(s);
+		}
+
+		int a = ucbAction(node);
+		S sprime = model.sampleTransition(s, a);
+		double r = model.reward(s, a, sprime);
+		Object o = model.sampleObservation(sprime, a);
+
+		Node child = node.child(a, o, false);
+		double future;
+		if(child == null) {
+			child = node.child(a, o, true);
+			child.particles.add(sprime);
+			future = rollout(sprime, depth + 1);
+		}
+		else {
+			future = simulate(sprime, child, depth + 1, true);
+		}
+
+		double ret = r + gamma * future;
+		node.visits++;
+		node.actionVisits[a]++;
+		node.q[a] += (ret - node.q[a]) / node.actionVisits[a];
+		return ret;
+	}
+
+	protected double rollout(S s, int depth) {
+		SplittableRandom random = RandomStreams.current();
+		double ret = 0.;
+		double discount = 1.;
+		while(depth < maxDepth && !model.isTerminal(s)) {
+			int a = random.nextInt(model.numActions());
+			S sprime = model.sampleTransition(s, a);
+			ret += discount * model.reward(s, a, sprime);
+			discount *= gamma;
+			s = sprime;
+			depth++;
+		}
+		return ret;
+	}
+
+	protected int ucbAction(Node node) {
+		for(int a = 0; a < node.actionVisits.length; a++) {
+			if(node.actionVisits[a] == 0) {
+				return a;
+			}
+		}
+		double logN = Math.log(node.visits);
+		int best = 0;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for(int a = 0; a < node.q.length; a++) {
+			double v = node.q[a] + explorationConstant * Math.sqrt(logN / node.actionVisits[a]);
+			if(v > bestValue) {
+				bestValue = v;
+				best = a;
+			}
+		}
+		return best;
+	}
+
+	protected int greedyAction(Node node) {
+		int best = 0;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for(int a = 0; a < node.q.length; a++) {
+			if(node.actionVisits[a] > 0 && node.q[a] > bestValue) {
+				bestValue = node.q[a];
+				best = a;
+			}
+		}
+		return best;
+	}
+
+	protected void checkBelief() {
+		if(root == null) {
+			throw new IllegalStateException("setBelief must be called first.");
+		}
+	}
+
+}
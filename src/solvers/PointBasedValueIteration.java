@@ -0,0 +1,280 @@
+package solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import tabular.TabularBeliefs;
+import tabular.TabularPOMDP;
+
+/**
+ * Offline point-based value iteration (PBVI) over a {@link TabularPOMDP}. Belief points are
+ * expanded from one or more initial beliefs by following every action and every possible
+ * observation, after which the value function is backed up only at those points. The result is
+ * an {@link AlphaVectorQFunction} whose query cost does not depend on the horizon.
+ * <p>
+ * The horizon has the same meaning as for {@link burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling}:
+ * Q-values look ahead that many actions and leaves are worth 0. Iteration stops early once no belief
+ * point's value changes by more than the max delta, so large horizons can be used to approximate
+ * the infinite-horizon solution.
+ */
+public class PointBasedValueIteration {
+
+	protected final TabularPOMDP model;
+	protected final double gamma;
+	protected final int horizon;
+
+	protected double maxDelta = 1e-9;
+	protected int maxBeliefPoints = 10000;
+	protected double beliefTolerance = 1e-9;
+
+	protected final List<double[]> beliefPoints = new ArrayList<double[]>();
+
+	protected int lastIterations = 0;
+
+	protected boolean debug = false;
+
+	public PointBasedValueIteration(TabularPOMDP model, double gamma, int horizon) {
+		if(horizon < 1) {
+			throw new IllegalArgumentException("Horizon must be at least 1.");
+		}
+		this.model = model;
+		this.gamma = gamma;
+		this.horizon = horizon;
+	}
+
+	public void setMaxDelta(double maxDelta) {
+		this.maxDelta = maxDelta;
+	}
+
+	public void setMaxBeliefPoints(int maxBeliefPoints) {
+		this.maxBeliefPoints = maxBeliefPoints;
+	}
+
+	/**
+	 * Belief points closer than this in L1 distance to an existing point are not added.
+	 */
+	public void setBeliefTolerance(double beliefTolerance) {
+		this.beliefTolerance = beliefTolerance;
+	}
+
+	public void toggleDebugPrinting(boolean debug) {
+		this.debug = debug;
+	}
+
+	public List<double[]> getBeliefPoints() {
+		return beliefPoints;
+	}
+
+	/**
+	 * Number of value backups the last solve ran before reaching the horizon or converging.
+	 */
+	public int getLastIterations() {
+		return lastIterations;
+	}
+
+	/**
+	 * Adds a belief point and every belief reachable from it within the horizon.
+	 */
+	public void addInitialBelief(double[] b) {
+		addInitialBelief(b, horizon - 1);
+	}
+
+	/**
+	 * Adds a belief point and every belief reachable from it within the given number of steps.
+	 */
+	public void addInitialBelief(double[] b, int depth) {
+		if(addBeliefPoint(b.clone())) {
+			expandFrom(beliefPoints.size() - 1, depth);
+		}
+	}
+
+	protected void expandFrom(int start, int depth) {
+		int end = beliefPoints.size();
+		for(int d = 0; d < depth && start < end; d++) {
+			for(int i = start; i < end; i++) {
+				double[] b = beliefPoints.get(i);
+				for(int a = 0; a < model.numActions(); a++) {
+					for(int o = 0; o < model.numObservations(); o++) {
+						double[] bprime = new double[model.numStates()];
+						if(TabularBeliefs.update(model, b, a, o, bprime) > 0.) {
+							addBeliefPoint(bprime);
+						}
+					}
+				}
+			}
+			start = end;
+			end = beliefPoints.size();
+		}
+	}
+
+	protected boolean addBeliefPoint(double[] b) {
+		if(beliefPoints.size() >= maxBeliefPoints) {
+			return false;
+		}
+		for(double[] existing : beliefPoints) {
+			double dist = 0.;
+			for(int s = 0; s < b.length; s++) {
+				dist += Math.abs(b[s] - existing[s]);
+			}
+			if(dist <= beliefTolerance) {
+				return false;
+			}
+		}
+		beliefPoints.add(b);
+		return true;
+	}
+
+	/**
+	 * Runs value backups at the belief points and returns the resulting Q-function.
+	 */
+	public AlphaVectorQFunction solve() {
+		if(beliefPoints.isEmpty()) {
+			throw new IllegalStateException("No belief points; add an initial belief before solving.");
+		}
+		return solve(new double[][]{new double[model.numStates()]});
+	}
+
+	/**
+	 * Like {@link #solve()}, but starts from the given horizon-0 value vectors instead of the zero vector,
+	 * e.g. the {@link AlphaVectorQFunction#getValueVectors()} of a previous solve on a similar model. This
+	 * warm start only preserves the result when iteration runs until convergence rather than to a fixed horizon.
+	 */
+	public AlphaVectorQFunction solve(double[][] initialValueVectors) {
+
+		double[][] V = initialValueVectors;
+		double[] values = pointValues(V);
+
+		int iterations = 0;
+		for(int i = 1; i < horizon; i++) {
+			double[][] next = valueBackup(V);
+			double[] nextValues = pointValues(next);
+			iterations++;
+
+			double delta = 0.;
+			for(int p = 0; p < values.length; p++) {
+				delta = Math.max(delta, Math.abs(nextValues[p] - values[p]));
+			}
+
+			V = next;
+			values = nextValues;
+
+			if(debug) {
+				System.out.println("PBVI iteration " + iterations + ": " + V.length + " vectors, delta " + delta);
+			}
+			if(delta <= maxDelta) {
+				break;
+			}
+		}
+
+		lastIterations = iterations;
+		return new AlphaVectorQFunction(model, actionBackups(V));
+	}
+
+	protected double[] pointValues(double[][] V) {
+		double[] values = new double[beliefPoints.size()];
+		for(int p = 0; p < values.length; p++) {
+			values[p] = Double.NEGATIVE_INFINITY;
+			for(double[] alpha : V) {
+				values[p] = Math.max(values[p], TabularBeliefs.dot(beliefPoints.get(p), alpha));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Projects every vector through every (action, observation) pair:
+	 * g[k][a][o](s) = sum_s' T(s, a, s') O(s', a, o) alpha_k(s').
+	 */
+	protected double[][][][] projections(double[][] V) {
+		int nS = model.numStates();
+		int nA = model.numActions();
+		int nO = model.numObservations();
+		double[][][][] g = new double[V.length][nA][nO][nS];
+		for(int k = 0; k < V.length; k++) {
+			double[] alpha = V[k];
+			for(int a = 0; a < nA; a++) {
+				for(int s = 0; s < nS; s++) {
+					for(int sp : model.successors(s, a)) {
+						double tv = model.transitionProbability(s, a, sp) * alpha[sp];
+						if(tv == 0.) {
+							continue;
+						}
+						for(int o = 0; o < nO; o++) {
+							g[k][a][o][s] += tv * model.observationProbability(sp, a, o);
+						}
+					}
+				}
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Backs up action a at belief b: R_a + gamma * sum_o argmax_k b . g[k][a][o].
+	 */
+	protected double[] backup(double[] b, int a, double[][][][] g) {
+		int nS = model.numStates();
+		double[] alpha = new double[nS];
+		for(int s = 0; s < nS; s++) {
+			alpha[s] = model.expectedReward(s, a);
+		}
+		for(int o = 0; o < model.numObservations(); o++) {
+			double[] best = null;
+			double bestV = Double.NEGATIVE_INFINITY;
+			for(int k = 0; k < g.length; k++) {
+				double v = TabularBeliefs.dot(b, g[k][a][o]);
+				if(v > bestV) {
+					bestV = v;
+					best = g[k][a][o];
+				}
+			}
+			for(int s = 0; s < nS; s++) {
+				alpha[s] += gamma * best[s];
+			}
+		}
+		return alpha;
+	}
+
+	protected double[][] valueBackup(double[][] V) {
+		double[][][][] g = projections(V);
+		List<double[]> next = new ArrayList<double[]>();
+		for(double[] b : beliefPoints) {
+			double[] best = null;
+			double bestV = Double.NEGATIVE_INFINITY;
+			for(int a = 0; a < model.numActions(); a++) {
+				double[] alpha = backup(b, a, g);
+				double v = TabularBeliefs.dot(b, alpha);
+				if(v > bestV) {
+					bestV = v;
+					best = alpha;
+				}
+			}
+			addUnique(next, best);
+		}
+		return next.toArray(new double[next.size()][]);
+	}
+
+	protected double[][][] actionBackups(double[][] V) {
+		double[][][][] proj = projections(V);
+		double[][][] alphas = new double[model.numActions()][][];
+		for(int a = 0; a < model.numActions(); a++) {
+			List<double[]> actionAlphas = new ArrayList<double[]>();
+			for(double[] b : beliefPoints) {
+				addUnique(actionAlphas, backup(b, a, proj));
+			}
+			alphas[a] = actionAlphas.toArray(new double[actionAlphas.size()][]);
+		}
+		return alphas;
+	}
+
+	protected static void addUnique(List<double[]> vectors, double[] alpha) {
+		for(double[] existing : vectors) {
+			if(Arrays.equals(existing, alpha)) {
+				return;
+			}
+		}
+		vectors.add(alpha);
+	}
+
+}
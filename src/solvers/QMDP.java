@@ -0,0 +1,214 @@
+package solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import tabular.TabularPOMDP;
+
+/**
+ * Value iteration over the fully observable MDP underlying a {@link TabularPOMDP}, giving the QMDP approximation
+ * and upper bound as a {@link QMDPQFunction}. Each iteration backs up every state from the sparse successor rows
+ * of the model, which are read into flat arrays once; on models with at least the parallel threshold of states
+ * the states are split into blocks that are backed up in parallel, one barrier per iteration.
+ * <p>
+ * The horizon has the same meaning as for {@link PointBasedValueIteration}, and iteration stops early once no
+ * state's value changes by more than the max delta. The discount must be at most 1 for the bounds to hold.
+ */
+public class QMDP {
+
+	protected final TabularPOMDP model;
+	protected final double gamma;
+	protected final int horizon;
+
+	protected double maxDelta = 1e-9;
+	protected int parallelThreshold = 4096;
+	protected int blockSize = 1024;
+
+	protected int lastIterations = 0;
+
+	// Sparse rows: the successors of (s, a) are successorIds[rowStart[sa] .. rowStart[sa + 1]).
+	protected int[] rowStart;
+	protected int[] successorIds;
+	protected double[] successorProbs;
+	protected double[] expectedRewards;
+
+	public QMDP(TabularPOMDP model, double gamma, int horizon) {
+		if(horizon < 1) {
+			throw new IllegalArgumentException("Horizon must be at least 1.");
+		}
+		if(gamma < 0. || gamma > 1.) {
+			throw new IllegalArgumentException("Gamma must be in [0, 1].");
+		}
+		this.model = model;
+		this.gamma = gamma;
+		this.horizon = horizon;
+	}
+
+	public void setMaxDelta(double maxDelta) {
+		this.maxDelta = maxDelta;
+	}
+
+	/**
+	 * Models with fewer states are solved on the calling thread by {@link #solve()}.
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * Number of states one parallel task backs up per iteration.
+	 */
+	public void setBlockSize(int blockSize) {
+		if(blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be at least 1.");
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Number of iterations the last solve ran, at most the horizon.
+	 */
+	public int getLastIterations() {
+		return lastIterations;
+	}
+
+	/**
+	 * Solves on the calling thread, or on a fork-join pool with one worker per available processor if the model
+	 * has at least the parallel threshold of states.
+	 */
+	public QMDPQFunction solve() {
+		if(model.numStates() < parallelThreshold) {
+			return solve(null);
+		}
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			return solve(pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Solves with the state blocks of each iteration running on the given executor, which is not shut down; a
+	 * null executor solves on the calling thread.
+	 */
+	public QMDPQFunction solve(ExecutorService executor) {
+		compileRows();
+		int nS = model.numStates();
+		int nA = model.numActions();
+
+		List<double[]> tables = new ArrayList<double[]>();
+		double[] V = new double[nS];
+		double delta = 0.;
+		int iterations = 0;
+		for(int d = 1; d <= horizon; d++) {
+			double[] Q = new double[nS * nA];
+			double[] next = new double[nS];
+			if(executor == null) {
+				backup(0, nS, V, Q, next);
+			}
+			else {
+				backupInParallel(executor, V, Q, next);
+			}
+			iterations++;
+
+			delta = 0.;
+			for(int s = 0; s < nS; s++) {
+				delta = Math.max(delta, Math.abs(next[s] - V[s]));
+			}
+			tables.add(Q);
+			V = next;
+			if(delta <= maxDelta) {
+				break;
+			}
+		}
+
+		lastIterations = iterations;
+		return new QMDPQFunction(model, gamma, tables.toArray(new double[tables.size()][]), delta);
+	}
+
+	protected void compileRows() {
+		if(rowStart != null) {
+			return;
+		}
+		int nS = model.numStates();
+		int nA = model.numActions();
+		rowStart = new int[nS * nA + 1];
+		expectedRewards = new double[nS * nA];
+		for(int s = 0; s < nS; s++) {
+			for(int a = 0; a < nA; a++) {
+				rowStart[s * nA + a + 1] = rowStart[s * nA + a] + model.successors(s, a).length;
+				expectedRewards[s * nA + a] = model.expectedReward(s, a);
+			}
+		}
+		successorIds = new int[rowStart[nS * nA]];
+		successorProbs = new double[successorIds.length];
+		for(int s = 0; s < nS; s++) {
+			for(int a = 0; a < nA; a++) {
+				int i = rowStart[s * nA + a];
+				for(int sp : model.successors(s, a)) {
+					successorIds[i] = sp;
+					successorProbs[i] = model.transitionProbability(s, a, sp);
+					i++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Backs up states [from, to): Q[s, a] = R(s, a) + gamma * sum_s' T(s, a, s') V[s'] and next[s] = max_a Q[s, a].
+	 */
+	protected void backup(int from, int to, double[] V, double[] Q, double[] next) {
+		int nA = model.numActions();
+		for(int s = from; s < to; s++) {
+			double best = Double.NEGATIVE_INFINITY;
+			for(int a = 0; a < nA; a++) {
+				int sa = s * nA + a;
+				double future = 0.;
+				for(int i = rowStart[sa]; i < rowStart[sa + 1]; i++) {
+					future += successorProbs[i] * V[successorIds[i]];
+				}
+				double q = expectedRewards[sa] + gamma * future;
+				Q[sa] = q;
+				best = Math.max(best, q);
+			}
+			next[s] = best;
+		}
+	}
+
+	protected void backupInParallel(ExecutorService executor, final double[] V, final double[] Q, final double[] next) {
+		int nS = model.numStates();
+		List<Future<?>> blocks = new ArrayList<Future<?>>();
+		for(int first = 0; first < nS; first += blockSize) {
+			final int from = first;
+			final int to = Math.min(nS, first + blockSize);
+			blocks.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					backup(from, to, V, Q, next);
+					return null;
+				}
+			}));
+		}
+
+		try {
+			for(Future<?> block : blocks) {
+				block.get();
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for value iteration.", e);
+		}
+		catch(ExecutionException e) {
+			throw new RuntimeException("A value iteration block failed.", e.getCause());
+		}
+	}
+
+}
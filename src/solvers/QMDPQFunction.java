@@ -0,0 +1,88 @@
+package solvers;
+
+import tabular.TabularPOMDP;
+
+/**
+ * Result of {@link QMDP}: the Q-values of the fully observable MDP under the POMDP, as one alpha vector per
+ * action, so Q(b, a) = sum_s b(s) Q_MDP(s, a). Acting on it assumes the state becomes known after one step, which
+ * makes it a fast approximate policy through {@link burlap.behavior.policy.GreedyQPolicy} and an upper bound on
+ * the POMDP's Q-values: Q(b, a) is at least the optimal Q-value of the POMDP with the same horizon and discount.
+ * <p>
+ * The Q-tables of every horizon up to the solved one are kept, so belief planners that search to a smaller
+ * depth can bound their Q-values at that depth with {@link #upperBound(double[], int, int)}.
+ */
+public class QMDPQFunction extends AlphaVectorQFunction {
+
+	protected final double gamma;
+	// tables[d - 1][s * numActions + a] = Q_MDP(s, a) with d steps to go.
+	protected final double[][] tables;
+	// Largest change of any state value in the last iteration, bounding the change of every later one.
+	protected final double lastDelta;
+
+	public QMDPQFunction(TabularPOMDP model, double gamma, double[][] tables, double lastDelta) {
+		super(model, actionVectors(model, tables[tables.length - 1]));
+		this.gamma = gamma;
+		this.tables = tables;
+		this.lastDelta = lastDelta;
+	}
+
+	protected static double[][][] actionVectors(TabularPOMDP model, double[] table) {
+		int nS = model.numStates();
+		int nA = model.numActions();
+		double[][][] alphas = new double[nA][1][nS];
+		for(int s = 0; s < nS; s++) {
+			for(int a = 0; a < nA; a++) {
+				alphas[a][0][s] = table[s * nA + a];
+			}
+		}
+		return alphas;
+	}
+
+	public double getGamma() {
+		return gamma;
+	}
+
+	/**
+	 * Number of horizons whose tables are kept; the last one is the solved horizon or the one iteration
+	 * converged at.
+	 */
+	public int numDepths() {
+		return tables.length;
+	}
+
+	/**
+	 * Q_MDP(s, a) with depth steps to go, for depth in [1, numDepths()].
+	 */
+	public double getStateQ(int s, int a, int depth) {
+		return tables[depth - 1][s * model.numActions() + a];
+	}
+
+	/**
+	 * An upper bound on Q(b, a) of the POMDP with depth steps to go (leaves worth 0). Beyond the kept horizons the
+	 * bound grows by the last iteration's change per extra step, so it stays sound after early convergence.
+	 */
+	public double upperBound(double[] b, int a, int depth) {
+		int d = Math.min(depth, tables.length);
+		double[] table = tables[d - 1];
+		int nA = model.numActions();
+		double q = 0.;
+		for(int s = 0; s < b.length; s++) {
+			if(b[s] != 0.) {
+				q += b[s] * table[s * nA + a];
+			}
+		}
+		return depth > d ? q + (depth - d) * lastDelta : q;
+	}
+
+	/**
+	 * An upper bound on the POMDP's value at b with depth steps to go.
+	 */
+	public double upperBound(double[] b, int depth) {
+		double best = Double.NEGATIVE_INFINITY;
+		for(int a = 0; a < model.numActions(); a++) {
+			best = Math.max(best, upperBound(b, a, depth));
+		}
+		return best;
+	}
+
+}
@@ -0,0 +1,165 @@
+package tabular;
+
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+
+/**
+ * Bayes filter over dense belief vectors indexed by state enumeration id. For every (action, observation) pair
+ * the engine precomputes the update matrix U[s][s'] = T(s, a, s') * O(s', a, o), so an update is
+ * <pre>
+ *     b'(s') = sum_s b(s) U[s][s'] / Pr(o | b, a)
+ * </pre>
+ * computed as one row-wise multiply-add per state with non-zero belief. The rows are contiguous and the inner
+ * loops carry no dependencies between iterations, so HotSpot compiles them to SIMD instructions; states the
+ * belief rules out are skipped entirely.
+ * <p>
+ * The engine is immutable after construction and can be shared between threads.
+ */
+public class BeliefUpdateEngine {
+
+	protected final PODomain domain;
+	protected final TabularPOMDP model;
+	protected final int numStates;
+	protected final int numObservations;
+
+	// Update matrices by a * numObservations + o; null where Pr(o | s, a) is 0 for every s.
+	protected final double[][] updates;
+
+	public BeliefUpdateEngine(PODomain domain, TabularPOMDP model) {
+		this.domain = domain;
+		this.model = model;
+		this.numStates = model.numStates();
+		this.numObservations = model.numObservations();
+		this.updates = new double[model.numActions() * numObservations][];
+
+		for(int a = 0; a < model.numActions(); a++) {
+			for(int o = 0; o < numObservations; o++) {
+				double[] u = new double[numStates * numStates];
+				boolean possible = false;
+				for(int s = 0; s < numStates; s++) {
+					for(int sp : model.successors(s, a)) {
+						double p = model.transitionProbability(s, a, sp) * model.observationProbability(sp, a, o);
+						u[s * numStates + sp] = p;
+						possible |= p != 0.;
+					}
+				}
+				updates[a * numObservations + o] = possible ? u : null;
+			}
+		}
+	}
+
+	public TabularPOMDP getModel() {
+		return model;
+	}
+
+	/**
+	 * Writes the belief that follows b after taking action a and observing o into bprime and returns
+	 * Pr(o | b, a). If the observation is impossible under b, bprime is zeroed and 0 is returned.
+	 */
+	public double update(double[] b, int a, int o, double[] bprime) {
+		for(int sp = 0; sp < numStates; sp++) {
+			bprime[sp] = 0.;
+		}
+
+		double[] u = updates[a * numObservations + o];
+		if(u == null) {
+			return 0.;
+		}
+
+		for(int s = 0; s < numStates; s++) {
+			double bs = b[s];
+			if(bs != 0.) {
+				axpy(bs, u, s * numStates, bprime, numStates);
+			}
+		}
+
+		double norm = 0.;
+		for(int sp = 0; sp < numStates; sp++) {
+			norm += bprime[sp];
+		}
+		if(norm == 0.) {
+			return 0.;
+		}
+
+		double scale = 1. / norm;
+		for(int sp = 0; sp < numStates; sp++) {
+			bprime[sp] *= scale;
+		}
+		return norm;
+	}
+
+	/**
+	 * Pr(o | b, a) without computing the updated belief.
+	 */
+	public double observationProbability(double[] b, int a, int o) {
+		double[] u = updates[a * numObservations + o];
+		if(u == null) {
+			return 0.;
+		}
+		double p = 0.;
+		for(int s = 0; s < numStates; s++) {
+			double bs = b[s];
+			if(bs != 0.) {
+				int row = s * numStates;
+				double rowSum = 0.;
+				for(int sp = 0; sp < numStates; sp++) {
+					rowSum += u[row + sp];
+				}
+				p += bs * rowSum;
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * y[0..n) += alpha * x[offset..offset + n).
+	 */
+	protected static void axpy(double alpha, double[] x, int offset, double[] y, int n) {
+		for(int i = 0; i < n; i++) {
+			y[i] += alpha * x[offset + i];
+		}
+	}
+
+	/**
+	 * Object-level update: returns the belief state that follows bs after taking action and observing observation.
+	 */
+	public CompiledTabularBeliefState update(TabularBeliefState bs, GroundedAction action, State observation) {
+		int a = actionIndex(action);
+		int o = observationIndex(observation);
+		if(a == -1) {
+			throw new IllegalArgumentException("Action " + action.actionName() + " is not part of the tabular model.");
+		}
+		if(o == -1) {
+			throw new IllegalArgumentException("The observation is not part of the tabular model.");
+		}
+
+		double[] bprime = new double[numStates];
+		this.update(bs.getBeliefVector(), a, o, bprime);
+
+		CompiledTabularBeliefState next = new CompiledTabularBeliefState(domain, this);
+		next.setBeliefVector(bprime);
+		return next;
+	}
+
+	protected int actionIndex(GroundedAction action) {
+		for(int a = 0; a < model.numActions(); a++) {
+			if(model.getAction(a).action == action.action) {
+				return a;
+			}
+		}
+		return model.actionIndex(action.actionName());
+	}
+
+	protected int observationIndex(State observation) {
+		// Interned observations match by reference.
+		for(int o = 0; o < numObservations; o++) {
+			if(model.getObservation(o) == observation) {
+				return o;
+			}
+		}
+		return model.observationIndex(observation);
+	}
+
+}
@@ -0,0 +1,43 @@
+package tabular;
+
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.BeliefState;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+
+/**
+ * {@link TabularBeliefState} whose updates go through a {@link BeliefUpdateEngine} instead of enumerating states
+ * and querying the observation and transition functions. It can be used anywhere a {@link TabularBeliefState} is,
+ * e.g. as the belief of a {@link burlap.behavior.singleagent.pomdp.BeliefPolicyAgent} or the root of a
+ * {@link burlap.behavior.singleagent.pomdp.wrappedmdpalgs.BeliefSparseSampling} query, and every belief it is
+ * updated to is again a {@link CompiledTabularBeliefState}.
+ */
+public class CompiledTabularBeliefState extends TabularBeliefState {
+
+	protected final PODomain domain;
+	protected final BeliefUpdateEngine engine;
+
+	public CompiledTabularBeliefState(PODomain domain, BeliefUpdateEngine engine) {
+		super(domain, engine.getModel().getStateEnumerator());
+		this.domain = domain;
+		this.engine = engine;
+	}
+
+	public BeliefUpdateEngine getEngine() {
+		return engine;
+	}
+
+	@Override
+	public BeliefState getUpdatedBeliefState(State observation, GroundedAction ga) {
+		return engine.update(this, ga, observation);
+	}
+
+	@Override
+	public State copy() {
+		CompiledTabularBeliefState copy = new CompiledTabularBeliefState(domain, engine);
+		copy.setBeliefVector(this.getBeliefVector());
+		return copy;
+	}
+
+}
@@ -0,0 +1,208 @@
+package tabular;
+
+import java.util.List;
+import java.util.Map;
+
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.statehashing.HashableState;
+import burlap.oomdp.statehashing.HashableStateFactory;
+
+/**
+ * {@link TabularPOMDP} backed by flat row-major primitive arrays:
+ * <ul>
+ *     <li>T[s][a][s'] at <code>(s * numActions + a) * numStates + s'</code></li>
+ *     <li>R[s][a][s'] at the same index as T</li>
+ *     <li>O[s'][a][o] at <code>(s' * numActions + a) * numObservations + o</code></li>
+ *     <li>terminal[s] at <code>s</code></li>
+ * </ul>
+ * Instances are built by {@link TabularModelCompiler}. The arrays are shared, not copied,
+ * so callers must treat them as read only.
+ */
+public class DenseTabularPOMDP implements TabularPOMDP {
+
+	protected final int numStates;
+	protected final int numActions;
+	protected final int numObservations;
+
+	protected final double[] transitions;
+	protected final double[] rewards;
+	protected final double[] expectedRewards;
+	protected final double[] observations;
+	protected final boolean[] terminal;
+	protected final int[][] successors;
+
+	protected final StateEnumerator enumerator;
+	protected final List<GroundedAction> actions;
+	protected final List<State> observationStates;
+	protected final HashableStateFactory observationHashing;
+	protected final Map<HashableState, Integer> observationIds;
+
+	public DenseTabularPOMDP(int numStates, int numActions, int numObservations,
+							 double[] transitions, double[] rewards, double[] observations, boolean[] terminal,
+							 StateEnumerator enumerator, List<GroundedAction> actions, List<State> observationStates,
+							 HashableStateFactory observationHashing, Map<HashableState, Integer> observationIds) {
+
+		if(transitions.length != numStates * numActions * numStates || rewards.length != transitions.length) {
+			throw new IllegalArgumentException("Transition and reward arrays must have numStates * numActions * numStates entries.");
+		}
+		if(observations.length != numStates * numActions * numObservations) {
+			throw new IllegalArgumentException("Observation array must have numStates * numActions * numObservations entries.");
+		}
+
+		this.numStates = numStates;
+		this.numActions = numActions;
+		this.numObservations = numObservations;
+		this.transitions = transitions;
+		this.rewards = rewards;
+		this.observations = observations;
+		this.terminal = terminal;
+		this.enumerator = enumerator;
+		this.actions = actions;
+		this.observationStates = observationStates;
+		this.observationHashing = observationHashing;
+		this.observationIds = observationIds;
+
+		// Precompute expected rewards and sparse successor lists.
+		this.expectedRewards = new double[numStates * numActions];
+		this.successors = new int[numStates * numActions][];
+		int[] buffer = new int[numStates];
+		for(int sa = 0; sa < numStates * numActions; sa++) {
+			int row = sa * numStates;
+			int n = 0;
+			double er = 0.;
+			for(int sp = 0; sp < numStates; sp++) {
+				double p = transitions[row + sp];
+				if(p > 0.) {
+					er += p * rewards[row + sp];
+					buffer[n++] = sp;
+				}
+			}
+			this.expectedRewards[sa] = er;
+			int[] succ = new int[n];
+			System.arraycopy(buffer, 0, succ, 0, n);
+			this.successors[sa] = succ;
+		}
+	}
+
+	public int tIndex(int s, int a, int sprime) {
+		return (s * numActions + a) * numStates + sprime;
+	}
+
+	public int oIndex(int sprime, int a, int o) {
+		return (sprime * numActions + a) * numObservations + o;
+	}
+
+	@Override
+	public int numStates() {
+		return numStates;
+	}
+
+	@Override
+	public int numActions() {
+		return numActions;
+	}
+
+	@Override
+	public int numObservations() {
+		return numObservations;
+	}
+
+	@Override
+	public double transitionProbability(int s, int a, int sprime) {
+		return transitions[tIndex(s, a, sprime)];
+	}
+
+	@Override
+	public double reward(int s, int a, int sprime) {
+		return rewards[tIndex(s, a, sprime)];
+	}
+
+	@Override
+	public double expectedReward(int s, int a) {
+		return expectedRewards[s * numActions + a];
+	}
+
+	@Override
+	public double observationProbability(int sprime, int a, int o) {
+		return observations[oIndex(sprime, a, o)];
+	}
+
+	@Override
+	public boolean isTerminal(int s) {
+		return terminal[s];
+	}
+
+	@Override
+	public int[] successors(int s, int a) {
+		return successors[s * numActions + a];
+	}
+
+	@Override
+	public GroundedAction getAction(int a) {
+		return actions.get(a);
+	}
+
+	@Override
+	public int actionIndex(String actionName) {
+		for(int a = 0; a < actions.size(); a++) {
+			if(actions.get(a).actionName().equals(actionName)) {
+				return a;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public State getObservation(int o) {
+		return observationStates.get(o);
+	}
+
+	@Override
+	public int observationIndex(State observation) {
+		Integer id = observationIds.get(observationHashing.hashState(observation));
+		if(id == null) {
+			return -1;
+		}
+		return id;
+	}
+
+	@Override
+	public StateEnumerator getStateEnumerator() {
+		return enumerator;
+	}
+
+	/**
+	 * Flat T[s][a][s'] array; see {@link #tIndex(int, int, int)}.
+	 */
+	public double[] getTransitionArray() {
+		return transitions;
+	}
+
+	/**
+	 * Flat R[s][a][s'] array; see {@link #tIndex(int, int, int)}.
+	 */
+	public double[] getRewardArray() {
+		return rewards;
+	}
+
+	/**
+	 * Flat R[s][a] array of expected rewards, indexed by <code>s * numActions + a</code>.
+	 */
+	public double[] getExpectedRewardArray() {
+		return expectedRewards;
+	}
+
+	/**
+	 * Flat O[s'][a][o] array; see {@link #oIndex(int, int, int)}.
+	 */
+	public double[] getObservationArray() {
+		return observations;
+	}
+
+	public boolean[] getTerminalArray() {
+		return terminal;
+	}
+
+}
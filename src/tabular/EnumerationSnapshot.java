@@ -0,0 +1,307 @@
+package tabular;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.statehashing.HashableStateFactory;
+import burlap.oomdp.statehashing.SimpleHashableStateFactory;
+
+/**
+ * Versioned binary file holding a domain's enumerated states, encoded with a {@link StateCodec}, and optionally
+ * the transition, reward, observation and terminal tables of its compiled {@link TabularPOMDP}. Loading maps
+ * the file read-only instead of reading it, so a worker that restores its domain from a snapshot skips the
+ * reachability search and touches only the pages it uses.
+ * <p>
+ * A snapshot records a fingerprint of the domain definition it was written for: the codec name, a definition
+ * string supplied by the domain generator (e.g. its parameters), the action names and the observations.
+ * {@link #validate} recomputes it from the current domain and rejects the snapshot if anything changed.
+ * <p>
+ * Layout (big-endian): magic, version, fingerprint, flags, numStates, numActions, numObservations, codec name
+ * and definition as length-prefixed UTF-8, padding to 8 bytes, the state codes, padding, then with tables
+ * T, R and O as in {@link DenseTabularPOMDP} and one byte per state for terminal, padding, and finally a CRC32
+ * of everything before it.
+ */
+public class EnumerationSnapshot {
+
+	public static final int MAGIC = 0x45445353; // "EDSS"
+	public static final int VERSION = 1;
+
+	protected static final int FLAGTABLES = 1;
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	protected final MappedByteBuffer buffer;
+	protected final long fingerprint;
+	protected final int flags;
+	protected final int numStates;
+	protected final int numActions;
+	protected final int numObservations;
+	protected final String codecName;
+	protected final String definition;
+	protected final int codesOffset;
+	protected final int tablesOffset;
+
+	protected EnumerationSnapshot(MappedByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if(buffer.capacity() < 40 || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a state enumeration snapshot.");
+		}
+		int version = buffer.getInt(4);
+		if(version != VERSION) {
+			throw new IOException("Unsupported snapshot version " + version + "; expected " + VERSION + ".");
+		}
+
+		int end = buffer.capacity() - 8;
+		CRC32 crc = new CRC32();
+		ByteBuffer body = buffer.duplicate();
+		body.position(0).limit(end);
+		crc.update(body);
+		if(crc.getValue() != buffer.getLong(end)) {
+			throw new IOException("Snapshot checksum mismatch; the file is corrupt or truncated.");
+		}
+
+		ByteBuffer header = buffer.duplicate();
+		header.position(8);
+		this.fingerprint = header.getLong();
+		this.flags = header.getInt();
+		this.numStates = header.getInt();
+		this.numActions = header.getInt();
+		this.numObservations = header.getInt();
+		this.codecName = readString(header);
+		this.definition = readString(header);
+		this.codesOffset = align(header.position());
+		this.tablesOffset = align(codesOffset + 4 * numStates);
+	}
+
+	/**
+	 * Maps and checks the snapshot file. The mapping stays valid after the file's channel is closed.
+	 */
+	public static EnumerationSnapshot load(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			return new EnumerationSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Writes the states of the domain's enumerator, and the tables of model if it is not null, to file.
+	 * The model must have been compiled from the same enumeration.
+	 */
+	public static void write(File file, PODomain domain, StateCodec codec, String definition, TabularPOMDP model) throws IOException {
+
+		StateEnumerator senum = domain.getStateEnumerator();
+		int nS = senum.numStatesEnumerated();
+		int nA = model == null ? 0 : model.numActions();
+		int nO = model == null ? 0 : model.numObservations();
+		if(model != null && model.numStates() != nS) {
+			throw new IllegalArgumentException("The model has " + model.numStates() + " states but the enumeration has " + nS + ".");
+		}
+
+		byte[] codecBytes = codec.getName().getBytes(UTF8);
+		byte[] definitionBytes = definition.getBytes(UTF8);
+		int codesOffset = align(32 + 4 + codecBytes.length + 4 + definitionBytes.length);
+		int tablesOffset = align(codesOffset + 4 * nS);
+		int end = tablesOffset;
+		if(model != null) {
+			end = align(tablesOffset + 8 * (2 * nS * nA * nS + nS * nA * nO) + nS);
+		}
+
+		ByteBuffer out = ByteBuffer.allocate(end + 8);
+		out.putInt(MAGIC);
+		out.putInt(VERSION);
+		out.putLong(fingerprint(domain, codec.getName(), definition));
+		out.putInt(model == null ? 0 : FLAGTABLES);
+		out.putInt(nS);
+		out.putInt(nA);
+		out.putInt(nO);
+		out.putInt(codecBytes.length).put(codecBytes);
+		out.putInt(definitionBytes.length).put(definitionBytes);
+
+		out.position(codesOffset);
+		for(int s = 0; s < nS; s++) {
+			out.putInt(codec.encode(senum.getStateForEnumerationId(s)));
+		}
+
+		if(model != null) {
+			out.position(tablesOffset);
+			for(int s = 0; s < nS; s++) {
+				for(int a = 0; a < nA; a++) {
+					for(int sp = 0; sp < nS; sp++) {
+						out.putDouble(model.transitionProbability(s, a, sp));
+					}
+				}
+			}
+			for(int s = 0; s < nS; s++) {
+				for(int a = 0; a < nA; a++) {
+					for(int sp = 0; sp < nS; sp++) {
+						out.putDouble(model.reward(s, a, sp));
+					}
+				}
+			}
+			for(int sp = 0; sp < nS; sp++) {
+				for(int a = 0; a < nA; a++) {
+					for(int o = 0; o < nO; o++) {
+						out.putDouble(model.observationProbability(sp, a, o));
+					}
+				}
+			}
+			for(int s = 0; s < nS; s++) {
+				out.put(model.isTerminal(s) ? (byte)1 : (byte)0);
+			}
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(out.array(), 0, end);
+		out.putLong(end, crc.getValue());
+
+		out.position(0);
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			while(out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Throws an IllegalStateException unless the snapshot was written for this domain definition with this codec.
+	 */
+	public void validate(PODomain domain, StateCodec codec, String definition) {
+		if(!codecName.equals(codec.getName())) {
+			throw new IllegalStateException("Snapshot states were encoded with " + codecName + ", not " + codec.getName() + ".");
+		}
+		if(!this.definition.equals(definition)) {
+			throw new IllegalStateException("Snapshot was written for \"" + this.definition + "\", not \"" + definition + "\".");
+		}
+		if(fingerprint != fingerprint(domain, codecName, definition)) {
+			throw new IllegalStateException("The domain's actions or observations changed since the snapshot was written.");
+		}
+	}
+
+	public int numStates() {
+		return numStates;
+	}
+
+	public boolean hasTables() {
+		return (flags & FLAGTABLES) != 0;
+	}
+
+	public String getCodecName() {
+		return codecName;
+	}
+
+	public String getDefinition() {
+		return definition;
+	}
+
+	public int getStateCode(int id) {
+		if(id < 0 || id >= numStates) {
+			throw new IndexOutOfBoundsException("State id " + id + " is not in the snapshot.");
+		}
+		return buffer.getInt(codesOffset + 4 * id);
+	}
+
+	/**
+	 * Enumerator holding the snapshot's states under their original ids; see {@link SnapshotStateEnumerator}.
+	 */
+	public StateEnumerator getStateEnumerator(PODomain domain, StateCodec codec, HashableStateFactory hashingFactory) {
+		return new SnapshotStateEnumerator(domain, hashingFactory, this, codec);
+	}
+
+	/**
+	 * Rebuilds the compiled model from the snapshot's tables, for a domain whose state enumerator came from this
+	 * snapshot. Throws an IllegalStateException if the snapshot has no tables.
+	 */
+	public DenseTabularPOMDP getModel(PODomain domain) {
+		if(!hasTables()) {
+			throw new IllegalStateException("The snapshot was written without model tables.");
+		}
+		StateEnumerator senum = domain.getStateEnumerator();
+		List<GroundedAction> actions = Action.getAllApplicableGroundedActionsFromActionList(domain.getActions(), senum.getStateForEnumerationId(0));
+		List<State> observationStates = domain.getObservationFunction().getAllPossibleObservations();
+		if(actions.size() != numActions || observationStates.size() != numObservations) {
+			throw new IllegalStateException("The domain's actions or observations do not match the snapshot's tables.");
+		}
+
+		int nSAS = numStates * numActions * numStates;
+		double[] T = new double[nSAS];
+		double[] R = new double[nSAS];
+		double[] O = new double[numStates * numActions * numObservations];
+		boolean[] terminal = new boolean[numStates];
+
+		ByteBuffer tables = buffer.duplicate();
+		tables.position(tablesOffset);
+		tables.asDoubleBuffer().get(T);
+		tables.position(tablesOffset + 8 * nSAS);
+		tables.asDoubleBuffer().get(R);
+		tables.position(tablesOffset + 16 * nSAS);
+		tables.asDoubleBuffer().get(O);
+		int terminalOffset = tablesOffset + 16 * nSAS + 8 * O.length;
+		for(int s = 0; s < numStates; s++) {
+			terminal[s] = buffer.get(terminalOffset + s) != 0;
+		}
+
+		HashableStateFactory observationHashing = new SimpleHashableStateFactory();
+		return new DenseTabularPOMDP(numStates, numActions, numObservations, T, R, O, terminal, senum, actions, observationStates,
+				observationHashing, TabularModelCompiler.indexObservations(observationStates, observationHashing));
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the codec name, definition, action names and observation descriptions.
+	 */
+	protected static long fingerprint(PODomain domain, String codecName, String definition) {
+		long h = 0xcbf29ce484222325L;
+		h = fnv(h, codecName);
+		h = fnv(h, definition);
+		for(Action a : domain.getActions()) {
+			h = fnv(h, a.getName());
+		}
+		for(State o : domain.getObservationFunction().getAllPossibleObservations()) {
+			h = fnv(h, o.getCompleteStateDescription());
+		}
+		return h;
+	}
+
+	protected static long fnv(long h, String s) {
+		for(byte b : s.getBytes(UTF8)) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		// Separator, so that ("ab", "c") and ("a", "bc") differ.
+		h ^= 0xff;
+		h *= 0x100000001b3L;
+		return h;
+	}
+
+	protected static String readString(ByteBuffer in) throws IOException {
+		int length = in.getInt();
+		if(length < 0 || length > in.remaining()) {
+			throw new IOException("Malformed snapshot header.");
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	protected static int align(int offset) {
+		return (offset + 7) & ~7;
+	}
+
+}
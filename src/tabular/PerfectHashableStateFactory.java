@@ -0,0 +1,159 @@
+package tabular;
+
+import java.util.Arrays;
+
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.statehashing.HashableState;
+import burlap.oomdp.statehashing.HashableStateFactory;
+
+/**
+ * State hashing factory for small domains whose reachable states are all enumerated up front. Every enumerated
+ * state gets one canonical {@link PerfectHashableState} whose hash code is its dense enumeration id, and hashing
+ * a state is a {@link StateCodec} encoding plus an array lookup that returns that canonical state, so equality
+ * is a reference comparison and nothing is allocated. States whose code is not enumerated are hashed by a
+ * structural fallback factory instead.
+ * <p>
+ * Hashed states must belong to the codec's domain. The canonical states and the decoded states they wrap are
+ * shared and must not be modified; their copies are ordinary mutable states. The factory is immutable and safe to
+ * share between threads.
+ */
+public class PerfectHashableStateFactory implements HashableStateFactory {
+
+	/**
+	 * The canonical hashed form of one enumerated state, wrapping the state decoded from its code.
+	 */
+	public static final class PerfectHashableState extends HashableState {
+
+		protected final PerfectHashableStateFactory factory;
+		protected final int id;
+
+		protected PerfectHashableState(PerfectHashableStateFactory factory, int id, State s) {
+			super(s);
+			this.factory = factory;
+			this.id = id;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		@Override
+		public State copy() {
+			return s.copy();
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			// There is one canonical state per id and factory.
+			return this == other;
+		}
+
+	}
+
+	protected final StateCodec codec;
+	protected final HashableStateFactory fallback;
+	protected final PerfectHashableState[] states;
+	// Enumeration id by code, -1 for codes that are not enumerated.
+	protected final int[] idsByCode;
+
+	/**
+	 * @param codes the code of each enumerated state, indexed by its id.
+	 * @param fallback hashes states whose code is not among codes.
+	 */
+	public PerfectHashableStateFactory(Domain domain, StateCodec codec, int[] codes, HashableStateFactory fallback) {
+		this.codec = codec;
+		this.fallback = fallback;
+		this.states = new PerfectHashableState[codes.length];
+
+		int maxCode = -1;
+		for(int code : codes) {
+			if(code < 0) {
+				throw new IllegalArgumentException("State codes must be non-negative.");
+			}
+			maxCode = Math.max(maxCode, code);
+		}
+		if(maxCode >= 1 << 24) {
+			throw new IllegalArgumentException("State codes up to " + maxCode + " are too sparse for a perfect hash table.");
+		}
+		this.idsByCode = new int[maxCode + 1];
+		Arrays.fill(idsByCode, -1);
+		for(int id = 0; id < codes.length; id++) {
+			if(idsByCode[codes[id]] != -1) {
+				throw new IllegalArgumentException("States " + idsByCode[codes[id]] + " and " + id + " have the same code.");
+			}
+			idsByCode[codes[id]] = id;
+			states[id] = new PerfectHashableState(this, id, codec.decode(domain, codes[id]));
+		}
+	}
+
+	/**
+	 * Factory over the states enumerated so far, under their enumeration ids.
+	 */
+	public static PerfectHashableStateFactory fromEnumerator(Domain domain, StateEnumerator senum, StateCodec codec, HashableStateFactory fallback) {
+		int[] codes = new int[senum.numStatesEnumerated()];
+		for(int id = 0; id < codes.length; id++) {
+			codes[id] = codec.encode(senum.getStateForEnumerationId(id));
+		}
+		return new PerfectHashableStateFactory(domain, codec, codes, fallback);
+	}
+
+	/**
+	 * A state enumerator that hashes with this factory and holds the canonical states under their ids.
+	 */
+	public StateEnumerator newStateEnumerator(Domain domain) {
+		StateEnumerator senum = new StateEnumerator(domain, this);
+		// Ids are handed out in insertion order, so this reproduces the ids.
+		for(PerfectHashableState s : states) {
+			senum.getEnumeratedID(s);
+		}
+		return senum;
+	}
+
+	public HashableStateFactory getFallback() {
+		return fallback;
+	}
+
+	public int numStates() {
+		return states.length;
+	}
+
+	/**
+	 * The canonical state with the given id.
+	 */
+	public PerfectHashableState getState(int id) {
+		return states[id];
+	}
+
+	/**
+	 * Enumeration id of s, or -1 if s is not enumerated.
+	 */
+	public int getId(State s) {
+		if(s instanceof PerfectHashableState && ((PerfectHashableState)s).factory == this) {
+			return ((PerfectHashableState)s).id;
+		}
+		if(s instanceof HashableState) {
+			s = ((HashableState)s).s;
+		}
+		int code = codec.encode(s);
+		return code >= 0 && code < idsByCode.length ? idsByCode[code] : -1;
+	}
+
+	@Override
+	public HashableState hashState(State s) {
+		int id = getId(s);
+		return id != -1 ? states[id] : fallback.hashState(s);
+	}
+
+	@Override
+	public boolean objectIdentifierIndependent() {
+		return fallback.objectIdentifierIndependent();
+	}
+
+}
@@ -0,0 +1,90 @@
+package tabular;
+
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.statehashing.HashableStateFactory;
+
+/**
+ * {@link StateEnumerator} restored from an {@link EnumerationSnapshot}. Ids and state counts are answered from the
+ * snapshot, decoding each state the first time it is asked for; the hash index that maps states back to ids
+ * is only built when {@link #getEnumeratedID(State)} or a reachability search first needs it. States keep the
+ * ids they had when the snapshot was written.
+ */
+public class SnapshotStateEnumerator extends StateEnumerator {
+
+	protected final Domain domain;
+	protected final EnumerationSnapshot snapshot;
+	protected final StateCodec codec;
+	protected final State[] decoded;
+	protected boolean indexed = false;
+
+	public SnapshotStateEnumerator(Domain domain, HashableStateFactory hashingFactory, EnumerationSnapshot snapshot, StateCodec codec) {
+		super(domain, hashingFactory);
+		this.domain = domain;
+		this.snapshot = snapshot;
+		this.codec = codec;
+		this.decoded = new State[snapshot.numStates()];
+	}
+
+	@Override
+	public synchronized State getStateForEnumerationId(int id) {
+		if(!indexed && id >= 0 && id < decoded.length) {
+			return decode(id);
+		}
+		ensureIndexed();
+		return super.getStateForEnumerationId(id);
+	}
+
+	@Override
+	public synchronized int numStatesEnumerated() {
+		return indexed ? super.numStatesEnumerated() : decoded.length;
+	}
+
+	@Override
+	public synchronized int getEnumeratedID(State s) {
+		ensureIndexed();
+		return super.getEnumeratedID(s);
+	}
+
+	@Override
+	public synchronized void findReachableStatesAndEnumerate(State from) {
+		ensureIndexed();
+		super.findReachableStatesAndEnumerate(from);
+	}
+
+	@Override
+	public synchronized void findReachableStatesAndEnumerate(State from, TerminalFunction tf) {
+		ensureIndexed();
+		super.findReachableStatesAndEnumerate(from, tf);
+	}
+
+	public synchronized boolean isIndexed() {
+		return indexed;
+	}
+
+	protected State decode(int id) {
+		State s = decoded[id];
+		if(s == null) {
+			s = codec.decode(domain, snapshot.getStateCode(id));
+			decoded[id] = s;
+		}
+		return s;
+	}
+
+	protected void ensureIndexed() {
+		if(indexed) {
+			return;
+		}
+		// Ids are handed out in insertion order, so this reproduces the snapshot's ids.
+		for(int id = 0; id < decoded.length; id++) {
+			int assigned = super.getEnumeratedID(decode(id));
+			if(assigned != id) {
+				throw new IllegalStateException("Snapshot state " + id + " hashes equal to state " + assigned + "; the snapshot does not match the domain.");
+			}
+		}
+		indexed = true;
+	}
+
+}
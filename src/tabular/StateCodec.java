@@ -0,0 +1,19 @@
+package tabular;
+
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.states.State;
+
+/**
+ * Lossless int encoding of the states of one domain, used to persist state enumerations in an
+ * {@link EnumerationSnapshot}. The name identifies the encoding; change it whenever the encoding changes
+ * so that snapshots written with the old one are rejected.
+ */
+public interface StateCodec {
+
+	String getName();
+
+	int encode(State s);
+
+	State decode(Domain domain, int code);
+
+}
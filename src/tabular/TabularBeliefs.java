@@ -0,0 +1,80 @@
+package tabular;
+
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.singleagent.pomdp.beliefstate.DenseBeliefVector;
+import burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState;
+
+/**
+ * Belief vector helpers for {@link TabularPOMDP}s. Belief vectors are plain <code>double[]</code>s
+ * indexed by state id, i.e. the same layout as {@link TabularBeliefState#getBeliefVector()}.
+ */
+public class TabularBeliefs {
+
+	private TabularBeliefs() {
+		// Static helpers only.
+	}
+
+	/**
+	 * Bayes filter: writes the belief that follows b after taking action a and observing o into bprime
+	 * and returns Pr(o | b, a). If the observation is impossible under b, bprime is zeroed and 0 is returned.
+	 */
+	public static double update(TabularPOMDP model, double[] b, int a, int o, double[] bprime) {
+		int nS = model.numStates();
+		for(int sp = 0; sp < nS; sp++) {
+			bprime[sp] = 0.;
+		}
+
+		for(int s = 0; s < nS; s++) {
+			double bs = b[s];
+			if(bs == 0.) {
+				continue;
+			}
+			for(int sp : model.successors(s, a)) {
+				bprime[sp] += bs * model.transitionProbability(s, a, sp);
+			}
+		}
+
+		double norm = 0.;
+		for(int sp = 0; sp < nS; sp++) {
+			if(bprime[sp] != 0.) {
+				bprime[sp] *= model.observationProbability(sp, a, o);
+				norm += bprime[sp];
+			}
+		}
+
+		if(norm == 0.) {
+			return 0.;
+		}
+		for(int sp = 0; sp < nS; sp++) {
+			bprime[sp] /= norm;
+		}
+		return norm;
+	}
+
+	public static double dot(double[] b, double[] alpha) {
+		double sum = 0.;
+		for(int s = 0; s < b.length; s++) {
+			sum += b[s] * alpha[s];
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the dense belief vector of a belief state, which must be a {@link DenseBeliefVector}
+	 * such as {@link TabularBeliefState}.
+	 */
+	public static double[] beliefVector(State beliefState) {
+		if(!(beliefState instanceof DenseBeliefVector)) {
+			throw new IllegalArgumentException("Tabular models can only be queried with DenseBeliefVector belief states.");
+		}
+		return ((DenseBeliefVector)beliefState).getBeliefVector();
+	}
+
+	public static TabularBeliefState toBeliefState(PODomain domain, TabularPOMDP model, double[] b) {
+		TabularBeliefState bs = new TabularBeliefState(domain, model.getStateEnumerator());
+		bs.setBeliefVector(b);
+		return bs;
+	}
+
+}
@@ -0,0 +1,115 @@
+package tabular;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.core.TransitionProbability;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.pomdp.ObservationFunction;
+import burlap.oomdp.singleagent.pomdp.PODomain;
+import burlap.oomdp.statehashing.HashableState;
+import burlap.oomdp.statehashing.HashableStateFactory;
+import burlap.oomdp.statehashing.SimpleHashableStateFactory;
+
+/**
+ * Compiles a {@link PODomain} with a {@link StateEnumerator}, an enumerable {@link ObservationFunction}
+ * and full action models into a {@link DenseTabularPOMDP}. Every transition, reward, observation and
+ * terminal query is made exactly once here, after which solvers only touch primitive arrays.
+ * <p>
+ * The enumerator must already be closed under the domain's transitions, as it is after
+ * {@link StateEnumerator#findReachableStatesAndEnumerate(State)} has been called from every initial state.
+ * Actions are grounded in the first enumerated state, so the domain's action set must not depend on
+ * the state, which holds for both dilemmas.
+ */
+public class TabularModelCompiler {
+
+	private TabularModelCompiler() {
+		// Static helpers only.
+	}
+
+	public static DenseTabularPOMDP compile(PODomain domain, RewardFunction rf, TerminalFunction tf) {
+		return compile(domain, rf, tf, new SimpleHashableStateFactory());
+	}
+
+	public static DenseTabularPOMDP compile(PODomain domain, RewardFunction rf, TerminalFunction tf, HashableStateFactory observationHashing) {
+
+		if(!domain.providesStateEnumerator()) {
+			throw new IllegalArgumentException("The domain does not provide a state enumerator.");
+		}
+		ObservationFunction of = domain.getObservationFunction();
+		if(!of.canEnumerateObservations()) {
+			throw new IllegalArgumentException("The domain's observation function cannot enumerate observations.");
+		}
+
+		StateEnumerator senum = domain.getStateEnumerator();
+		int nS = senum.numStatesEnumerated();
+		if(nS == 0) {
+			throw new IllegalArgumentException("The domain's state enumerator has no states.");
+		}
+
+		State[] states = new State[nS];
+		for(int s = 0; s < nS; s++) {
+			states[s] = senum.getStateForEnumerationId(s);
+		}
+
+		List<GroundedAction> actions = Action.getAllApplicableGroundedActionsFromActionList(domain.getActions(), states[0]);
+		int nA = actions.size();
+
+		List<State> observationStates = new ArrayList<State>(of.getAllPossibleObservations());
+		Map<HashableState, Integer> observationIds = indexObservations(observationStates, observationHashing);
+		int nO = observationStates.size();
+
+		double[] T = new double[nS * nA * nS];
+		double[] R = new double[nS * nA * nS];
+		double[] O = new double[nS * nA * nO];
+		boolean[] terminal = new boolean[nS];
+
+		for(int s = 0; s < nS; s++) {
+			terminal[s] = tf.isTerminal(states[s]);
+			for(int a = 0; a < nA; a++) {
+				GroundedAction ga = actions.get(a);
+				int row = (s * nA + a) * nS;
+				for(TransitionProbability tp : ga.getTransitions(states[s])) {
+					int sp = senum.getEnumeratedID(tp.s);
+					if(sp >= nS) {
+						throw new IllegalStateException("Action " + ga.actionName() + " leads to a state outside the enumeration; "
+								+ "enumerate reachable states before compiling.");
+					}
+					T[row + sp] += tp.p;
+					R[row + sp] = rf.reward(states[s], ga, tp.s);
+				}
+			}
+		}
+
+		for(int sp = 0; sp < nS; sp++) {
+			for(int a = 0; a < nA; a++) {
+				GroundedAction ga = actions.get(a);
+				int row = (sp * nA + a) * nO;
+				for(int o = 0; o < nO; o++) {
+					O[row + o] = of.getObservationProbability(observationStates.get(o), states[sp], ga);
+				}
+			}
+		}
+
+		return new DenseTabularPOMDP(nS, nA, nO, T, R, O, terminal, senum, actions, observationStates, observationHashing, observationIds);
+	}
+
+	/**
+	 * Maps each observation's hashed form to its index in the list.
+	 */
+	public static Map<HashableState, Integer> indexObservations(List<State> observationStates, HashableStateFactory observationHashing) {
+		Map<HashableState, Integer> observationIds = new HashMap<HashableState, Integer>(observationStates.size());
+		for(int o = 0; o < observationStates.size(); o++) {
+			observationIds.put(observationHashing.hashState(observationStates.get(o)), o);
+		}
+		return observationIds;
+	}
+
+}
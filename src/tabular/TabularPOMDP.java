@@ -0,0 +1,61 @@
+package tabular;
+
+import burlap.behavior.singleagent.auxiliary.StateEnumerator;
+import burlap.oomdp.core.states.State;
+import burlap.oomdp.singleagent.GroundedAction;
+
+/**
+ * A finite POMDP whose states, actions and observations are identified by dense integer ids.
+ * State ids are the ids of the domain's {@link StateEnumerator}, so a
+ * {@link burlap.oomdp.singleagent.pomdp.beliefstate.tabular.TabularBeliefState} belief vector
+ * can be used directly as a distribution over this model's states.
+ */
+public interface TabularPOMDP {
+
+	int numStates();
+
+	int numActions();
+
+	int numObservations();
+
+	/**
+	 * Pr(sprime | s, a).
+	 */
+	double transitionProbability(int s, int a, int sprime);
+
+	double reward(int s, int a, int sprime);
+
+	/**
+	 * Sum over sprime of Pr(sprime | s, a) * R(s, a, sprime).
+	 */
+	double expectedReward(int s, int a);
+
+	/**
+	 * Pr(o | sprime, a), the probability of observing o after a leads to sprime.
+	 */
+	double observationProbability(int sprime, int a, int o);
+
+	boolean isTerminal(int s);
+
+	/**
+	 * Ids of the states reachable from s under a with non-zero probability.
+	 */
+	int[] successors(int s, int a);
+
+	GroundedAction getAction(int a);
+
+	/**
+	 * Returns the id of the action with the given name, or -1 if there is none.
+	 */
+	int actionIndex(String actionName);
+
+	State getObservation(int o);
+
+	/**
+	 * Returns the id of the given observation, or -1 if it is not one of this model's observations.
+	 */
+	int observationIndex(State observation);
+
+	StateEnumerator getStateEnumerator();
+
+}